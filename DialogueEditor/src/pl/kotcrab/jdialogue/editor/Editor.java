@@ -223,18 +223,28 @@ public class Editor extends JFrame {
 		JMenuItem menuLoadProject = new JMenuItem("Load Project");
 		JMenuItem menuSaveProject = new JMenuItem("Save Project");
 		JMenuItem menuExportProject = new JMenuItem("Export Project");
+		JMenuItem menuExportUnoptimized = new JMenuItem("Export Project (unoptimized)");
+		JMenuItem menuSourceExport = new JMenuItem("Java Source Export...");
+		JMenuItem menuGenerateProject = new JMenuItem("Generate Test Project...");
 		JMenuItem menuExit = new JMenuItem("Exit");
 
 		menuNewProject.addActionListener(logic.menubarNewProjectListener);
 		menuLoadProject.addActionListener(logic.menubarLoadProjectListener);
 		menuSaveProject.addActionListener(logic.saveButtonListener);
 		menuExportProject.addActionListener(logic.menubarExportProjectListener);
+		menuExportUnoptimized.addActionListener(logic.menubarExportUnoptimizedListener);
+		menuSourceExport.addActionListener(logic.menubarSourceExportListener);
+		menuGenerateProject.addActionListener(logic.menubarGenerateProjectListener);
 
 		fileMenu.add(menuNewProject);
 		fileMenu.add(menuLoadProject);
 		fileMenu.add(menuSaveProject);
 		fileMenu.add(new JSeparator());
 		fileMenu.add(menuExportProject);
+		fileMenu.add(menuExportUnoptimized);
+		fileMenu.add(menuSourceExport);
+		fileMenu.add(new JSeparator());
+		fileMenu.add(menuGenerateProject);
 		fileMenu.add(new JSeparator());
 		fileMenu.add(menuExit);
 
@@ -265,6 +275,7 @@ public class Editor extends JFrame {
 		MenuItem mAddRandom = new AddComponentMenuItem("Add 'Random'", DComponentType.RANDOM);
 		MenuItem mAddCallback = new AddComponentMenuItem("Add 'Callback'", DComponentType.CALLBACK);
 		MenuItem mAddCallbackCheck = new AddComponentMenuItem("Add 'Callback Check'", DComponentType.CBCHECK);
+		MenuItem mAddCondition = new AddComponentMenuItem("Add 'Condition'", DComponentType.CONDITION);
 		MenuItem mAddRelay = new AddComponentMenuItem("Add 'Relay'", DComponentType.RELAY);
 		MenuItem mAddEnd = new AddComponentMenuItem("Add 'End'", DComponentType.END);
 
@@ -273,6 +284,7 @@ public class Editor extends JFrame {
 		mAddRandom.addActionListener(logic.popupMenuListener);
 		mAddCallback.addActionListener(logic.popupMenuListener);
 		mAddCallbackCheck.addActionListener(logic.popupMenuListener);
+		mAddCondition.addActionListener(logic.popupMenuListener);
 		mAddRelay.addActionListener(logic.popupMenuListener);
 		mAddEnd.addActionListener(logic.popupMenuListener);
 
@@ -281,6 +293,7 @@ public class Editor extends JFrame {
 		popupMenu.add(mAddRandom);
 		popupMenu.add(mAddCallback);
 		popupMenu.add(mAddCallbackCheck);
+		popupMenu.add(mAddCondition);
 		popupMenu.add(mAddRelay);
 		popupMenu.add(mAddEnd);
 
@@ -26,11 +26,14 @@ import pl.kotcrab.jdialogue.editor.components.DComponentConverter;
 import pl.kotcrab.jdialogue.editor.components.types.CallbackCheckComponent;
 import pl.kotcrab.jdialogue.editor.components.types.CallbackComponent;
 import pl.kotcrab.jdialogue.editor.components.types.ChoiceComponent;
+import pl.kotcrab.jdialogue.editor.components.types.ConditionComponent;
 import pl.kotcrab.jdialogue.editor.components.types.EndComponent;
 import pl.kotcrab.jdialogue.editor.components.types.RandomComponent;
 import pl.kotcrab.jdialogue.editor.components.types.RelayComponent;
 import pl.kotcrab.jdialogue.editor.components.types.StartComponent;
 import pl.kotcrab.jdialogue.editor.components.types.TextComponent;
+import pl.kotcrab.jdialogue.editor.generator.EditorProjectBuilder;
+import pl.kotcrab.jdialogue.editor.generator.ProjectGenerator;
 import pl.kotcrab.jdialogue.editor.gui.AddComponentMenuItem;
 import pl.kotcrab.jdialogue.editor.gui.StatusBar;
 import pl.kotcrab.jdialogue.editor.gui.dialog.CallbacksConfigDialog;
@@ -38,14 +41,17 @@ import pl.kotcrab.jdialogue.editor.gui.dialog.CharactersConfigDialog;
 import pl.kotcrab.jdialogue.editor.gui.dialog.NewProjectDialog;
 import pl.kotcrab.jdialogue.editor.gui.dialog.SequenceConfigDialog;
 import pl.kotcrab.jdialogue.editor.gui.dialog.SequenceCreationDialog;
+import pl.kotcrab.jdialogue.editor.project.JavaSourceExporter;
 import pl.kotcrab.jdialogue.editor.project.PCallback;
 import pl.kotcrab.jdialogue.editor.project.PCharacter;
 import pl.kotcrab.jdialogue.editor.project.Project;
 import pl.kotcrab.jdialogue.editor.project.ProjectCallback;
 import pl.kotcrab.jdialogue.editor.project.ProjectExport;
 import pl.kotcrab.jdialogue.editor.project.Sequence;
+import pl.kotcrab.jdialogue.editor.project.SequenceManifest;
 
 import javax.swing.JCheckBoxMenuItem;
+import javax.swing.JFileChooser;
 import javax.swing.JOptionPane;
 import javax.swing.table.DefaultTableModel;
 import java.awt.EventQueue;
@@ -89,6 +95,9 @@ public class EditorLogic {
 	public ActionListener menubarNewProjectListener;
 	public ActionListener menubarLoadProjectListener;
 	public ActionListener menubarExportProjectListener;
+	public ActionListener menubarExportUnoptimizedListener;
+	public ActionListener menubarSourceExportListener;
+	public ActionListener menubarGenerateProjectListener;
 
 	public ActionListener saveButtonListener;
 
@@ -112,6 +121,7 @@ public class EditorLogic {
 		xstream.alias("dCallback", CallbackComponent.class);
 		xstream.alias("dCallbackCheck", CallbackCheckComponent.class);
 		xstream.alias("dRandom", RandomComponent.class);
+		xstream.alias("dCondition", ConditionComponent.class);
 
 		xstream.alias("connector", Connector.class);
 		xstream.alias("project", Project.class);
@@ -119,6 +129,7 @@ public class EditorLogic {
 
 		xstream.alias("character", PCharacter.class);
 		xstream.alias("callback", PCallback.class);
+		xstream.alias("manifest", SequenceManifest.class);
 
 		xstream.registerConverter(new DComponentConverter());
 
@@ -274,11 +285,76 @@ public class EditorLogic {
 			@Override
 			public void actionPerformed (ActionEvent e) {
 				if (project != null) {
-					project.exportProject(xstream, statusLabel);
+					project.exportProject(xstream, statusLabel, true);
 				} else
 					JOptionPane.showMessageDialog(Editor.window, "Create or load project before exporting", "Error", JOptionPane.ERROR_MESSAGE);
 			}
 		};
+
+		menubarExportUnoptimizedListener = new ActionListener() {
+
+			@Override
+			public void actionPerformed (ActionEvent e) {
+				if (project != null) {
+					project.exportProject(xstream, statusLabel, false);
+				} else
+					JOptionPane.showMessageDialog(Editor.window, "Create or load project before exporting", "Error", JOptionPane.ERROR_MESSAGE);
+			}
+		};
+
+		menubarSourceExportListener = new ActionListener() {
+
+			@Override
+			public void actionPerformed (ActionEvent e) {
+				if (project == null) {
+					JOptionPane.showMessageDialog(Editor.window, "Create or load project first", "Error", JOptionPane.ERROR_MESSAGE);
+					return;
+				}
+
+				String current = project.getSourcePackage() == null ? "" : project.getSourcePackage();
+				String packageName = JOptionPane.showInputDialog(window, "Package of Java sources generated during export (empty to disable):", current);
+				if (packageName == null) return;
+
+				packageName = packageName.trim();
+
+				if (packageName.equals("")) {
+					project.setSourcePackage(null);
+					statusLabel.setStatusText("Java source export disabled");
+				} else if (JavaSourceExporter.isValidPackage(packageName)) {
+					project.setSourcePackage(packageName);
+					statusLabel.setStatusText("Java sources will be exported to package " + packageName);
+				} else
+					JOptionPane.showMessageDialog(window, "Invalid package name: " + packageName, "Error", JOptionPane.ERROR_MESSAGE);
+			}
+		};
+
+		menubarGenerateProjectListener = new ActionListener() {
+
+			@Override
+			public void actionPerformed (ActionEvent e) {
+				JFileChooser chooser = new JFileChooser(App.getLastOpenedFolderPath());
+				chooser.setDialogTitle("Select empty directory for generated project");
+				chooser.setFileSelectionMode(JFileChooser.DIRECTORIES_ONLY);
+				if (chooser.showOpenDialog(window) != JFileChooser.APPROVE_OPTION) return;
+
+				if (EditorProjectBuilder.isEmptyDir(chooser.getSelectedFile()) == false) {
+					JOptionPane.showMessageDialog(window, "Selected directory is not empty, generated project would overwrite its files", "Error", JOptionPane.ERROR_MESSAGE);
+					return;
+				}
+
+				String parameters = JOptionPane.showInputDialog(window, "Generator parameters (key=value), see ProjectGenerator for full list:",
+						"seed=1 sequences=10 nodes=500 branching=3");
+				if (parameters == null) return;
+
+				try {
+					String dir = chooser.getSelectedFile().getAbsolutePath();
+					EditorProjectBuilder.build(new ProjectGenerator(parameters), dir, xstream);
+					loadProject(new File(dir, "project.xml"));
+				} catch (IllegalArgumentException ex) {
+					JOptionPane.showMessageDialog(window, "Invalid parameters: " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+				}
+			}
+		};
 	}
 
 	public void createRenderer () {
@@ -19,40 +19,34 @@
 package pl.kotcrab.jdialogue.editor;
 
 import com.thoughtworks.xstream.XStream;
+import pl.kotcrab.jdialogue.editor.codec.Codec;
+import pl.kotcrab.jdialogue.editor.codec.Codecs;
 
-import java.io.BufferedReader;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.OutputStreamWriter;
-import java.util.zip.GZIPInputStream;
-import java.util.zip.GZIPOutputStream;
+import java.io.Reader;
+import java.io.Writer;
 
 public class IOUtils {
 	public static Object loadNormal (XStream xstream, File file) {
-		Object result = null;
-		try {
-			BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), "UTF-8"));
-			result = xstream.fromXML(reader);
-			reader.close();
-		} catch (IOException e) {
-			e.printStackTrace();
-		}
+		return load(xstream, file, Codecs.NONE);
+	}
 
-		return result;
+	public static void saveNormal (XStream xstream, File file, Object object) {
+		save(xstream, file, object, Codecs.NONE);
 	}
 
-	public static Object loadGzip (XStream xstream, File file) {
+	public static Object load (XStream xstream, File file, Codec codec) {
 		Object result = null;
 
-		try {
-			GZIPInputStream zIn = new GZIPInputStream(new FileInputStream(file));
-			BufferedReader reader = new BufferedReader(new InputStreamReader(zIn, "UTF-8"));
+		try (Reader reader = new InputStreamReader(codec.decode(new BufferedInputStream(new FileInputStream(file), Codecs.BUFFER_SIZE)), "UTF-8")) {
 			result = xstream.fromXML(reader);
-			reader.close();
-			zIn.close();
 		} catch (IOException e) {
 			e.printStackTrace();
 		}
@@ -60,23 +54,17 @@ public class IOUtils {
 		return result;
 	}
 
-	public static void saveNormal (XStream xstream, File file, Object object) {
-		try {
-			FileOutputStream fOut = new FileOutputStream(file);
-			OutputStreamWriter writer = new OutputStreamWriter(fOut, "UTF-8");
-			xstream.toXML(object, writer);
-			writer.close();
+	public static void saveText (File file, String text, Codec codec) {
+		try (Writer writer = new OutputStreamWriter(codec.encode(new BufferedOutputStream(new FileOutputStream(file), Codecs.BUFFER_SIZE)), "UTF-8")) {
+			writer.write(text);
 		} catch (IOException e) {
 			e.printStackTrace();
 		}
 	}
 
-	public static void saveGzip (XStream xstream, File file, Object object) {
-		try {
-			GZIPOutputStream zOut = new GZIPOutputStream(new FileOutputStream(file));
-			OutputStreamWriter writer = new OutputStreamWriter(zOut, "UTF-8");
+	public static void save (XStream xstream, File file, Object object, Codec codec) {
+		try (Writer writer = new OutputStreamWriter(codec.encode(new BufferedOutputStream(new FileOutputStream(file), Codecs.BUFFER_SIZE)), "UTF-8")) {
 			xstream.toXML(object, writer);
-			writer.close();
 		} catch (IOException e) {
 			e.printStackTrace();
 		}
@@ -45,6 +45,7 @@ import pl.kotcrab.jdialogue.editor.components.DComponentType;
 import pl.kotcrab.jdialogue.editor.components.types.CallbackCheckComponent;
 import pl.kotcrab.jdialogue.editor.components.types.CallbackComponent;
 import pl.kotcrab.jdialogue.editor.components.types.ChoiceComponent;
+import pl.kotcrab.jdialogue.editor.components.types.ConditionComponent;
 import pl.kotcrab.jdialogue.editor.components.types.EndComponent;
 import pl.kotcrab.jdialogue.editor.components.types.RandomComponent;
 import pl.kotcrab.jdialogue.editor.components.types.RelayComponent;
@@ -325,6 +326,9 @@ public class Renderer implements ApplicationListener, InputProcessor, GestureLis
 				case RELAY:
 					componentList.add(new RelayComponent(Touch.getX(), Touch.getY()));
 					break;
+				case CONDITION:
+					componentList.add(new ConditionComponent(Touch.getX(), Touch.getY()));
+					break;
 				default:
 					break;
 			}
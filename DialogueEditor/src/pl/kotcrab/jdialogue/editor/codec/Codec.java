@@ -0,0 +1,41 @@
+/*******************************************************************************
+ * DialogueEditor
+ * Copyright (C) 2013-2014 Pawel Pastuszak
+ * <p>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package pl.kotcrab.jdialogue.editor.codec;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Compression used for exported files. Name of codec is saved in exported project, so parser can decode sequences without
+ * knowing how they were exported. Parser has its own copy of codecs, both must produce the same data. Returned streams do their own buffering of compressed data, callers that read or write
+ * small pieces should still wrap them in buffered streams.
+ *
+ * @author Pawel Pastuszak
+ */
+public interface Codec {
+	/**
+	 * @return name of codec with parameters, for example 'deflate:9', {@link Codecs#get(String)} must return equal codec for it
+	 */
+	public String getName ();
+
+	public InputStream decode (InputStream in) throws IOException;
+
+	public OutputStream encode (OutputStream out) throws IOException;
+}
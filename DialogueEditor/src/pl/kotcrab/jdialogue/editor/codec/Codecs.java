@@ -0,0 +1,153 @@
+/*******************************************************************************
+ * DialogueEditor
+ * Copyright (C) 2013-2014 Pawel Pastuszak
+ * <p>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package pl.kotcrab.jdialogue.editor.codec;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Registry of available codecs. Built in codecs are 'none', 'gzip', 'deflate:level' (raw deflate, level 0-9) and 'lz'
+ * ({@link LzCodec}, fastest to decode). Custom codecs can be added with {@link #register(Codec)}.
+ *
+ * @author Pawel Pastuszak
+ */
+public class Codecs {
+	public static final int BUFFER_SIZE = 8192;
+
+	public static final Codec NONE = new Codec() {
+		@Override
+		public String getName () {
+			return "none";
+		}
+
+		@Override
+		public InputStream decode (InputStream in) {
+			return in;
+		}
+
+		@Override
+		public OutputStream encode (OutputStream out) {
+			return out;
+		}
+	};
+
+	public static final Codec GZIP = new Codec() {
+		@Override
+		public String getName () {
+			return "gzip";
+		}
+
+		@Override
+		public InputStream decode (InputStream in) throws IOException {
+			return new GZIPInputStream(in, BUFFER_SIZE);
+		}
+
+		@Override
+		public OutputStream encode (OutputStream out) throws IOException {
+			return new GZIPOutputStream(out, BUFFER_SIZE);
+		}
+	};
+
+	public static final Codec LZ = new LzCodec();
+
+	private static HashMap<String, Codec> codecs = new HashMap<String, Codec>();
+
+	static {
+		register(NONE);
+		register(GZIP);
+		register(LZ);
+	}
+
+	public static void register (Codec codec) {
+		codecs.put(codec.getName(), codec);
+	}
+
+	/**
+	 * @param name name of codec, 'deflate' and 'deflate:level' are created on demand
+	 * @throws IllegalArgumentException if there is no such codec
+	 */
+	public static Codec get (String name) {
+		Codec codec = codecs.get(name);
+		if (codec != null) return codec;
+
+		if (name.equals("deflate")) return deflate(Deflater.DEFAULT_COMPRESSION);
+
+		if (name.startsWith("deflate:")) {
+			try {
+				return deflate(Integer.parseInt(name.substring("deflate:".length())));
+			} catch (IllegalArgumentException e) {
+				throw new IllegalArgumentException("Invalid deflate level: " + name);
+			}
+		}
+
+		throw new IllegalArgumentException("Unknown codec: " + name);
+	}
+
+	/** @return codec writing raw deflate data (without gzip header and checksum) using given compression level */
+	public static Codec deflate (final int level) {
+		if (level < -1 || level > 9) throw new IllegalArgumentException("Invalid deflate level: " + level);
+
+		return new Codec() {
+			@Override
+			public String getName () {
+				return level == Deflater.DEFAULT_COMPRESSION ? "deflate" : "deflate:" + level;
+			}
+
+			@Override
+			public InputStream decode (InputStream in) {
+				final Inflater inflater = new Inflater(true);
+
+				return new InflaterInputStream(in, inflater, BUFFER_SIZE) {
+					@Override
+					public void close () throws IOException {
+						try {
+							super.close();
+						} finally {
+							inflater.end();
+						}
+					}
+				};
+			}
+
+			@Override
+			public OutputStream encode (OutputStream out) {
+				final Deflater deflater = new Deflater(level, true);
+
+				return new DeflaterOutputStream(out, deflater, BUFFER_SIZE) {
+					@Override
+					public void close () throws IOException {
+						try {
+							super.close();
+						} finally {
+							deflater.end();
+						}
+					}
+				};
+			}
+		};
+	}
+}
@@ -27,6 +27,7 @@ import pl.kotcrab.jdialogue.editor.EditorException;
 import pl.kotcrab.jdialogue.editor.components.types.CallbackCheckComponent;
 import pl.kotcrab.jdialogue.editor.components.types.CallbackComponent;
 import pl.kotcrab.jdialogue.editor.components.types.ChoiceComponent;
+import pl.kotcrab.jdialogue.editor.components.types.ConditionComponent;
 import pl.kotcrab.jdialogue.editor.components.types.EndComponent;
 import pl.kotcrab.jdialogue.editor.components.types.RandomComponent;
 import pl.kotcrab.jdialogue.editor.components.types.RelayComponent;
@@ -34,10 +35,24 @@ import pl.kotcrab.jdialogue.editor.components.types.StartComponent;
 import pl.kotcrab.jdialogue.editor.components.types.TextComponent;
 import pl.kotcrab.jdialogue.editor.project.PCallback;
 import pl.kotcrab.jdialogue.editor.project.PCharacter;
+import pl.kotcrab.jdialogue.editor.project.SequenceOptimizer;
+
+import java.util.HashMap;
 
 public class DComponentConverter implements Converter {
 	public static boolean exportMode = false;
 
+	/**
+	 * Maps editor ids of characters and callbacks to ids used in exported project, set only when exporting
+	 */
+	public static HashMap<Integer, Integer> exportCharacterIds;
+	public static HashMap<Integer, Integer> exportCallbackIds;
+
+	/**
+	 * Optimizer used for currently exported sequence, null if sequence is exported without optimization
+	 */
+	public static SequenceOptimizer exportOptimizer;
+
 	@SuppressWarnings("rawtypes")
 	@Override
 	public boolean canConvert (Class type) {
@@ -50,6 +65,7 @@ public class DComponentConverter implements Converter {
 		|| type.equals(CallbackComponent.class)
 		|| type.equals(CallbackCheckComponent.class)
 		|| type.equals(RandomComponent.class)
+		|| type.equals(ConditionComponent.class)
 		)
 		//@formatter:on
 			return true;
@@ -91,10 +107,10 @@ public class DComponentConverter implements Converter {
 
 					if (nodeName.equals("character")) {
 						PCharacter charater = (PCharacter) data[i][1];
-						writer.setValue(String.valueOf(charater.getId()));
+						writer.setValue(String.valueOf(getExportId(exportCharacterIds, charater.getId())));
 					} else if (nodeName.equals("callback")) {
 						PCallback callback = (PCallback) data[i][1];
-						writer.setValue(String.valueOf(callback.getId()));
+						writer.setValue(String.valueOf(getExportId(exportCallbackIds, callback.getId())));
 					} else
 						writer.setValue(data[i][1].toString());
 
@@ -102,6 +118,14 @@ public class DComponentConverter implements Converter {
 				}
 			}
 
+			if (exportOptimizer != null && exportOptimizer.getMergedCallbacks(comp) != null) {
+				for (PCallback callback : exportOptimizer.getMergedCallbacks(comp)) {
+					writer.startNode("callback");
+					writer.setValue(String.valueOf(getExportId(exportCallbackIds, callback.getId())));
+					writer.endNode();
+				}
+			}
+
 			if (comp instanceof ChoiceComponent) {
 				ChoiceComponent choiceComp = (ChoiceComponent) comp;
 				writer.startNode("choiceData");
@@ -125,6 +149,8 @@ public class DComponentConverter implements Converter {
 				writer.addAttribute("type", "callbackCheck");
 			else if (comp.getClass().equals(RandomComponent.class))
 				writer.addAttribute("type", "random");
+			else if (comp.getClass().equals(ConditionComponent.class))
+				writer.addAttribute("type", "condition");
 			else
 				writer.addAttribute("type", "unknown");
 
@@ -157,6 +183,15 @@ public class DComponentConverter implements Converter {
 		}
 	}
 
+	private int getExportId (HashMap<Integer, Integer> exportIds, int id) {
+		Integer exportId = exportIds.get(id);
+
+		if (exportId == null) // character or callback was deleted, use default one, it is always first on list
+			return 0;
+		else
+			return exportId;
+	}
+
 	@Override
 	public Object unmarshal (HierarchicalStreamReader reader, UnmarshallingContext context) {
 		String type = reader.getAttribute("type");
@@ -178,6 +213,8 @@ public class DComponentConverter implements Converter {
 			comp = new CallbackCheckComponent(0, 0);
 		else if (type.equals("random"))
 			comp = new RandomComponent(0, 0);
+		else if (type.equals("condition"))
+			comp = new ConditionComponent(0, 0);
 		else
 			throw new EditorException("Error while loading XML file. Unrecognized component type: " + type); // TODO change to normaln exception from runtime exception
 
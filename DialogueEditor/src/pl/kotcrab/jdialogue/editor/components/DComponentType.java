@@ -19,5 +19,5 @@
 package pl.kotcrab.jdialogue.editor.components;
 
 public enum DComponentType {
-	TEXT, CHOICE, RANDOM, CALLBACK, CBCHECK, END, RELAY
+	TEXT, CHOICE, RANDOM, CALLBACK, CBCHECK, END, RELAY, CONDITION
 }
@@ -0,0 +1,54 @@
+/*******************************************************************************
+ * DialogueEditor
+ * Copyright (C) 2013-2014 Pawel Pastuszak
+ * <p>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package pl.kotcrab.jdialogue.editor.components.types;
+
+import pl.kotcrab.jdialogue.editor.Assets;
+import pl.kotcrab.jdialogue.editor.KotcrabText;
+import pl.kotcrab.jdialogue.editor.components.ComponentTableModel;
+import pl.kotcrab.jdialogue.editor.components.DComponent;
+
+/**
+ * Checks expression like 'gold >= 50 && !questFinished' using game variables, expression is compiled by parser when sequence is
+ * loaded
+ * @author Pawel Pastuszak
+ */
+public class ConditionComponent extends DComponent {
+	public ConditionComponent (int x, int y) {
+		super("Condition", x, y, 1, 2);
+		tableModel = new ComponentTableModel(
+				//@formatter:off
+			new Object[][]
+				{
+				    {"Expression", "true"},
+				}
+			//@formatter:on
+		);
+	}
+
+	@Override
+	public KotcrabText[] provideInputLabels () {
+		return new KotcrabText[]{new KotcrabText(Assets.consolasFont, "In", false, 0, 0)};
+	}
+
+	@Override
+	public KotcrabText[] provideOutputsLabels () {
+		return new KotcrabText[]{new KotcrabText(Assets.consolasFont, "True", false, 0, 0),
+				new KotcrabText(Assets.consolasFont, "False", false, 0, 0)};
+	}
+}
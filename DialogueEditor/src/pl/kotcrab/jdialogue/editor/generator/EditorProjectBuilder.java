@@ -0,0 +1,157 @@
+/*******************************************************************************
+ * DialogueEditor
+ * Copyright (C) 2013-2014 Pawel Pastuszak
+ * <p>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package pl.kotcrab.jdialogue.editor.generator;
+
+import com.thoughtworks.xstream.XStream;
+import pl.kotcrab.jdialogue.editor.codec.Codecs;
+import pl.kotcrab.jdialogue.editor.components.Connector;
+import pl.kotcrab.jdialogue.editor.components.DComponent;
+import pl.kotcrab.jdialogue.editor.components.types.CallbackComponent;
+import pl.kotcrab.jdialogue.editor.components.types.ChoiceComponent;
+import pl.kotcrab.jdialogue.editor.components.types.EndComponent;
+import pl.kotcrab.jdialogue.editor.components.types.RandomComponent;
+import pl.kotcrab.jdialogue.editor.components.types.RelayComponent;
+import pl.kotcrab.jdialogue.editor.components.types.TextComponent;
+import pl.kotcrab.jdialogue.editor.project.Project;
+import pl.kotcrab.jdialogue.editor.project.Sequence;
+
+import java.io.File;
+import java.util.ArrayList;
+
+/**
+ * Creates editor project from sequences generated by {@link ProjectGenerator}. Components need fonts, so this must be called
+ * from editor after assets are loaded. Nodes are placed in columns in order of generation, so chain of output 0 connections
+ * goes from top to bottom of every column.
+ *
+ * @author Pawel Pastuszak
+ */
+public class EditorProjectBuilder {
+	private static final int NODES_PER_COLUMN = 8;
+	private static final int COLUMN_WIDTH = 600;
+	private static final int ROW_HEIGHT = 250;
+
+	/**
+	 * @param dir directory of new project, it must be empty or not exist
+	 * @return created and saved project
+	 * @throws IllegalArgumentException if directory is not empty
+	 */
+	public static Project build (ProjectGenerator generator, String dir, XStream xstream) {
+		if (isEmptyDir(new File(dir)) == false) throw new IllegalArgumentException("Directory is not empty: " + dir);
+		new File(dir).mkdirs();
+
+		Project project = new Project(generator.getName(), dir, Codecs.GZIP, Codecs.NONE);
+
+		for (int i = 1; i <= generator.getCharacterCount(); i++)
+			project.newCharacter(ProjectGenerator.getCharacterName(i), ProjectGenerator.getTextureName(i));
+
+		for (int i = 1; i <= generator.getCallbackCount(); i++)
+			project.newCallback(ProjectGenerator.getCallbackName(i));
+
+		ArrayList<GeneratedSequence> generated = generator.generate();
+
+		for (int i = 0; i < generated.size(); i++) {
+			project.newSequence(generated.get(i).getName(), i == 0);
+
+			Sequence seq = project.getSequences().get(project.getSequences().size() - 1);
+			buildSequence(project, seq.getComponentList(), generated.get(i));
+
+			if (i > 0) seq.save(xstream, project.getProjectCodec()); // first one is active, it is saved with project
+		}
+
+		project.save(xstream);
+		return project;
+	}
+
+	/** @return true if directory doesn't exist or has no files, generated project never overwrites existing files */
+	public static boolean isEmptyDir (File dir) {
+		if (dir.exists() == false) return true;
+
+		String[] files = dir.list();
+		return files != null && files.length == 0;
+	}
+
+	private static void buildSequence (Project project, ArrayList<DComponent> componentList, GeneratedSequence seq) {
+		DComponent[] components = new DComponent[seq.getNodeCount()];
+		components[0] = componentList.get(0); // start component created with sequence
+		components[0].setX(getX(0));
+		components[0].setY(getY(0));
+		components[0].setup();
+
+		for (int i = 1; i < components.length; i++) {
+			components[i] = createComponent(project, seq, i, getX(i), getY(i));
+			componentList.add(components[i]);
+		}
+
+		for (int i = 0; i < components.length; i++) {
+			int[] targets = seq.getTargets(i);
+
+			for (int j = 0; j < targets.length; j++) {
+				Connector output = components[i].getOutputs()[j];
+				Connector input = components[targets[j]].getInputs()[0];
+				output.addTarget(input);
+				input.addTarget(output);
+			}
+		}
+	}
+
+	private static DComponent createComponent (Project project, GeneratedSequence seq, int node, int x, int y) {
+		switch (seq.getType(node)) {
+			case END:
+				return new EndComponent(x, y);
+
+			case TEXT: {
+				TextComponent comp = new TextComponent(x, y);
+				comp.getTableModel().setValueAt(seq.getText(node), 0, 1);
+				comp.getTableModel().setValueAt(project.getCharacters().get(seq.getCharacter(node)), 1, 1);
+				return comp;
+			}
+
+			case CHOICE: {
+				ChoiceComponent comp = new ChoiceComponent(x, y);
+				comp.getTableModel().setValueAt(seq.getTargets(node).length, 0, 1); // resizes outputs and choices
+				comp.getTableModel().setValueAt(seq.getText(node), 1, 1);
+				comp.getChoices().setChoices(seq.getChoices(node));
+				return comp;
+			}
+
+			case RANDOM: {
+				RandomComponent comp = new RandomComponent(x, y);
+				comp.getTableModel().setValueAt(seq.getTargets(node).length, 0, 1);
+				return comp;
+			}
+
+			case CALLBACK: {
+				CallbackComponent comp = new CallbackComponent(x, y);
+				comp.getTableModel().setValueAt(project.getCallbacks().get(seq.getCallback(node)), 0, 1);
+				return comp;
+			}
+
+			default:
+				return new RelayComponent(x, y);
+		}
+	}
+
+	private static int getX (int node) {
+		return 200 + (node / NODES_PER_COLUMN) * COLUMN_WIDTH;
+	}
+
+	private static int getY (int node) {
+		return 200 - (node % NODES_PER_COLUMN) * ROW_HEIGHT;
+	}
+}
@@ -0,0 +1,85 @@
+/*******************************************************************************
+ * DialogueEditor
+ * Copyright (C) 2013-2014 Pawel Pastuszak
+ * <p>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package pl.kotcrab.jdialogue.editor.generator;
+
+/**
+ * Graph of generated sequence, independent from editor components so it can be created without OpenGL context. Node 0 is
+ * always start and last node is always end, characters and callbacks are indexes on project lists (0 is default one).
+ *
+ * @author Pawel Pastuszak
+ */
+public class GeneratedSequence {
+	public enum NodeType {
+		START, END, TEXT, CHOICE, RANDOM, CALLBACK, RELAY
+	}
+
+	private String name;
+
+	NodeType[] types;
+	int[][] targets;
+	String[] texts;
+	int[] characters;
+	int[] callbacks;
+	String[][] choices;
+
+	GeneratedSequence (String name, int nodeCount) {
+		this.name = name;
+
+		types = new NodeType[nodeCount];
+		targets = new int[nodeCount][];
+		texts = new String[nodeCount];
+		characters = new int[nodeCount];
+		callbacks = new int[nodeCount];
+		choices = new String[nodeCount][];
+	}
+
+	public String getName () {
+		return name;
+	}
+
+	public int getNodeCount () {
+		return types.length;
+	}
+
+	public NodeType getType (int node) {
+		return types[node];
+	}
+
+	public int[] getTargets (int node) {
+		return targets[node];
+	}
+
+	/** @return text of text and choice node, null for other types */
+	public String getText (int node) {
+		return texts[node];
+	}
+
+	public int getCharacter (int node) {
+		return characters[node];
+	}
+
+	public int getCallback (int node) {
+		return callbacks[node];
+	}
+
+	/** @return choices of choice node, null for other types */
+	public String[] getChoices (int node) {
+		return choices[node];
+	}
+}
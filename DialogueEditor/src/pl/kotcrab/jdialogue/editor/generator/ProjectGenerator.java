@@ -0,0 +1,397 @@
+/*******************************************************************************
+ * DialogueEditor
+ * Copyright (C) 2013-2014 Pawel Pastuszak
+ * <p>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package pl.kotcrab.jdialogue.editor.generator;
+
+import pl.kotcrab.jdialogue.editor.generator.GeneratedSequence.NodeType;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.TreeSet;
+
+/**
+ * Generates large projects for benchmarks and stress tests. Result depends only on parameters, the same seed always gives the
+ * same project. Generated graphs are always valid: every node is reachable from start (output 0 of every node leads to next
+ * node) and end can be reached from every node. Other outputs of choices and randoms lead a few nodes forward, some choices
+ * lead back to create loops.
+ * <p>
+ * Projects can be written as runtime export (see {@link #writeExport(File)}, works without editor, also from command line) or
+ * as editor project (see {@link EditorProjectBuilder}, must be called from editor).
+ * <p>
+ * Parameters are given as key=value pairs: seed, name, sequences, nodes, branching (max outputs of choice and random),
+ * minWords, maxWords (text length, short lines are more common), choices, randoms, callbacks, relays (share of node types, rest
+ * are texts), characters, callbackNames (number of callbacks in project).
+ *
+ * @author Pawel Pastuszak
+ */
+public class ProjectGenerator {
+	private static final String[] WORDS = {"the", "a", "you", "I", "we", "they", "king", "sword", "village", "gold", "road", "dragon",
+			"merchant", "guard", "night", "river", "castle", "friend", "quest", "trade", "never", "always", "maybe", "quickly",
+			"find", "bring", "take", "tell", "remember", "forget", "help", "fight", "old", "dark", "broken", "hidden", "north",
+			"south", "tomorrow", "here"};
+
+	private static final int FORWARD_WINDOW = 16;
+	private static final float BACK_EDGE_SHARE = 0.05f;
+
+	private long seed = 1;
+	private String name = "Generated";
+	private int sequences = 10;
+	private int nodes = 500;
+	private int branching = 3;
+	private int minWords = 3;
+	private int maxWords = 40;
+	private float choices = 0.15f;
+	private float randoms = 0.05f;
+	private float callbacks = 0.1f;
+	private float relays = 0.1f;
+	private int characters = 8;
+	private int callbackNames = 8;
+
+	/**
+	 * @param parameters key=value pairs separated by whitespace, missing parameters have default values
+	 */
+	public ProjectGenerator (String parameters) {
+		this(parameters.trim().isEmpty() ? new String[0] : parameters.trim().split("\\s+"));
+	}
+
+	public ProjectGenerator (String[] parameters) {
+		for (String parameter : parameters) {
+			int split = parameter.indexOf('=');
+			if (split == -1) throw new IllegalArgumentException("Parameter must be key=value: " + parameter);
+
+			setParameter(parameter.substring(0, split), parameter.substring(split + 1));
+		}
+
+		if (nodes < 3) throw new IllegalArgumentException("nodes must be at least 3");
+		if (branching < 2) throw new IllegalArgumentException("branching must be at least 2");
+		if (minWords < 1 || maxWords < minWords) throw new IllegalArgumentException("Invalid text length: " + minWords + "-" + maxWords);
+		if (characters < 1 || callbackNames < 1) throw new IllegalArgumentException("At least one character and callback is required");
+	}
+
+	private void setParameter (String key, String value) {
+		if (key.equals("seed"))
+			seed = Long.parseLong(value);
+		else if (key.equals("name"))
+			name = value;
+		else if (key.equals("sequences"))
+			sequences = Integer.parseInt(value);
+		else if (key.equals("nodes"))
+			nodes = Integer.parseInt(value);
+		else if (key.equals("branching"))
+			branching = Integer.parseInt(value);
+		else if (key.equals("minWords"))
+			minWords = Integer.parseInt(value);
+		else if (key.equals("maxWords"))
+			maxWords = Integer.parseInt(value);
+		else if (key.equals("choices"))
+			choices = Float.parseFloat(value);
+		else if (key.equals("randoms"))
+			randoms = Float.parseFloat(value);
+		else if (key.equals("callbacks"))
+			callbacks = Float.parseFloat(value);
+		else if (key.equals("relays"))
+			relays = Float.parseFloat(value);
+		else if (key.equals("characters"))
+			characters = Integer.parseInt(value);
+		else if (key.equals("callbackNames"))
+			callbackNames = Integer.parseInt(value);
+		else if (key.equals("out") == false) // used only by main
+			throw new IllegalArgumentException("Unknown parameter: " + key);
+	}
+
+	public ArrayList<GeneratedSequence> generate () {
+		ArrayList<GeneratedSequence> result = new ArrayList<GeneratedSequence>(sequences);
+
+		for (int i = 0; i < sequences; i++)
+			result.add(generateSequence("seq" + i, new Random(seed * 1000003L + i))); // every sequence has own generator, so it does not depend on sequence count
+
+		return result;
+	}
+
+	private GeneratedSequence generateSequence (String name, Random random) {
+		GeneratedSequence seq = new GeneratedSequence(name, nodes);
+		int last = nodes - 1;
+
+		seq.types[0] = NodeType.START;
+		seq.targets[0] = new int[]{1};
+		seq.types[last] = NodeType.END;
+		seq.targets[last] = new int[0];
+
+		for (int i = 1; i < last; i++) {
+			NodeType type = randomType(random);
+			seq.types[i] = type;
+
+			int outputs = (type == NodeType.CHOICE || type == NodeType.RANDOM) ? 2 + random.nextInt(branching - 1) : 1;
+			int[] targets = new int[outputs];
+			targets[0] = i + 1;
+
+			for (int j = 1; j < outputs; j++) {
+				if (type == NodeType.CHOICE && random.nextFloat() < BACK_EDGE_SHARE)
+					targets[j] = 1 + random.nextInt(i);
+				else
+					targets[j] = i + 1 + random.nextInt(Math.min(FORWARD_WINDOW, last - i));
+			}
+
+			seq.targets[i] = targets;
+
+			if (type == NodeType.TEXT) {
+				seq.texts[i] = randomText(random, minWords + (int) ((maxWords - minWords) * square(random.nextFloat())));
+				seq.characters[i] = 1 + random.nextInt(characters);
+			} else if (type == NodeType.CHOICE) {
+				seq.texts[i] = randomText(random, minWords + random.nextInt(maxWords - minWords + 1) / 2);
+				seq.choices[i] = new String[outputs];
+
+				for (int j = 0; j < outputs; j++)
+					seq.choices[i][j] = randomText(random, 2 + random.nextInt(5));
+			} else if (type == NodeType.CALLBACK)
+				seq.callbacks[i] = 1 + random.nextInt(callbackNames);
+		}
+
+		return seq;
+	}
+
+	private NodeType randomType (Random random) {
+		float r = random.nextFloat();
+
+		if ((r -= choices) < 0) return NodeType.CHOICE;
+		if ((r -= randoms) < 0) return NodeType.RANDOM;
+		if ((r -= callbacks) < 0) return NodeType.CALLBACK;
+		if ((r -= relays) < 0) return NodeType.RELAY;
+		return NodeType.TEXT;
+	}
+
+	private static float square (float value) {
+		return value * value;
+	}
+
+	private static String randomText (Random random, int words) {
+		StringBuilder builder = new StringBuilder();
+
+		for (int i = 0; i < words; i++) {
+			if (i > 0) builder.append(' ');
+			builder.append(WORDS[random.nextInt(WORDS.length)]);
+		}
+
+		builder.setCharAt(0, Character.toUpperCase(builder.charAt(0)));
+		builder.append(random.nextInt(4) == 0 ? '?' : '.');
+		return builder.toString();
+	}
+
+	public String getName () {
+		return name;
+	}
+
+	/** @return number of characters without default one */
+	public int getCharacterCount () {
+		return characters;
+	}
+
+	/** @return number of callbacks without default one */
+	public int getCallbackCount () {
+		return callbackNames;
+	}
+
+	public static String getCharacterName (int index) {
+		return index == 0 ? "None (default character)" : "Character " + index;
+	}
+
+	public static String getTextureName (int index) {
+		return index == 0 ? "none" : "character" + index;
+	}
+
+	public static String getCallbackName (int index) {
+		return index == 0 ? "Default callback" : "callback" + index;
+	}
+
+	// =====================================RUNTIME EXPORT========================================
+
+	/**
+	 * Generates project and writes it in the same format as editor export (uncompressed, not optimized)
+	 */
+	public void writeExport (File dir) throws IOException {
+		dir.mkdirs();
+
+		ArrayList<GeneratedSequence> generated = generate();
+
+		for (GeneratedSequence seq : generated) {
+			try (Writer writer = openWriter(new File(dir, seq.getName() + ".xml"))) {
+				writeSequence(writer, seq);
+			}
+		}
+
+		try (Writer writer = openWriter(new File(dir, "project.xml"))) {
+			writeProject(writer, generated);
+		}
+	}
+
+	private static Writer openWriter (File file) throws IOException {
+		return new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), "UTF-8"), 65536);
+	}
+
+	private void writeProject (Writer writer, ArrayList<GeneratedSequence> generated) throws IOException {
+		writer.write("<projectExport>\n");
+		writeElement(writer, "  ", "name", name);
+		writeElement(writer, "  ", "gzipExport", "false");
+		writeElement(writer, "  ", "codec", "none");
+
+		writer.write("  <characterList>\n");
+		for (int i = 0; i <= characters; i++) {
+			writer.write("    <character>\n");
+			writeElement(writer, "      ", "id", String.valueOf(i));
+			writeElement(writer, "      ", "name", getCharacterName(i));
+			writeElement(writer, "      ", "textureName", getTextureName(i));
+			writer.write("    </character>\n");
+		}
+		writer.write("  </characterList>\n");
+
+		writer.write("  <callbackList>\n");
+		for (int i = 0; i <= callbackNames; i++) {
+			writer.write("    <callback>\n");
+			writeElement(writer, "      ", "id", String.valueOf(i));
+			writeElement(writer, "      ", "name", getCallbackName(i));
+			writer.write("    </callback>\n");
+		}
+		writer.write("  </callbackList>\n");
+
+		writer.write("  <manifestList>\n");
+		for (GeneratedSequence seq : generated) {
+			TreeSet<Integer> used = new TreeSet<Integer>();
+			for (int i = 0; i < seq.getNodeCount(); i++)
+				if (seq.getType(i) == NodeType.TEXT) used.add(seq.getCharacter(i));
+
+			writer.write("    <manifest>\n");
+			writeElement(writer, "      ", "sequence", seq.getName());
+			writer.write("      <characters>\n");
+			for (int id : used)
+				writeElement(writer, "        ", "int", String.valueOf(id));
+			writer.write("      </characters>\n");
+			writer.write("      <textureNames>\n");
+			for (int id : used)
+				writeElement(writer, "        ", "string", getTextureName(id));
+			writer.write("      </textureNames>\n");
+			writer.write("    </manifest>\n");
+		}
+		writer.write("  </manifestList>\n");
+
+		writer.write("</projectExport>\n");
+	}
+
+	private static void writeSequence (Writer writer, GeneratedSequence seq) throws IOException {
+		writer.write("<list>\n");
+
+		for (int i = 0; i < seq.getNodeCount(); i++) {
+			String element = getElementName(seq.getType(i));
+			writer.write("  <" + element + ">\n");
+			writeElement(writer, "    ", "id", String.valueOf(i));
+
+			int[] targets = seq.getTargets(i);
+			for (int j = 0; j < targets.length; j++)
+				writeElement(writer, "    ", "target" + j, String.valueOf(targets[j]));
+
+			switch (seq.getType(i)) {
+				case TEXT:
+					writeElement(writer, "    ", "text", seq.getText(i));
+					writeElement(writer, "    ", "character", String.valueOf(seq.getCharacter(i)));
+					break;
+				case CHOICE:
+					writeElement(writer, "    ", "text", seq.getText(i));
+					writer.write("    <choiceData>\n");
+					for (String choice : seq.getChoices(i))
+						writeElement(writer, "      ", "string", choice);
+					writer.write("    </choiceData>\n");
+					break;
+				case CALLBACK:
+					writeElement(writer, "    ", "callback", String.valueOf(seq.getCallback(i)));
+					break;
+				default:
+					break;
+			}
+
+			writer.write("  </" + element + ">\n");
+		}
+
+		writer.write("</list>\n");
+	}
+
+	private static String getElementName (NodeType type) {
+		switch (type) {
+			case START:
+				return "dStart";
+			case END:
+				return "dEnd";
+			case TEXT:
+				return "dText";
+			case CHOICE:
+				return "dChoice";
+			case RANDOM:
+				return "dRandom";
+			case CALLBACK:
+				return "dCallback";
+			default:
+				return "dRelay";
+		}
+	}
+
+	private static void writeElement (Writer writer, String indent, String name, String value) throws IOException {
+		writer.write(indent);
+		writer.write('<');
+		writer.write(name);
+		writer.write('>');
+
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (c == '<')
+				writer.write("&lt;");
+			else if (c == '>')
+				writer.write("&gt;");
+			else if (c == '&')
+				writer.write("&amp;");
+			else
+				writer.write(c);
+		}
+
+		writer.write("</");
+		writer.write(name);
+		writer.write(">\n");
+	}
+
+	/**
+	 * Writes runtime export of generated project, usage: ProjectGenerator out=path/to/dir [key=value...]
+	 */
+	public static void main (String[] args) throws IOException {
+		String out = null;
+		for (String arg : args)
+			if (arg.startsWith("out=")) out = arg.substring(4);
+
+		if (out == null) {
+			System.out.println("Usage: ProjectGenerator out=path/to/dir [seed=1] [sequences=10] [nodes=500] [branching=3] [minWords=3]"
+					+ " [maxWords=40] [choices=0.15] [randoms=0.05] [callbacks=0.1] [relays=0.1] [characters=8] [callbackNames=8]");
+			return;
+		}
+
+		long start = System.currentTimeMillis();
+		new ProjectGenerator(args).writeExport(new File(out));
+		System.out.println("Generated project in " + (System.currentTimeMillis() - start) + " ms: " + new File(out, "project.xml").getAbsolutePath());
+	}
+}
@@ -20,10 +20,12 @@ package pl.kotcrab.jdialogue.editor.gui.dialog;
 
 import pl.kotcrab.jdialogue.editor.App;
 import pl.kotcrab.jdialogue.editor.Editor;
+import pl.kotcrab.jdialogue.editor.codec.Codecs;
 import pl.kotcrab.jdialogue.editor.project.Project;
 
 import javax.swing.JButton;
 import javax.swing.JCheckBox;
+import javax.swing.JComboBox;
 import javax.swing.JDialog;
 import javax.swing.JFileChooser;
 import javax.swing.JLabel;
@@ -38,6 +40,8 @@ import java.io.File;
 public class NewProjectDialog extends JDialog {
 	private static final long serialVersionUID = 1L;
 
+	private static final String[] CODECS = {"gzip", "none", "deflate:9", "deflate:1", "lz"};
+
 	private NewProjectDialog instance;
 	private JTextField textProjectName;
 	private JTextField textProjectLoc;
@@ -92,15 +96,22 @@ public class NewProjectDialog extends JDialog {
 		btnBrowse.setBounds(345, 32, 89, 23);
 		getContentPane().add(btnBrowse);
 
-		final JCheckBox chckGzipProjectFiles = new JCheckBox("Use GZIP Compression on project files");
-		chckGzipProjectFiles.setSelected(true);
-		chckGzipProjectFiles.setBounds(10, 57, 424, 23);
-		getContentPane().add(chckGzipProjectFiles);
+		JLabel lblProjectCodec = new JLabel("Project files compression:");
+		lblProjectCodec.setBounds(10, 61, 160, 14);
+		getContentPane().add(lblProjectCodec);
+
+		final JComboBox<String> comboProjectCodec = new JComboBox<String>(CODECS);
+		comboProjectCodec.setBounds(180, 57, 254, 23);
+		getContentPane().add(comboProjectCodec);
+
+		JLabel lblExportCodec = new JLabel("Exported files compression:");
+		lblExportCodec.setBounds(10, 87, 160, 14);
+		getContentPane().add(lblExportCodec);
 
-		final JCheckBox chckGzipExportedFiles = new JCheckBox("Use GZIP Compression on exported files");
-		chckGzipExportedFiles.setSelected(true);
-		chckGzipExportedFiles.setBounds(10, 83, 424, 23);
-		getContentPane().add(chckGzipExportedFiles);
+		final JComboBox<String> comboExportCodec = new JComboBox<String>(CODECS);
+		comboExportCodec.setToolTipText("gzip and deflate give smallest files, lz is fastest to load on slow devices");
+		comboExportCodec.setBounds(180, 83, 254, 23);
+		getContentPane().add(comboExportCodec);
 
 		chckUseCustomLoc = new JCheckBox("Use default output location");
 
@@ -135,7 +146,8 @@ public class NewProjectDialog extends JDialog {
 		btnCreate = new JButton("Create");
 		btnCreate.addActionListener(new ActionListener() {
 			public void actionPerformed (ActionEvent e) {
-				Project project = new Project(textProjectName.getText(), textProjectLoc.getText(), chckGzipProjectFiles.isSelected(), chckGzipExportedFiles.isSelected());
+				Project project = new Project(textProjectName.getText(), textProjectLoc.getText(), Codecs.get((String) comboProjectCodec.getSelectedItem()),
+						Codecs.get((String) comboExportCodec.getSelectedItem()));
 
 				if (chckUseCustomLoc.isSelected())
 					project.setCustomOut(textCustomOutLoc.getText());
@@ -0,0 +1,411 @@
+/*******************************************************************************
+ * DialogueEditor
+ * Copyright (C) 2013-2014 Pawel Pastuszak
+ * <p>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package pl.kotcrab.jdialogue.editor.project;
+
+import pl.kotcrab.jdialogue.editor.components.Connector;
+import pl.kotcrab.jdialogue.editor.components.DComponent;
+import pl.kotcrab.jdialogue.editor.components.DComponentConverter;
+import pl.kotcrab.jdialogue.editor.components.types.CallbackCheckComponent;
+import pl.kotcrab.jdialogue.editor.components.types.CallbackComponent;
+import pl.kotcrab.jdialogue.editor.components.types.ChoiceComponent;
+import pl.kotcrab.jdialogue.editor.components.types.ConditionComponent;
+import pl.kotcrab.jdialogue.editor.components.types.EndComponent;
+import pl.kotcrab.jdialogue.editor.components.types.RandomComponent;
+import pl.kotcrab.jdialogue.editor.components.types.RelayComponent;
+import pl.kotcrab.jdialogue.editor.components.types.StartComponent;
+import pl.kotcrab.jdialogue.editor.components.types.TextComponent;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+
+/**
+ * Generates Java source of exported project, so game can compile dialogues into its code instead of parsing exported files.
+ * Each sequence becomes class with static tables read by runtime TableSequence, project becomes class 'CompiledDialogues'
+ * implementing runtime CompiledProject. Must be used during export, after components got their export ids.
+ * <p>
+ * Tables larger than {@link #CHUNK_SIZE} elements are filled by nested classes, one per chunk. Every class has its own
+ * constant pool, so large sequences exceed neither 64 KB limit of single method nor 65535 constants limit of single class (each
+ * unique string and int above 32767 is a constant). Strings are escaped to ASCII, generated files don't depend on source
+ * encoding.
+ *
+ * @author Pawel Pastuszak
+ */
+public class JavaSourceExporter {
+	public static final String PROJECT_CLASS = "CompiledDialogues";
+	public static final int CHUNK_SIZE = 2048;
+
+	/** Must match order of ComponentType in runtime */
+	private static final int TYPE_TEXT = 0;
+	private static final int TYPE_CHOICE = 1;
+	private static final int TYPE_RANDOM = 2;
+	private static final int TYPE_CALLBACK = 3;
+	private static final int TYPE_CBCHECK = 4;
+	private static final int TYPE_END = 5;
+	private static final int TYPE_RELAY = 6;
+	private static final int TYPE_START = 7;
+	private static final int TYPE_CONDITION = 8;
+
+	private String packageName;
+	private File outDir;
+
+	private HashMap<String, String> sequenceClasses = new HashMap<String, String>();
+	private ArrayList<String> sequenceNames = new ArrayList<String>();
+	private HashSet<String> usedClassNames = new HashSet<String>();
+
+	/**
+	 * @param outPath directory where package directories will be created
+	 */
+	public JavaSourceExporter (String outPath, String packageName) {
+		this.packageName = packageName;
+		outDir = new File(outPath, packageName.replace('.', File.separatorChar));
+		usedClassNames.add(PROJECT_CLASS);
+	}
+
+	public static boolean isValidPackage (String packageName) {
+		return packageName.matches("[a-zA-Z_$][\\w$]*(\\.[a-zA-Z_$][\\w$]*)*");
+	}
+
+	/**
+	 * Writes class of sequence
+	 * @param exportList components in export order, index on list is component id
+	 * @param optimizer optimizer used for export of sequence, may be null
+	 * @param hash hash of sequence content, same as in exported xml
+	 */
+	public void exportSequence (Sequence seq, ArrayList<DComponent> exportList, SequenceOptimizer optimizer, long hash) throws IOException {
+		int count = exportList.size();
+
+		String[] types = new String[count];
+		String[] texts = new String[count];
+		String[] characters = new String[count];
+		ArrayList<String> targets = new ArrayList<String>();
+		ArrayList<String> callbacks = new ArrayList<String>();
+		ArrayList<String> choices = new ArrayList<String>();
+		String[] targetIndex = new String[count + 1];
+		String[] callbackIndex = new String[count + 1];
+		String[] choiceIndex = new String[count + 1];
+		int startTarget = -1;
+
+		for (int i = 0; i < count; i++) {
+			DComponent comp = exportList.get(i);
+			types[i] = String.valueOf(getType(comp));
+			texts[i] = "null";
+			characters[i] = "-1";
+
+			targetIndex[i] = String.valueOf(targets.size());
+			Connector[] outputs = comp.getOutputs();
+			for (int j = 0; j < outputs.length; j++)
+				targets.add(String.valueOf(outputs[j].getTarget().getParrentComponent().getId()));
+
+			if (comp instanceof StartComponent) startTarget = outputs[0].getTarget().getParrentComponent().getId();
+
+			callbackIndex[i] = String.valueOf(callbacks.size());
+			Object[][] data = comp.getTableModel().getData();
+
+			if (data != null) {
+				for (int j = 0; j < data.length; j++) {
+					if (data[j][0].equals("Text") || data[j][0].equals("Expression"))
+						texts[i] = literal(data[j][1].toString());
+					else if (data[j][0].equals("Character"))
+						characters[i] = String.valueOf(getExportId(DComponentConverter.exportCharacterIds, ((PCharacter) data[j][1]).getId()));
+					else if (data[j][0].equals("Callback"))
+						callbacks.add(String.valueOf(getExportId(DComponentConverter.exportCallbackIds, ((PCallback) data[j][1]).getId())));
+				}
+			}
+
+			if (optimizer != null && optimizer.getMergedCallbacks(comp) != null) {
+				for (PCallback callback : optimizer.getMergedCallbacks(comp))
+					callbacks.add(String.valueOf(getExportId(DComponentConverter.exportCallbackIds, callback.getId())));
+			}
+
+			choiceIndex[i] = String.valueOf(choices.size());
+			if (comp instanceof ChoiceComponent) {
+				for (String choice : ((ChoiceComponent) comp).getChoices().getChoicesTable())
+					choices.add(literal(choice));
+			}
+		}
+
+		targetIndex[count] = String.valueOf(targets.size());
+		callbackIndex[count] = String.valueOf(callbacks.size());
+		choiceIndex[count] = String.valueOf(choices.size());
+
+		String className = getClassName(seq.getName());
+
+		StringBuilder out = new StringBuilder();
+		appendHeader(out, "sequence '" + seq.getName() + "'");
+		out.append("import pl.kotcrab.jdialogue.parser.DialogueSequence;\n");
+		out.append("import pl.kotcrab.jdialogue.parser.expression.ExpressionCompiler;\n");
+		out.append("import pl.kotcrab.jdialogue.parser.impl.TableSequence;\n\n");
+		out.append("public final class ").append(className).append(" {\n");
+		out.append("\tpublic static final String NAME = ").append(literal(seq.getName())).append(";\n");
+		out.append("\tpublic static final int START_TARGET = ").append(startTarget).append(";\n");
+		out.append("\tpublic static final long HASH = ").append(hash).append("L;\n\n");
+		out.append("\tprivate static final byte[] TYPES = types();\n");
+		out.append("\tprivate static final int[] TARGET_INDEX = targetIndex();\n");
+		out.append("\tprivate static final int[] TARGETS = targets();\n");
+		out.append("\tprivate static final String[] TEXTS = texts();\n");
+		out.append("\tprivate static final int[] CHARACTERS = characters();\n");
+		out.append("\tprivate static final int[] CALLBACK_INDEX = callbackIndex();\n");
+		out.append("\tprivate static final int[] CALLBACKS = callbacks();\n");
+		out.append("\tprivate static final int[] CHOICE_INDEX = choiceIndex();\n");
+		out.append("\tprivate static final String[] CHOICES = choices();\n\n");
+		out.append("\tprivate ").append(className).append(" () {\n\t}\n\n");
+		out.append("\tpublic static DialogueSequence create (ExpressionCompiler compiler) {\n");
+		out.append("\t\treturn new TableSequence(NAME, START_TARGET, HASH, TYPES, TARGET_INDEX, TARGETS, TEXTS, CHARACTERS, CALLBACK_INDEX, CALLBACKS, CHOICE_INDEX, CHOICES, compiler);\n");
+		out.append("\t}\n");
+
+		appendTable(out, "byte", "types", types);
+		appendTable(out, "int", "targetIndex", targetIndex);
+		appendTable(out, "int", "targets", targets.toArray(new String[targets.size()]));
+		appendTable(out, "String", "texts", texts);
+		appendTable(out, "int", "characters", characters);
+		appendTable(out, "int", "callbackIndex", callbackIndex);
+		appendTable(out, "int", "callbacks", callbacks.toArray(new String[callbacks.size()]));
+		appendTable(out, "int", "choiceIndex", choiceIndex);
+		appendTable(out, "String", "choices", choices.toArray(new String[choices.size()]));
+		out.append("}\n");
+
+		write(className, out);
+
+		sequenceNames.add(seq.getName());
+		sequenceClasses.put(seq.getName(), className);
+	}
+
+	/**
+	 * Writes project class, must be called after all sequences were exported
+	 * @param characters characters with export ids
+	 * @param callbacks callbacks with export ids
+	 */
+	public void exportProject (String name, ArrayList<PCharacter> characters, ArrayList<PCallback> callbacks, ArrayList<SequenceManifest> manifests) throws IOException {
+		StringBuilder out = new StringBuilder();
+		appendHeader(out, "project '" + name + "'");
+		out.append("import pl.kotcrab.jdialogue.codec.Codecs;\n");
+		out.append("import pl.kotcrab.jdialogue.parser.CompiledProject;\n");
+		out.append("import pl.kotcrab.jdialogue.parser.DialogueSequence;\n");
+		out.append("import pl.kotcrab.jdialogue.parser.PCallback;\n");
+		out.append("import pl.kotcrab.jdialogue.parser.PCharacter;\n");
+		out.append("import pl.kotcrab.jdialogue.parser.Project;\n");
+		out.append("import pl.kotcrab.jdialogue.parser.SequenceManifest;\n");
+		out.append("import pl.kotcrab.jdialogue.parser.expression.ExpressionCompiler;\n\n");
+		out.append("import java.util.HashMap;\n\n");
+		out.append("public final class ").append(PROJECT_CLASS).append(" implements CompiledProject {\n");
+		out.append("\tpublic static final String NAME = ").append(literal(name)).append(";\n\n");
+
+		out.append("\t@Override\n");
+		out.append("\tpublic Project getProject () {\n");
+		out.append("\t\tPCharacter[] characters = new PCharacter[").append(characters.size()).append("];\n");
+		for (PCharacter character : characters) {
+			out.append("\t\tcharacters[").append(character.getId()).append("] = new PCharacter(").append(character.getId()).append(", ");
+			out.append(literal(character.getName())).append(", ").append(literal(character.getTextureName())).append(");\n");
+		}
+
+		out.append("\n\t\tPCallback[] callbacks = new PCallback[").append(callbacks.size()).append("];\n");
+		for (PCallback callback : callbacks) {
+			out.append("\t\tcallbacks[").append(callback.getId()).append("] = new PCallback(").append(callback.getId()).append(", ");
+			out.append(literal(callback.getName())).append(");\n");
+		}
+
+		out.append("\n\t\tHashMap<String, SequenceManifest> manifests = new HashMap<>();\n");
+		for (SequenceManifest manifest : manifests) {
+			out.append("\t\tmanifests.put(").append(literal(manifest.getSequence())).append(", new SequenceManifest(").append(literal(manifest.getSequence()));
+			out.append(", new int[] {").append(join(manifest.getCharacters())).append("}, new String[] {");
+
+			ArrayList<String> textureNames = new ArrayList<String>();
+			for (String textureName : manifest.getTextureNames())
+				textureNames.add(literal(textureName));
+
+			out.append(join(textureNames)).append("}));\n");
+		}
+
+		out.append("\n\t\treturn new Project(NAME, Codecs.NONE, characters, callbacks, manifests);\n");
+		out.append("\t}\n\n");
+
+		out.append("\t@Override\n");
+		out.append("\tpublic DialogueSequence getSequence (String name, ExpressionCompiler compiler) {\n");
+		out.append("\t\tswitch (name) {\n");
+		for (String sequence : sequenceNames) {
+			out.append("\t\t\tcase ").append(literal(sequence)).append(":\n");
+			out.append("\t\t\t\treturn ").append(sequenceClasses.get(sequence)).append(".create(compiler);\n");
+		}
+		out.append("\t\t\tdefault:\n");
+		out.append("\t\t\t\treturn null;\n");
+		out.append("\t\t}\n");
+		out.append("\t}\n");
+		out.append("}\n");
+
+		write(PROJECT_CLASS, out);
+	}
+
+	public File getOutDir () {
+		return outDir;
+	}
+
+	private void appendHeader (StringBuilder out, String source) {
+		out.append("// Generated by jDialogue editor from ").append(source).append(", do not edit. Export project again instead.\n\n");
+		out.append("package ").append(packageName).append(";\n\n");
+	}
+
+	/**
+	 * Appends method that creates table, table larger than {@link #CHUNK_SIZE} is filled by nested class for each chunk
+	 * @param values java literals of elements
+	 */
+	private void appendTable (StringBuilder out, String type, String method, String[] values) {
+		out.append("\n\tprivate static ").append(type).append("[] ").append(method).append(" () {\n");
+
+		if (values.length <= CHUNK_SIZE) {
+			out.append("\t\treturn new ").append(type).append("[] {");
+			appendValues(out, values, 0, values.length, ",\n\t\t\t");
+			out.append("};\n\t}\n");
+			return;
+		}
+
+		String chunkClass = Character.toUpperCase(method.charAt(0)) + method.substring(1);
+
+		out.append("\t\t").append(type).append("[] table = new ").append(type).append("[").append(values.length).append("];\n");
+		int chunks = (values.length + CHUNK_SIZE - 1) / CHUNK_SIZE;
+		for (int i = 0; i < chunks; i++)
+			out.append("\t\t").append(chunkClass).append(i).append(".fill(table);\n");
+		out.append("\t\treturn table;\n\t}\n");
+
+		for (int i = 0; i < chunks; i++) {
+			int start = i * CHUNK_SIZE;
+			int end = Math.min(values.length, start + CHUNK_SIZE);
+
+			out.append("\n\tprivate static final class ").append(chunkClass).append(i).append(" {\n");
+			out.append("\t\tstatic void fill (").append(type).append("[] table) {\n");
+			out.append("\t\t\t").append(type).append("[] chunk = {");
+			appendValues(out, values, start, end, ",\n\t\t\t\t");
+			out.append("};\n");
+			out.append("\t\t\tSystem.arraycopy(chunk, 0, table, ").append(start).append(", chunk.length);\n\t\t}\n\t}\n");
+		}
+	}
+
+	/** @param lineBreak separator with indentation used after every 32 values */
+	private void appendValues (StringBuilder out, String[] values, int start, int end, String lineBreak) {
+		for (int i = start; i < end; i++) {
+			if (i > start) out.append((i - start) % 32 == 0 ? lineBreak : ", ");
+			out.append(values[i]);
+		}
+	}
+
+	private void write (String className, StringBuilder source) throws IOException {
+		outDir.mkdirs();
+
+		try (Writer writer = new OutputStreamWriter(new FileOutputStream(new File(outDir, className + ".java")), "UTF-8")) {
+			writer.write(source.toString());
+		}
+	}
+
+	private String getClassName (String sequenceName) {
+		StringBuilder name = new StringBuilder("Sequence");
+		boolean upper = true;
+
+		for (int i = 0; i < sequenceName.length(); i++) {
+			char c = sequenceName.charAt(i);
+
+			if (c < 128 && Character.isLetterOrDigit(c)) {
+				name.append(upper ? Character.toUpperCase(c) : c);
+				upper = false;
+			} else
+				upper = true;
+		}
+
+		String base = name.toString();
+		String className = base;
+		for (int i = 2; usedClassNames.contains(className); i++)
+			className = base + i;
+
+		usedClassNames.add(className);
+		return className;
+	}
+
+	private static int getType (DComponent comp) {
+		if (comp instanceof TextComponent) return TYPE_TEXT;
+		if (comp instanceof ChoiceComponent) return TYPE_CHOICE;
+		if (comp instanceof RandomComponent) return TYPE_RANDOM;
+		if (comp instanceof CallbackComponent) return TYPE_CALLBACK;
+		if (comp instanceof CallbackCheckComponent) return TYPE_CBCHECK;
+		if (comp instanceof EndComponent) return TYPE_END;
+		if (comp instanceof RelayComponent) return TYPE_RELAY;
+		if (comp instanceof StartComponent) return TYPE_START;
+		if (comp instanceof ConditionComponent) return TYPE_CONDITION;
+
+		throw new IllegalArgumentException("Unknown component type: " + comp.getClass().getSimpleName());
+	}
+
+	private static int getExportId (HashMap<Integer, Integer> exportIds, int id) {
+		Integer exportId = exportIds.get(id);
+		return exportId == null ? 0 : exportId; // deleted character or callback, same as in exported xml
+	}
+
+	private static String join (ArrayList<?> values) {
+		StringBuilder out = new StringBuilder();
+
+		for (int i = 0; i < values.size(); i++) {
+			if (i > 0) out.append(", ");
+			out.append(values.get(i));
+		}
+
+		return out.toString();
+	}
+
+	/**
+	 * @return java string literal, characters outside of printable ASCII are written as unicode escapes
+	 */
+	static String literal (String value) {
+		if (value == null) return "null";
+
+		StringBuilder out = new StringBuilder(value.length() + 2);
+		out.append('"');
+
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+
+			switch (c) {
+				case '"':
+					out.append("\\\"");
+					break;
+				case '\\':
+					out.append("\\\\");
+					break;
+				case '\n':
+					out.append("\\n");
+					break;
+				case '\r':
+					out.append("\\r");
+					break;
+				case '\t':
+					out.append("\\t");
+					break;
+				default:
+					if (c < 32 || c > 126)
+						out.append(String.format("\\u%04x", (int) c));
+					else
+						out.append(c);
+			}
+		}
+
+		return out.append('"').toString();
+	}
+}
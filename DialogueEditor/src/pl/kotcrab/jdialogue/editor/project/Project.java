@@ -22,14 +22,24 @@ import com.thoughtworks.xstream.XStream;
 import com.thoughtworks.xstream.annotations.XStreamOmitField;
 import pl.kotcrab.jdialogue.editor.Editor;
 import pl.kotcrab.jdialogue.editor.IOUtils;
+import pl.kotcrab.jdialogue.editor.codec.Codec;
+import pl.kotcrab.jdialogue.editor.codec.Codecs;
+import pl.kotcrab.jdialogue.editor.components.DComponent;
 import pl.kotcrab.jdialogue.editor.components.DComponentConverter;
 import pl.kotcrab.jdialogue.editor.components.IDManager;
+import pl.kotcrab.jdialogue.editor.components.types.TextComponent;
 import pl.kotcrab.jdialogue.editor.gui.StatusBar;
 
 import javax.swing.JOptionPane;
 import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.TreeSet;
 
 public class Project {
 	private String name;
@@ -42,6 +52,18 @@ public class Project {
 	private boolean gzipProject;
 	private boolean gzipExport;
 
+	/**
+	 * Names of codecs used for project and exported files, null in projects created before codecs were added, gzip flags are
+	 * used for them
+	 */
+	private String projectCodec;
+	private String exportCodec;
+
+	/**
+	 * Package of Java sources generated during export, null if sources are not generated
+	 */
+	private String sourcePackage;
+
 	private File configFile;
 
 	@XStreamOmitField
@@ -59,12 +81,14 @@ public class Project {
 
 	private IDManager projectIDManager;
 
-	public Project (String projectName, String projectMainDir, boolean gzipProject, boolean gzipExport) {
+	public Project (String projectName, String projectMainDir, Codec projectCodec, Codec exportCodec) {
 		name = projectName;
 		mainDir = projectMainDir;
 
-		this.gzipProject = gzipProject;
-		this.gzipExport = gzipExport;
+		this.projectCodec = projectCodec.getName();
+		this.exportCodec = exportCodec.getName();
+		gzipProject = projectCodec == Codecs.GZIP;
+		gzipExport = exportCodec == Codecs.GZIP;
 
 		prepareProjectPaths();
 
@@ -98,19 +122,19 @@ public class Project {
 		for (Sequence seq : sequences) {
 			if (seq.getName().equals(activeSequenceName)) {
 				activeSequence = seq;
-				activeSequence.load(xstream, gzipProject);
+				activeSequence.load(xstream, getProjectCodec());
 				return;
 			}
 		}
 
 		activeSequence = sequences.get(0);
-		activeSequence.load(xstream, gzipProject);
+		activeSequence.load(xstream, getProjectCodec());
 	}
 
 	public void refreshSequences () {
 		File[] list = new File(mainDir).listFiles();
 		for (int i = 0; i < list.length; i++) {
-			if (list[i].getName().equals("project.xml") || list[i].getName().equals("out")) continue;
+			if (list[i].getName().equals("project.xml") || list[i].getName().endsWith(".xml") == false) continue;
 
 			sequences.add(new Sequence(list[i]));
 		}
@@ -122,7 +146,7 @@ public class Project {
 	}
 
 	public void saveActiveSeqeunce (XStream xstream) {
-		activeSequence.save(xstream, gzipProject);
+		activeSequence.save(xstream, getProjectCodec());
 	}
 
 	public void renameSequence (XStream xstream, Sequence seq, String newName) {
@@ -130,7 +154,7 @@ public class Project {
 
 		if (seq.getName().equals(activeSequenceName)) activeSequenceNameNeedUpdate = true;
 
-		seq.rename(xstream, gzipExport, newName);
+		seq.rename(xstream, getProjectCodec(), newName);
 
 		if (activeSequenceNameNeedUpdate) activeSequenceName = seq.getName();
 	}
@@ -156,9 +180,9 @@ public class Project {
 
 	public void loadActiveSequence (XStream xstream) {
 		if (activeSequence.isSaved() == false && activeSequence.isLoaded() == true)
-			activeSequence.save(xstream, gzipProject);
+			activeSequence.save(xstream, getProjectCodec());
 
-		activeSequence.load(xstream, gzipProject);
+		activeSequence.load(xstream, getProjectCodec());
 	}
 
 	public void newCharacter (String name, String textureName) {
@@ -179,39 +203,156 @@ public class Project {
 		return callbacks.remove(callback);
 	}
 
-	public void exportProject (XStream xstream, StatusBar statusLabel) // TODO export all sequencees and project file
+	/**
+	 * @param optimize if true sequences graphs are simplified before export and list of changes is saved to export-report.txt in
+	 * project directory. Unoptimized export keeps all components, which is useful for debugging
+	 */
+	public void exportProject (XStream xstream, StatusBar statusLabel, boolean optimize) // TODO export all sequencees and project file
 	{
 		DComponentConverter.exportMode = true;
 
 		if (customOut != null && customOut.equals("")) customOut = null;
 
-		ProjectExport projectToExport = new ProjectExport(name, gzipExport, characters, buildCharactersMap(), callbacks, buildCallbacksMap());
+		DComponentConverter.exportCharacterIds = buildCharactersMap();
+		DComponentConverter.exportCallbackIds = buildCallbacksMap();
 
-		if (customOut != null)
-			IOUtils.saveNormal(xstream, new File(customOut + "project.xml"), projectToExport);
-		else
-			IOUtils.saveNormal(xstream, new File(mainDir + "out" + File.separator + "project.xml"), projectToExport);
+		String exportPath = customOut != null ? customOut : mainDir + "out" + File.separator;
+		ArrayList<PCharacter> exportCharacters = buildExportCharacters();
+		ArrayList<PCallback> exportCallbacks = buildExportCallbacks();
+		ArrayList<SequenceManifest> manifests = new ArrayList<SequenceManifest>();
+		JavaSourceExporter sourceExporter = sourcePackage != null ? new JavaSourceExporter(exportPath + "java", sourcePackage) : null;
 
 		int failedToExport = 0;
+		int removedComponents = 0;
+		int replacedComponents = 0;
+		StringBuilder report = new StringBuilder();
 
 		for (Sequence seq : sequences) {
-			if (seq.isLoaded() == false) seq.load(xstream, gzipProject);
+			if (seq.isLoaded() == false) seq.load(xstream, getProjectCodec());
+
+			SequenceOptimizer optimizer = optimize ? new SequenceOptimizer(seq.getComponentList()) : null;
+
+			if (seq.export(xstream, getExportCodec(), exportPath, optimizer, sourceExporter) == false) {
+				failedToExport++;
+				continue;
+			}
+
+			manifests.add(buildManifest(seq, optimizer, exportCharacters));
+
+			if (optimizer != null) {
+				removedComponents += optimizer.getRemovedCount();
+				replacedComponents += optimizer.getReplacedCount();
+				report.append("Sequence: ").append(seq.getName()).append('\n').append(optimizer.getReport()).append('\n');
+			}
+		}
+
+		// saved after sequences, so manifests are known
+		ProjectExport projectToExport = new ProjectExport(name, getExportCodec(), exportCharacters, exportCallbacks, manifests);
+		IOUtils.saveNormal(xstream, new File(exportPath + "project.xml"), projectToExport);
 
-			if (customOut != null) {
-				if (seq.export(xstream, gzipExport, customOut) == false) failedToExport++;
-			} else {
-				if (seq.export(xstream, gzipExport, mainDir + "out" + File.separator) == false) failedToExport++;
+		if (sourceExporter != null) {
+			try {
+				sourceExporter.exportProject(name, exportCharacters, exportCallbacks, manifests);
+			} catch (IOException e) {
+				e.printStackTrace();
+				JOptionPane.showMessageDialog(Editor.window, "Could not write Java source of project: " + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
 			}
 		}
 
+		if (optimize) saveExportReport(exportPath, report.toString());
+
 		if (failedToExport > 0) {
 			JOptionPane.showMessageDialog(Editor.window, "Finished exporting with errors. Sequences not exported: " + failedToExport, "Export", JOptionPane.WARNING_MESSAGE);
 			statusLabel.setStatusText("Finished exporting with errors. Sequences not exported: " + failedToExport);
 
-		} else
+		} else if (optimize)
+			statusLabel.setStatusText("Finished exporting, optimizer removed " + removedComponents + " components and replaced " + replacedComponents + " randoms (see export-report.txt in output directory)");
+		else
 			statusLabel.setStatusText("Finished exporting");
 
 		DComponentConverter.exportMode = false;
+		DComponentConverter.exportCharacterIds = null;
+		DComponentConverter.exportCallbackIds = null;
+	}
+
+	public String getSourcePackage () {
+		return sourcePackage;
+	}
+
+	/**
+	 * @param sourcePackage package of Java sources generated during export, null to disable source generation
+	 */
+	public void setSourcePackage (String sourcePackage) {
+		this.sourcePackage = sourcePackage;
+	}
+
+	public Codec getProjectCodec () {
+		if (projectCodec == null) return gzipProject ? Codecs.GZIP : Codecs.NONE;
+		return Codecs.get(projectCodec);
+	}
+
+	public Codec getExportCodec () {
+		if (exportCodec == null) return gzipExport ? Codecs.GZIP : Codecs.NONE;
+		return Codecs.get(exportCodec);
+	}
+
+	/**
+	 * Collects characters of text components in sequence, components removed by optimizer are skipped.
+	 */
+	private SequenceManifest buildManifest (Sequence seq, SequenceOptimizer optimizer, ArrayList<PCharacter> exportCharacters) {
+		TreeSet<Integer> characterIds = new TreeSet<Integer>();
+
+		for (DComponent comp : seq.getComponentList()) {
+			if (comp instanceof TextComponent == false) continue;
+			if (optimizer != null && optimizer.isExported(comp) == false) continue;
+
+			for (Object[] row : comp.getTableModel().getData()) {
+				if (row[0].equals("Character")) {
+					Integer exportId = DComponentConverter.exportCharacterIds.get(((PCharacter) row[1]).getId());
+					characterIds.add(exportId == null ? 0 : exportId);
+				}
+			}
+		}
+
+		LinkedHashSet<String> textureNames = new LinkedHashSet<String>();
+
+		for (int id : characterIds) {
+			String textureName = exportCharacters.get(id).getTextureName();
+			if (textureName != null && textureName.equals("none") == false) textureNames.add(textureName);
+		}
+
+		return new SequenceManifest(seq.getName(), new ArrayList<Integer>(characterIds), new ArrayList<String>(textureNames));
+	}
+
+	/** Report is saved next to exported files, so it is never mistaken for a sequence in project directory */
+	private void saveExportReport (String exportPath, String report) {
+		try (Writer writer = new OutputStreamWriter(new FileOutputStream(exportPath + "export-report.txt"), "UTF-8")) {
+			writer.write(report);
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Characters and callbacks share ids from project IDManager, so their ids have gaps. Exported characters and callbacks
+	 * are renumbered to their index on list, which allows parser to keep them in plain arrays.
+	 */
+	private ArrayList<PCharacter> buildExportCharacters () {
+		ArrayList<PCharacter> exportCharacters = new ArrayList<PCharacter>(characters.size());
+
+		for (int i = 0; i < characters.size(); i++)
+			exportCharacters.add(new PCharacter(i, characters.get(i).getName(), characters.get(i).getTextureName()));
+
+		return exportCharacters;
+	}
+
+	private ArrayList<PCallback> buildExportCallbacks () {
+		ArrayList<PCallback> exportCallbacks = new ArrayList<PCallback>(callbacks.size());
+
+		for (int i = 0; i < callbacks.size(); i++)
+			exportCallbacks.add(new PCallback(i, callbacks.get(i).getName()));
+
+		return exportCallbacks;
 	}
 
 	private HashMap<Integer, Integer> buildCharactersMap () {
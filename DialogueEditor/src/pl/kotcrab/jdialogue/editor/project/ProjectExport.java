@@ -18,30 +18,33 @@
 
 package pl.kotcrab.jdialogue.editor.project;
 
+import pl.kotcrab.jdialogue.editor.codec.Codec;
+import pl.kotcrab.jdialogue.editor.codec.Codecs;
+
 import java.util.ArrayList;
-import java.util.HashMap;
 
 /**
  * Class created for project that is going to be exported.
- * Object is created during export process, then XStream saves it, without need to create speical converter
+ * Object is created during export process, then XStream saves it, without need to create speical converter.
+ * Characters and callbacks are renumbered, so id of each of them is equal to its index on the list.
  *
  * @author Pawel Pastuszak
  */
 @SuppressWarnings("unused") //doesn't matter, XStream will use reflection
 public class ProjectExport {
 	private String name;
-	private boolean gzipExport;
+	private boolean gzipExport; // kept for parsers that don't read codec
+	private String codec;
 	private ArrayList<PCharacter> characterList;
-	private HashMap<Integer, Integer> characterMap;
 	private ArrayList<PCallback> callbackList;
-	private HashMap<Integer, Integer> callbackMap;
+	private ArrayList<SequenceManifest> manifestList;
 
-	public ProjectExport (String name, boolean gzipExport, ArrayList<PCharacter> characterList, HashMap<Integer, Integer> characterMap, ArrayList<PCallback> callbackList, HashMap<Integer, Integer> callbackMap) {
+	public ProjectExport (String name, Codec codec, ArrayList<PCharacter> characterList, ArrayList<PCallback> callbackList, ArrayList<SequenceManifest> manifestList) {
 		this.name = name;
-		this.gzipExport = gzipExport;
+		this.gzipExport = codec == Codecs.GZIP;
+		this.codec = codec.getName();
 		this.characterList = characterList;
-		this.characterMap = characterMap;
 		this.callbackList = callbackList;
-		this.callbackMap = callbackMap;
+		this.manifestList = manifestList;
 	}
 }
@@ -21,14 +21,19 @@ package pl.kotcrab.jdialogue.editor.project;
 import com.thoughtworks.xstream.XStream;
 import pl.kotcrab.jdialogue.editor.Editor;
 import pl.kotcrab.jdialogue.editor.IOUtils;
+import pl.kotcrab.jdialogue.editor.codec.Codec;
 import pl.kotcrab.jdialogue.editor.components.Connector;
 import pl.kotcrab.jdialogue.editor.components.DComponent;
+import pl.kotcrab.jdialogue.editor.components.DComponentConverter;
 import pl.kotcrab.jdialogue.editor.components.types.EndComponent;
 import pl.kotcrab.jdialogue.editor.components.types.StartComponent;
 
 import javax.swing.JOptionPane;
 import java.io.File;
+import java.io.IOException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.HashSet;
 
 public class Sequence {
 	private File file;
@@ -52,34 +57,30 @@ public class Sequence {
 	}
 
 	@SuppressWarnings("unchecked")
-	public void load (XStream xstream, boolean gzip) {
+	public void load (XStream xstream, Codec codec) {
 		if (loaded == false) {
 			loaded = true;
-
-			if (gzip)
-				componentList = (ArrayList<DComponent>) IOUtils.loadGzip(xstream, file);
-			else
-				componentList = (ArrayList<DComponent>) IOUtils.loadNormal(xstream, file);
+			componentList = (ArrayList<DComponent>) IOUtils.load(xstream, file, codec);
 		}
 	}
 
-	public void save (XStream xstream, boolean gzip) {
+	public void save (XStream xstream, Codec codec) {
 		saved = true;
-		if (gzip)
-			IOUtils.saveGzip(xstream, file, componentList);
-		else
-			IOUtils.saveNormal(xstream, file, componentList);
+		IOUtils.save(xstream, file, componentList, codec);
 	}
 
-	public void rename (XStream xstream, boolean gzip, String name) {
+	public void rename (XStream xstream, Codec codec, String name) {
 		file.delete();
 		this.name = name;
 		file = new File(file.getParentFile().getPath() + File.separator + name + ".xml");
-		save(xstream, gzip);
+		save(xstream, codec);
 	}
 
-	public boolean export (XStream xstream, boolean gzipExport, String exportPath) // TODO organize components list by id
-	{
+	/**
+	 * @param optimizer optimizer that will be used to simplify exported graph, or null if sequence should be exported as it is
+	 * @param sourceExporter exporter that will generate Java source of sequence, or null if sources are not generated
+	 */
+	public boolean export (XStream xstream, Codec exportCodec, String exportPath, SequenceOptimizer optimizer, JavaSourceExporter sourceExporter) {
 
 		if (checkForEnd() == false) {
 			JOptionPane.showMessageDialog(Editor.window, "Could not find 'End' component, please fix errors before exporting. Skipping sequence: " + name, "Error", JOptionPane.ERROR_MESSAGE);
@@ -91,22 +92,99 @@ public class Sequence {
 			return false;
 		}
 
-		optimizeIDs();
+		if (optimizer != null) optimizer.optimize();
+
+		ArrayList<DComponent> exportList = orderComponents(optimizer);
+
+		DComponentConverter.exportOptimizer = optimizer;
 
-		if (gzipExport)
-			IOUtils.saveGzip(xstream, new File(exportPath + name + ".xml"), componentList);
-		else
-			IOUtils.saveNormal(xstream, new File(exportPath + name + ".xml"), componentList);
+		String xml = xstream.toXML(exportList);
+		long hash = hash(xml);
+		IOUtils.saveText(new File(exportPath + name + ".xml"), "<list hash=\"" + hash + "\"" + xml.substring("<list".length()), exportCodec);
+
+		DComponentConverter.exportOptimizer = null;
+
+		if (sourceExporter != null) {
+			try {
+				sourceExporter.exportSequence(this, exportList, optimizer, hash);
+			} catch (IOException e) {
+				e.printStackTrace();
+				JOptionPane.showMessageDialog(Editor.window, "Could not write Java source of sequence: " + name, "Error", JOptionPane.ERROR_MESSAGE);
+				return false;
+			}
+		}
 
 		return true;
 	}
 
-	private void optimizeIDs () {
-		int id = 0;
+	/**
+	 * Creates list of components in order in which they are likely to be visited by parser and assigns ids matching that order.
+	 * Walk starts from 'Start' component, all direct targets of component are placed next to each other (so choice branches stay
+	 * together), then each of them is followed depth first. Components that can't be reached are placed at the end, in order of
+	 * creation. Result depends only on connections, so exporting the same sequence always gives the same file.
+	 * <p>
+	 * When optimizer is used connections are followed through bypassed components, components that are not exported are skipped
+	 * and bypassed components get id of component they lead to, so connections to them are exported as direct connections.
+	 * @return ordered copy of component list, editor order is not changed
+	 */
+	private ArrayList<DComponent> orderComponents (SequenceOptimizer optimizer) {
+		ArrayList<DComponent> ordered = new ArrayList<DComponent>(componentList.size());
+		HashSet<DComponent> placed = new HashSet<DComponent>();
+		ArrayDeque<DComponent> stack = new ArrayDeque<DComponent>();
+
 		for (DComponent comp : componentList) {
-			comp.setId(id);
-			id++;
+			if (comp instanceof StartComponent) {
+				ordered.add(comp);
+				placed.add(comp);
+				stack.push(comp);
+				break;
+			}
+		}
+
+		while (stack.isEmpty() == false) {
+			Connector[] outputs = stack.pop().getOutputs();
+			int firstPlaced = ordered.size();
+
+			for (int i = 0; i < outputs.length; i++) {
+				DComponent target = outputs[i].getTarget().getParrentComponent();
+				if (optimizer != null) target = optimizer.resolve(target);
+
+				if (placed.add(target)) ordered.add(target);
+			}
+
+			for (int i = ordered.size() - 1; i >= firstPlaced; i--) // reversed, so first output will be followed first
+				stack.push(ordered.get(i));
 		}
+
+		if (optimizer == null) {
+			for (DComponent comp : componentList)
+				if (placed.contains(comp) == false) ordered.add(comp);
+		}
+
+		for (int i = 0; i < ordered.size(); i++)
+			ordered.get(i).setId(i);
+
+		if (optimizer != null) {
+			for (DComponent comp : componentList)
+				if (optimizer.isBypassed(comp)) comp.setId(optimizer.resolve(comp).getId());
+		}
+
+		return ordered;
+	}
+
+	/**
+	 * Hash of exported xml, saved as 'hash' attribute of its root element. Runtime uses it to detect that sequence changed and
+	 * its node ids are no longer valid, so it is computed only from exported content and is the same for the same graph.
+	 */
+	private static long hash (String xml) {
+		long hash = 0xcbf29ce484222325L; // 64 bit FNV-1a
+
+		for (int i = 0; i < xml.length(); i++) {
+			hash ^= xml.charAt(i);
+			hash *= 0x100000001b3L;
+		}
+
+		return hash;
 	}
 
 	private boolean checkForEnd () {
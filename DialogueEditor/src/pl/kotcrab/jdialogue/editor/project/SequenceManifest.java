@@ -0,0 +1,51 @@
+/*******************************************************************************
+ * DialogueEditor
+ * Copyright (C) 2013-2014 Pawel Pastuszak
+ * <p>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package pl.kotcrab.jdialogue.editor.project;
+
+import java.util.ArrayList;
+
+/**
+ * Assets used by exported sequence, saved in exported project so game can load them before sequence is started.
+ * Characters use export ids, texture name 'none' is skipped.
+ *
+ * @author Pawel Pastuszak
+ */
+public class SequenceManifest {
+	private String sequence;
+	private ArrayList<Integer> characters;
+	private ArrayList<String> textureNames;
+
+	public SequenceManifest (String sequence, ArrayList<Integer> characters, ArrayList<String> textureNames) {
+		this.sequence = sequence;
+		this.characters = characters;
+		this.textureNames = textureNames;
+	}
+
+	public String getSequence () {
+		return sequence;
+	}
+
+	public ArrayList<Integer> getCharacters () {
+		return characters;
+	}
+
+	public ArrayList<String> getTextureNames () {
+		return textureNames;
+	}
+}
@@ -0,0 +1,222 @@
+/*******************************************************************************
+ * DialogueEditor
+ * Copyright (C) 2013-2014 Pawel Pastuszak
+ * <p>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package pl.kotcrab.jdialogue.editor.project;
+
+import pl.kotcrab.jdialogue.editor.components.DComponent;
+import pl.kotcrab.jdialogue.editor.components.types.CallbackComponent;
+import pl.kotcrab.jdialogue.editor.components.types.RandomComponent;
+import pl.kotcrab.jdialogue.editor.components.types.RelayComponent;
+import pl.kotcrab.jdialogue.editor.components.types.StartComponent;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+
+/**
+ * Simplifies sequence graph before export. Relays and random components with single output are bypassed, callbacks following
+ * each other are merged into one node and components that can't be reached from 'Start' are dropped. Connections in editor are
+ * not modified, optimizer only remembers which components are bypassed and where connections leading to them really end.
+ *
+ * @author Pawel Pastuszak
+ */
+public class SequenceOptimizer {
+	private ArrayList<DComponent> componentList;
+
+	/** bypassed component -> component it passes control to */
+	private HashMap<DComponent, DComponent> bypassed = new HashMap<DComponent, DComponent>();
+	private HashMap<DComponent, ArrayList<PCallback>> mergedCallbacks = new HashMap<DComponent, ArrayList<PCallback>>();
+
+	private DComponent start;
+	private HashSet<DComponent> reachable = new HashSet<DComponent>();
+	private HashMap<DComponent, Integer> inputCount = new HashMap<DComponent, Integer>();
+
+	private StringBuilder report = new StringBuilder();
+	private int removedCount;
+	private int replacedCount;
+
+	public SequenceOptimizer (ArrayList<DComponent> componentList) {
+		this.componentList = componentList;
+
+		for (DComponent comp : componentList) {
+			if (comp instanceof StartComponent) {
+				start = comp;
+				break;
+			}
+		}
+	}
+
+	public void optimize () {
+		bypassRelays();
+		findReachable();
+		mergeCallbacks();
+	}
+
+	private void bypassRelays () {
+		for (DComponent comp : componentList) {
+			if (comp instanceof RelayComponent || (comp instanceof RandomComponent && comp.getOutputs().length == 1))
+				bypassed.put(comp, getRawTarget(comp, 0));
+		}
+
+		ArrayList<DComponent> inLoop = new ArrayList<DComponent>();
+
+		for (DComponent comp : bypassed.keySet())
+			if (resolve(comp) == null) inLoop.add(comp);
+
+		for (DComponent comp : inLoop) // loop made only of relays, nothing to connect it to, keep it as it is
+			bypassed.remove(comp);
+
+		for (DComponent comp : componentList) {
+			if (bypassed.containsKey(comp)) {
+				if (comp instanceof RelayComponent)
+					log("Removed relay", comp);
+				else
+					logReplaced("Replaced random with single output by direct connection", comp);
+			}
+		}
+	}
+
+	private void findReachable () {
+		if (start == null) return;
+
+		ArrayDeque<DComponent> queue = new ArrayDeque<DComponent>();
+		reachable.add(start);
+		queue.add(start);
+
+		while (queue.isEmpty() == false) {
+			DComponent comp = queue.poll();
+
+			for (int i = 0; i < comp.getOutputs().length; i++) {
+				DComponent target = getTarget(comp, i);
+
+				Integer count = inputCount.get(target);
+				inputCount.put(target, count == null ? 1 : count + 1);
+
+				if (reachable.add(target)) queue.add(target);
+			}
+		}
+
+		for (DComponent comp : componentList)
+			if (reachable.contains(comp) == false && bypassed.containsKey(comp) == false) log("Removed unreachable component", comp);
+	}
+
+	private void mergeCallbacks () {
+		for (DComponent comp : componentList) {
+			if (comp.getClass() != CallbackComponent.class || reachable.contains(comp) == false) continue;
+
+			DComponent next = getTarget(comp, 0);
+
+			while (next != comp && next.getClass() == CallbackComponent.class && inputCount.get(next) == 1) {
+				ArrayList<PCallback> merged = mergedCallbacks.get(comp);
+
+				if (merged == null) {
+					merged = new ArrayList<PCallback>();
+					mergedCallbacks.put(comp, merged);
+				}
+
+				merged.add(getCallback(next));
+
+				ArrayList<PCallback> mergedIntoNext = mergedCallbacks.remove(next);
+				if (mergedIntoNext != null) merged.addAll(mergedIntoNext);
+
+				bypassed.put(next, getRawTarget(next, 0));
+				reachable.remove(next);
+				log("Merged callback '" + getCallback(next).getName() + "' into previous callback", next);
+
+				next = getTarget(comp, 0);
+			}
+		}
+	}
+
+	/**
+	 * Follows connection from output, skipping bypassed components
+	 * @return component that will be really reached from given output
+	 */
+	public DComponent getTarget (DComponent comp, int output) {
+		return resolve(getRawTarget(comp, output));
+	}
+
+	/** @return component itself if it is not bypassed, first not bypassed component after it otherwise, null if there is no such component */
+	public DComponent resolve (DComponent comp) {
+		int steps = 0;
+
+		while (bypassed.containsKey(comp)) {
+			comp = bypassed.get(comp);
+			if (++steps > componentList.size()) return null;
+		}
+
+		return comp;
+	}
+
+	/** @return true if component will be written to exported file */
+	public boolean isExported (DComponent comp) {
+		return reachable.contains(comp);
+	}
+
+	public boolean isBypassed (DComponent comp) {
+		return bypassed.containsKey(comp);
+	}
+
+	public DComponent getStart () {
+		return start;
+	}
+
+	/** @return callbacks that must be exported after callback of given component, null if nothing was merged into it */
+	public ArrayList<PCallback> getMergedCallbacks (DComponent comp) {
+		return mergedCallbacks.get(comp);
+	}
+
+	/** @return number of removed components, randoms replaced by direct connection are not counted */
+	public int getRemovedCount () {
+		return removedCount;
+	}
+
+	/** @return number of randoms with single output replaced by direct connection */
+	public int getReplacedCount () {
+		return replacedCount;
+	}
+
+	/** @return description of changes made by optimizer, one change per line, empty if nothing was changed */
+	public String getReport () {
+		return report.toString();
+	}
+
+	private void log (String change, DComponent comp) {
+		removedCount++;
+		appendReport(change, comp);
+	}
+
+	private void logReplaced (String change, DComponent comp) {
+		replacedCount++;
+		appendReport(change, comp);
+	}
+
+	private void appendReport (String change, DComponent comp) {
+		report.append(change).append(": ").append(comp.getClass().getSimpleName().replace("Component", "")).append(" at ").append(comp.getX())
+				.append(", ").append(comp.getY()).append('\n');
+	}
+
+	private static DComponent getRawTarget (DComponent comp, int output) {
+		return comp.getOutputs()[output].getTarget().getParrentComponent();
+	}
+
+	private static PCallback getCallback (DComponent comp) {
+		return (PCallback) comp.getTableModel().getData()[0][1];
+	}
+}
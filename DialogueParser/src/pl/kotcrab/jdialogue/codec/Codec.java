@@ -0,0 +1,40 @@
+/*******************************************************************************
+ * Copyright 2014 Pawel Pastuszak
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+
+package pl.kotcrab.jdialogue.codec;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Compression used for exported files. Name of codec is saved in exported project, so parser can decode sequences without
+ * knowing how they were exported. Returned streams do their own buffering of compressed data, callers that read or write
+ * small pieces should still wrap them in buffered streams.
+ *
+ * @author Pawel Pastuszak
+ */
+public interface Codec {
+	/**
+	 * @return name of codec with parameters, for example 'deflate:9', {@link Codecs#get(String)} must return equal codec for it
+	 */
+	public String getName ();
+
+	public InputStream decode (InputStream in) throws IOException;
+
+	public OutputStream encode (OutputStream out) throws IOException;
+}
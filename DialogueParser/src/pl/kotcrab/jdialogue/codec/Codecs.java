@@ -0,0 +1,154 @@
+/*******************************************************************************
+ * Copyright 2014 Pawel Pastuszak
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+
+package pl.kotcrab.jdialogue.codec;
+
+import pl.kotcrab.jdialogue.parser.DialogueParserException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Registry of available codecs. Built in codecs are 'none', 'gzip', 'deflate:level' (raw deflate, level 0-9) and 'lz'
+ * ({@link LzCodec}, fastest to decode). Custom codecs can be added with {@link #register(Codec)}.
+ *
+ * @author Pawel Pastuszak
+ */
+public class Codecs {
+	public static final int BUFFER_SIZE = 8192;
+
+	public static final Codec NONE = new Codec() {
+		@Override
+		public String getName () {
+			return "none";
+		}
+
+		@Override
+		public InputStream decode (InputStream in) {
+			return in;
+		}
+
+		@Override
+		public OutputStream encode (OutputStream out) {
+			return out;
+		}
+	};
+
+	public static final Codec GZIP = new Codec() {
+		@Override
+		public String getName () {
+			return "gzip";
+		}
+
+		@Override
+		public InputStream decode (InputStream in) throws IOException {
+			return new GZIPInputStream(in, BUFFER_SIZE);
+		}
+
+		@Override
+		public OutputStream encode (OutputStream out) throws IOException {
+			return new GZIPOutputStream(out, BUFFER_SIZE);
+		}
+	};
+
+	public static final Codec LZ = new LzCodec();
+
+	private static HashMap<String, Codec> codecs = new HashMap<>();
+
+	static {
+		register(NONE);
+		register(GZIP);
+		register(LZ);
+	}
+
+	public static void register (Codec codec) {
+		codecs.put(codec.getName(), codec);
+	}
+
+	/**
+	 * @param name name of codec, 'deflate' and 'deflate:level' are created on demand
+	 * @throws DialogueParserException if there is no such codec
+	 */
+	public static Codec get (String name) {
+		Codec codec = codecs.get(name);
+		if (codec != null) return codec;
+
+		if (name.equals("deflate")) return deflate(Deflater.DEFAULT_COMPRESSION);
+
+		if (name.startsWith("deflate:")) {
+			try {
+				return deflate(Integer.parseInt(name.substring("deflate:".length())));
+			} catch (IllegalArgumentException e) {
+				throw new DialogueParserException("Invalid deflate level: " + name);
+			}
+		}
+
+		throw new DialogueParserException("Unknown codec: " + name);
+	}
+
+	/** @return codec writing raw deflate data (without gzip header and checksum) using given compression level */
+	public static Codec deflate (final int level) {
+		if (level < -1 || level > 9) throw new IllegalArgumentException("Invalid deflate level: " + level);
+
+		return new Codec() {
+			@Override
+			public String getName () {
+				return level == Deflater.DEFAULT_COMPRESSION ? "deflate" : "deflate:" + level;
+			}
+
+			@Override
+			public InputStream decode (InputStream in) {
+				final Inflater inflater = new Inflater(true);
+
+				return new InflaterInputStream(in, inflater, BUFFER_SIZE) {
+					@Override
+					public void close () throws IOException {
+						try {
+							super.close();
+						} finally {
+							inflater.end();
+						}
+					}
+				};
+			}
+
+			@Override
+			public OutputStream encode (OutputStream out) {
+				final Deflater deflater = new Deflater(level, true);
+
+				return new DeflaterOutputStream(out, deflater, BUFFER_SIZE) {
+					@Override
+					public void close () throws IOException {
+						try {
+							super.close();
+						} finally {
+							deflater.end();
+						}
+					}
+				};
+			}
+		};
+	}
+}
@@ -0,0 +1,342 @@
+/*******************************************************************************
+ * Copyright 2014 Pawel Pastuszak
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+
+package pl.kotcrab.jdialogue.codec;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * Simple LZ77 codec in the spirit of LZ4, written in pure Java so it works on every platform. Compresses worse than deflate
+ * but decoding is only copying bytes, which makes it good choice for slow devices.
+ * <p>
+ * Data is split into blocks of up to 64 KB, each block is: int rawLength, int storedLength, data. When storedLength is equal
+ * to rawLength block is stored without compression. Compressed block is list of sequences: byte token (high 4 bits literal
+ * length, low 4 bits match length - 4, value 15 means that length continues in following bytes, each 255 adds to it),
+ * literals, 2 byte little endian match offset. Last sequence of block has only literals.
+ *
+ * @author Pawel Pastuszak
+ */
+public class LzCodec implements Codec {
+	public static final int BLOCK_SIZE = 1 << 16;
+
+	private static final int MIN_MATCH = 4;
+	private static final int MAX_OFFSET = 0xFFFF;
+	private static final int HASH_BITS = 12;
+
+	@Override
+	public String getName () {
+		return "lz";
+	}
+
+	@Override
+	public InputStream decode (InputStream in) {
+		return new LzInputStream(in);
+	}
+
+	@Override
+	public OutputStream encode (OutputStream out) {
+		return new LzOutputStream(out);
+	}
+
+	private static int maxCompressedLength (int length) {
+		return length + length / 255 + 16;
+	}
+
+	/** @return length of compressed data written to dst */
+	private static int compress (byte[] src, int srcLength, byte[] dst, int[] table) {
+		Arrays.fill(table, -1);
+
+		int anchor = 0;
+		int ip = 0;
+		int op = 0;
+
+		while (ip <= srcLength - MIN_MATCH) {
+			int sequence = readInt(src, ip);
+			int hash = (sequence * -1640531535) >>> (32 - HASH_BITS);
+			int ref = table[hash];
+			table[hash] = ip;
+
+			if (ref == -1 || ip - ref > MAX_OFFSET || readInt(src, ref) != sequence) {
+				ip++;
+				continue;
+			}
+
+			int matchLength = MIN_MATCH;
+			while (ip + matchLength < srcLength && src[ref + matchLength] == src[ip + matchLength])
+				matchLength++;
+
+			op = writeSequence(src, anchor, ip - anchor, ip - ref, matchLength, dst, op);
+			ip += matchLength;
+			anchor = ip;
+		}
+
+		return writeSequence(src, anchor, srcLength - anchor, 0, 0, dst, op);
+	}
+
+	private static int writeSequence (byte[] src, int literalStart, int literalLength, int offset, int matchLength, byte[] dst, int op) {
+		int matchCode = matchLength == 0 ? 0 : matchLength - MIN_MATCH;
+		dst[op++] = (byte) ((Math.min(literalLength, 15) << 4) | Math.min(matchCode, 15));
+
+		if (literalLength >= 15) op = writeLength(literalLength - 15, dst, op);
+
+		System.arraycopy(src, literalStart, dst, op, literalLength);
+		op += literalLength;
+
+		if (matchLength == 0) return op;
+
+		dst[op++] = (byte) offset;
+		dst[op++] = (byte) (offset >>> 8);
+
+		if (matchCode >= 15) op = writeLength(matchCode - 15, dst, op);
+
+		return op;
+	}
+
+	private static int writeLength (int length, byte[] dst, int op) {
+		while (length >= 255) {
+			dst[op++] = (byte) 255;
+			length -= 255;
+		}
+
+		dst[op++] = (byte) length;
+		return op;
+	}
+
+	/** @return length of decompressed data written to dst */
+	private static int decompress (byte[] src, int srcLength, byte[] dst) {
+		int ip = 0;
+		int op = 0;
+
+		while (true) {
+			int token = src[ip++] & 0xFF;
+
+			int literalLength = token >>> 4;
+			if (literalLength == 15) {
+				int b;
+				do {
+					b = src[ip++] & 0xFF;
+					literalLength += b;
+				} while (b == 255);
+			}
+
+			System.arraycopy(src, ip, dst, op, literalLength);
+			ip += literalLength;
+			op += literalLength;
+
+			if (ip >= srcLength) return op;
+
+			int offset = (src[ip++] & 0xFF) | ((src[ip++] & 0xFF) << 8);
+
+			int matchLength = token & 15;
+			if (matchLength == 15) {
+				int b;
+				do {
+					b = src[ip++] & 0xFF;
+					matchLength += b;
+				} while (b == 255);
+			}
+			matchLength += MIN_MATCH;
+
+			int ref = op - offset;
+			if (ref < 0 || offset == 0) throw new IndexOutOfBoundsException("Invalid match offset");
+
+			// overlapping match repeats last offset bytes, already copied part is reused so every copy doubles in size
+			int copied = 0;
+			while (copied < matchLength) {
+				int n = Math.min(offset + copied, matchLength - copied);
+				System.arraycopy(dst, ref, dst, op + copied, n);
+				copied += n;
+			}
+
+			op += matchLength;
+		}
+	}
+
+	private static int readInt (byte[] b, int i) {
+		return (b[i] & 0xFF) | (b[i + 1] & 0xFF) << 8 | (b[i + 2] & 0xFF) << 16 | (b[i + 3] & 0xFF) << 24;
+	}
+
+	private static class LzOutputStream extends OutputStream {
+		private OutputStream out;
+
+		private byte[] block = new byte[BLOCK_SIZE];
+		private int count;
+
+		private byte[] compressed = new byte[8 + maxCompressedLength(BLOCK_SIZE)];
+		private int[] table = new int[1 << HASH_BITS];
+
+		public LzOutputStream (OutputStream out) {
+			this.out = out;
+		}
+
+		@Override
+		public void write (int b) throws IOException {
+			if (count == BLOCK_SIZE) writeBlock();
+			block[count++] = (byte) b;
+		}
+
+		@Override
+		public void write (byte[] b, int off, int len) throws IOException {
+			while (len > 0) {
+				if (count == BLOCK_SIZE) writeBlock();
+
+				int n = Math.min(len, BLOCK_SIZE - count);
+				System.arraycopy(b, off, block, count, n);
+				count += n;
+				off += n;
+				len -= n;
+			}
+		}
+
+		private void writeBlock () throws IOException {
+			if (count == 0) return;
+
+			int length = compress(block, count, compressed, table);
+
+			if (length >= count) { // not compressible, store as it is
+				writeHeader(count, count);
+				out.write(compressed, 0, 8);
+				out.write(block, 0, count);
+			} else {
+				System.arraycopy(compressed, 0, compressed, 8, length);
+				writeHeader(count, length);
+				out.write(compressed, 0, 8 + length);
+			}
+
+			count = 0;
+		}
+
+		private void writeHeader (int rawLength, int storedLength) {
+			putInt(compressed, 0, rawLength);
+			putInt(compressed, 4, storedLength);
+		}
+
+		@Override
+		public void flush () throws IOException {
+			writeBlock();
+			out.flush();
+		}
+
+		@Override
+		public void close () throws IOException {
+			try {
+				writeBlock();
+			} finally {
+				out.close();
+			}
+		}
+	}
+
+	private static void putInt (byte[] b, int i, int value) {
+		b[i] = (byte) (value >>> 24);
+		b[i + 1] = (byte) (value >>> 16);
+		b[i + 2] = (byte) (value >>> 8);
+		b[i + 3] = (byte) value;
+	}
+
+	private static int getInt (byte[] b, int i) {
+		return (b[i] & 0xFF) << 24 | (b[i + 1] & 0xFF) << 16 | (b[i + 2] & 0xFF) << 8 | (b[i + 3] & 0xFF);
+	}
+
+	private static class LzInputStream extends InputStream {
+		private InputStream in;
+
+		private byte[] header = new byte[8];
+		private byte[] compressed = new byte[maxCompressedLength(BLOCK_SIZE)];
+		private byte[] block = new byte[BLOCK_SIZE];
+		private int position;
+		private int limit;
+
+		public LzInputStream (InputStream in) {
+			this.in = in;
+		}
+
+		private boolean readBlock () throws IOException {
+			int first = in.read();
+			if (first == -1) return false;
+
+			header[0] = (byte) first;
+			readFully(header, 1, 7);
+
+			int rawLength = getInt(header, 0);
+			int storedLength = getInt(header, 4);
+
+			if (rawLength < 0 || rawLength > BLOCK_SIZE || storedLength < 0 || storedLength > compressed.length)
+				throw new IOException("Corrupted lz block header");
+
+			if (storedLength == rawLength)
+				readFully(block, 0, rawLength);
+			else {
+				readFully(compressed, 0, storedLength);
+
+				try {
+					if (decompress(compressed, storedLength, block) != rawLength) throw new IOException("Corrupted lz block");
+				} catch (IndexOutOfBoundsException e) {
+					throw new IOException("Corrupted lz block", e);
+				}
+			}
+
+			position = 0;
+			limit = rawLength;
+			return true;
+		}
+
+		private void readFully (byte[] b, int off, int len) throws IOException {
+			while (len > 0) {
+				int n = in.read(b, off, len);
+				if (n == -1) throw new EOFException("Unexpected end of lz stream");
+				off += n;
+				len -= n;
+			}
+		}
+
+		@Override
+		public int read () throws IOException {
+			while (position == limit)
+				if (readBlock() == false) return -1;
+
+			return block[position++] & 0xFF;
+		}
+
+		@Override
+		public int read (byte[] b, int off, int len) throws IOException {
+			if (len == 0) return 0;
+
+			while (position == limit)
+				if (readBlock() == false) return -1;
+
+			int n = Math.min(len, limit - position);
+			System.arraycopy(block, position, b, off, n);
+			position += n;
+			return n;
+		}
+
+		@Override
+		public int available () {
+			return limit - position;
+		}
+
+		@Override
+		public void close () throws IOException {
+			in.close();
+		}
+	}
+}
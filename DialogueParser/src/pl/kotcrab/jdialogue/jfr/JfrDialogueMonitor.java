@@ -0,0 +1,240 @@
+/*******************************************************************************
+ * Copyright 2014 Pawel Pastuszak
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package pl.kotcrab.jdialogue.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import pl.kotcrab.jdialogue.parser.ComponentType;
+import pl.kotcrab.jdialogue.parser.DialogueMonitor;
+import pl.kotcrab.jdialogue.parser.DialogueSequence;
+
+/**
+ * Reports dialogue work as Java Flight Recorder events, so it shows up on JFR timelines next to GC and rendering. Events are in
+ * 'JDialogue' category: project load, sequence load, step, callback and sequence eviction. When no recording has event enabled
+ * begin methods only check event type and no event is created.
+ * <p>
+ * Requires Java 11 or newer, this package is the only part of parser that uses JFR and may be left out from builds for older
+ * Java versions and Android. Each parser needs its own monitor.
+ *
+ * <pre>
+ * parser = new JDOMDialogueParser(loader, maxChars, new JfrDialogueMonitor());
+ * parser.getSequenceCache().setEvictionListener(parser.getMonitor());
+ * java -XX:StartFlightRecording=filename=game.jfr ...
+ * </pre>
+ *
+ * @author Pawel Pastuszak
+ */
+public class JfrDialogueMonitor implements DialogueMonitor {
+	private static final EventType PROJECT_LOAD = EventType.getEventType(ProjectLoadEvent.class);
+	private static final EventType SEQUENCE_LOAD = EventType.getEventType(SequenceLoadEvent.class);
+	private static final EventType STEP = EventType.getEventType(StepEvent.class);
+	private static final EventType CALLBACK = EventType.getEventType(CallbackEvent.class);
+	private static final EventType EVICTION = EventType.getEventType(EvictionEvent.class);
+
+	private ProjectLoadEvent projectLoad;
+	private SequenceLoadEvent sequenceLoad;
+	private StepEvent step;
+	private CallbackEvent callback;
+
+	@Override
+	public void projectLoadBegin () {
+		projectLoad = null;
+		if (PROJECT_LOAD.isEnabled() == false) return;
+
+		projectLoad = new ProjectLoadEvent();
+		projectLoad.begin();
+	}
+
+	@Override
+	public void projectLoadEnd (String project, int characters, int callbacks) {
+		if (projectLoad == null) return;
+
+		projectLoad.project = project;
+		projectLoad.characters = characters;
+		projectLoad.callbacks = callbacks;
+		projectLoad.commit();
+		projectLoad = null;
+	}
+
+	@Override
+	public void sequenceLoadBegin (String sequence) {
+		sequenceLoad = null;
+		if (SEQUENCE_LOAD.isEnabled() == false) return;
+
+		sequenceLoad = new SequenceLoadEvent();
+		sequenceLoad.begin();
+	}
+
+	@Override
+	public void sequenceLoadEnd (String sequence, String codec, long compressedBytes, long bytes, int nodes) {
+		if (sequenceLoad == null) return;
+
+		sequenceLoad.sequence = sequence;
+		sequenceLoad.codec = codec;
+		sequenceLoad.compressedBytes = compressedBytes;
+		sequenceLoad.bytes = bytes;
+		sequenceLoad.nodes = nodes;
+		sequenceLoad.commit();
+		sequenceLoad = null;
+	}
+
+	@Override
+	public void stepBegin () {
+		step = null;
+		if (STEP.isEnabled() == false) return;
+
+		step = new StepEvent();
+		step.begin();
+	}
+
+	@Override
+	public void stepEnd (String sequence, int node, ComponentType type) {
+		if (step == null) return;
+
+		step.end();
+
+		if (step.shouldCommit()) {
+			step.sequence = sequence;
+			step.node = node;
+			step.type = type.name();
+			step.commit();
+		}
+
+		step = null;
+	}
+
+	@Override
+	public void callbackBegin () {
+		callback = null;
+		if (CALLBACK.isEnabled() == false) return;
+
+		callback = new CallbackEvent();
+		callback.begin();
+	}
+
+	@Override
+	public void callbackEnd (String callbackText, boolean check, boolean result) {
+		if (callback == null) return;
+
+		callback.end();
+
+		if (callback.shouldCommit()) {
+			callback.callback = callbackText;
+			callback.check = check;
+			callback.result = result;
+			callback.commit();
+		}
+
+		callback = null;
+	}
+
+	@Override
+	public void sequenceEvicted (DialogueSequence sequence, long size) {
+		if (EVICTION.isEnabled() == false) return;
+
+		EvictionEvent event = new EvictionEvent();
+		event.sequence = sequence.getName();
+		event.size = size;
+		event.commit();
+	}
+
+	@Name("jdialogue.ProjectLoad")
+	@Label("Project Load")
+	@Category("JDialogue")
+	public static class ProjectLoadEvent extends Event {
+		@Label("Project")
+		String project;
+
+		@Label("Characters")
+		int characters;
+
+		@Label("Callbacks")
+		int callbacks;
+	}
+
+	@Name("jdialogue.SequenceLoad")
+	@Label("Sequence Load")
+	@Category("JDialogue")
+	public static class SequenceLoadEvent extends Event {
+		@Label("Sequence")
+		String sequence;
+
+		@Label("Codec")
+		String codec;
+
+		@Label("Compressed Bytes")
+		@DataAmount
+		long compressedBytes;
+
+		@Label("Bytes")
+		@Description("Size after decoding")
+		@DataAmount
+		long bytes;
+
+		@Label("Nodes")
+		int nodes;
+	}
+
+	@Name("jdialogue.Step")
+	@Label("Dialogue Step")
+	@Description("Processing of single component")
+	@Category("JDialogue")
+	@StackTrace(false)
+	public static class StepEvent extends Event {
+		@Label("Sequence")
+		String sequence;
+
+		@Label("Node")
+		int node;
+
+		@Label("Type")
+		String type;
+	}
+
+	@Name("jdialogue.Callback")
+	@Label("Callback Dispatch")
+	@Category("JDialogue")
+	@StackTrace(false)
+	public static class CallbackEvent extends Event {
+		@Label("Callback")
+		String callback;
+
+		@Label("Check")
+		boolean check;
+
+		@Label("Result")
+		boolean result;
+	}
+
+	@Name("jdialogue.SequenceEviction")
+	@Label("Sequence Eviction")
+	@Category("JDialogue")
+	public static class EvictionEvent extends Event {
+		@Label("Sequence")
+		String sequence;
+
+		@Label("Size")
+		@DataAmount
+		long size;
+	}
+}
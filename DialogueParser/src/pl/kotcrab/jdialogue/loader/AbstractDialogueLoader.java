@@ -0,0 +1,84 @@
+/*******************************************************************************
+ * Copyright 2014 Pawel Pastuszak
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+
+package pl.kotcrab.jdialogue.loader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * Base for loaders that can only open streams, provides channel and buffer access on top of {@link #open(String)}
+ *
+ * @author Pawel Pastuszak
+ */
+public abstract class AbstractDialogueLoader implements DialogueLoader {
+	@Override
+	public ReadableByteChannel openChannel (String fileName) throws IOException {
+		return Channels.newChannel(open(fileName));
+	}
+
+	@Override
+	public ByteBuffer read (String fileName) throws IOException {
+		InputStream in = open(fileName);
+
+		try {
+			return ByteBuffer.wrap(readFully(in)).asReadOnlyBuffer();
+		} finally {
+			in.close();
+		}
+	}
+
+	@Override
+	public boolean isRandomAccess () {
+		return false;
+	}
+
+	@Override
+	public boolean exists (String fileName) {
+		try {
+			open(fileName).close();
+			return true;
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	static byte[] readFully (InputStream in) throws IOException {
+		byte[] buffer = new byte[8192];
+		int size = 0;
+		int read;
+
+		while ((read = in.read(buffer, size, buffer.length - size)) != -1) {
+			size += read;
+
+			if (size == buffer.length) {
+				byte[] newBuffer = new byte[buffer.length * 2];
+				System.arraycopy(buffer, 0, newBuffer, 0, size);
+				buffer = newBuffer;
+			}
+		}
+
+		if (size == buffer.length) return buffer;
+
+		byte[] result = new byte[size];
+		System.arraycopy(buffer, 0, result, 0, size);
+		return result;
+	}
+}
@@ -0,0 +1,70 @@
+/*******************************************************************************
+ * Copyright 2014 Pawel Pastuszak
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+
+package pl.kotcrab.jdialogue.loader;
+
+import java.io.BufferedInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Loads project from classpath, for example from game jar
+ *
+ * @author Pawel Pastuszak
+ */
+public class ClasspathLoader extends AbstractDialogueLoader {
+	private ClassLoader classLoader;
+	private String projectPath;
+	private String basePath;
+
+	/**
+	 * @param projectPath path of project file on classpath, for example 'dialogues/project.xml'
+	 */
+	public ClasspathLoader (String projectPath) {
+		this(projectPath, ClasspathLoader.class.getClassLoader());
+	}
+
+	public ClasspathLoader (String projectPath, ClassLoader classLoader) {
+		if (projectPath.startsWith("/")) projectPath = projectPath.substring(1);
+
+		this.classLoader = classLoader;
+		this.projectPath = projectPath;
+		this.basePath = projectPath.substring(0, projectPath.lastIndexOf('/') + 1);
+	}
+
+	@Override
+	public InputStream openProject () throws IOException {
+		return openResource(projectPath);
+	}
+
+	@Override
+	public InputStream open (String fileName) throws IOException {
+		return openResource(basePath + fileName);
+	}
+
+	@Override
+	public boolean exists (String fileName) {
+		return classLoader.getResource(basePath + fileName) != null;
+	}
+
+	private InputStream openResource (String path) throws IOException {
+		InputStream in = classLoader.getResourceAsStream(path);
+		if (in == null) throw new FileNotFoundException("Resource not found on classpath: " + path);
+		return new BufferedInputStream(in);
+	}
+}
@@ -14,10 +14,37 @@
  * limitations under the License.
  ******************************************************************************/
 
+
 package pl.kotcrab.jdialogue.loader;
 
-import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
 
+/**
+ * Provides content of exported project. Files other than project file are resolved by name relative to directory of project
+ * file, for example 'test.xml' for sequence 'test'. All returned streams are buffered.
+ *
+ * @author Pawel Pastuszak
+ */
 public interface DialogueLoader {
-	public File getFile ();
+	public InputStream openProject () throws IOException;
+
+	public InputStream open (String fileName) throws IOException;
+
+	public ReadableByteChannel openChannel (String fileName) throws IOException;
+
+	/**
+	 * Reads whole file into buffer, implementations may return memory mapped buffer. Returned buffer is read only.
+	 */
+	public ByteBuffer read (String fileName) throws IOException;
+
+	/**
+	 * @return true if {@link #read(String)} doesn't copy file to heap, because it is memory mapped or already in memory. Windowed
+	 * loading reads paged files of other loaders one page at a time from their streams.
+	 */
+	public boolean isRandomAccess ();
+
+	public boolean exists (String fileName);
 }
@@ -0,0 +1,90 @@
+/*******************************************************************************
+ * Copyright 2014 Pawel Pastuszak
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+
+package pl.kotcrab.jdialogue.loader;
+
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.graphics.Texture;
+import pl.kotcrab.jdialogue.parser.SequenceLookahead;
+import pl.kotcrab.jdialogue.parser.SequenceManifest;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+
+/**
+ * Queues character textures in libGDX {@link AssetManager}, either all textures of sequence from its manifest (before sequence
+ * is started) or textures found by {@link SequenceLookahead} (while it is running). Texture file name is prefix + texture name
+ * + suffix. Every texture is queued once, so reference counts in AssetManager stay at 1 and {@link #unloadAll()} frees them.
+ *
+ * @author Pawel Pastuszak
+ */
+public class GdxAssetPreloader {
+	private AssetManager manager;
+	private String prefix;
+	private String suffix;
+
+	private HashSet<String> queued = new HashSet<>();
+	private ArrayList<String> textureNames = new ArrayList<>();
+
+	/**
+	 * @param prefix for example 'portraits/'
+	 * @param suffix for example '.png'
+	 */
+	public GdxAssetPreloader (AssetManager manager, String prefix, String suffix) {
+		this.manager = manager;
+		this.prefix = prefix;
+		this.suffix = suffix;
+	}
+
+	public String getFileName (String textureName) {
+		return prefix + textureName + suffix;
+	}
+
+	public void queue (SequenceManifest manifest) {
+		for (String textureName : manifest.getTextureNames())
+			queue(textureName);
+	}
+
+	public void queue (SequenceLookahead lookahead) {
+		textureNames.clear();
+		lookahead.getTextureNames(textureNames);
+
+		for (int i = 0; i < textureNames.size(); i++)
+			queue(textureNames.get(i));
+	}
+
+	private void queue (String textureName) {
+		String fileName = getFileName(textureName);
+		if (queued.add(fileName)) manager.load(fileName, Texture.class);
+	}
+
+	/** @return true if all textures of sequence are loaded, call {@link AssetManager#update()} until it is */
+	public boolean isLoaded (SequenceManifest manifest) {
+		for (String textureName : manifest.getTextureNames())
+			if (manager.isLoaded(getFileName(textureName)) == false) return false;
+
+		return true;
+	}
+
+	/** Unloads all textures queued by this preloader */
+	public void unloadAll () {
+		for (String fileName : queued)
+			manager.unload(fileName);
+
+		queued.clear();
+	}
+}
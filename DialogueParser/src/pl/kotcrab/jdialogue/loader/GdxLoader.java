@@ -14,13 +14,23 @@
  * limitations under the License.
  ******************************************************************************/
 
+
 package pl.kotcrab.jdialogue.loader;
 
 import com.badlogic.gdx.files.FileHandle;
 
-import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Loads project using libgdx {@link FileHandle}, works with every file type including internal files packed in apk or jar
+ *
+ * @author Pawel Pastuszak
+ */
+public class GdxLoader extends AbstractDialogueLoader {
+	private static final int BUFFER_SIZE = 8192;
 
-public class GdxLoader implements DialogueLoader {
 	private FileHandle file;
 
 	public GdxLoader (FileHandle file) {
@@ -28,8 +38,34 @@ public class GdxLoader implements DialogueLoader {
 	}
 
 	@Override
-	public File getFile () {
-		return new File(file.path());
+	public InputStream openProject () throws IOException {
+		return openHandle(file);
+	}
+
+	@Override
+	public InputStream open (String fileName) throws IOException {
+		return openHandle(file.sibling(fileName));
+	}
+
+	@Override
+	public ByteBuffer read (String fileName) throws IOException {
+		try {
+			return ByteBuffer.wrap(file.sibling(fileName).readBytes()).asReadOnlyBuffer();
+		} catch (RuntimeException e) { // GdxRuntimeException
+			throw new IOException("Could not read " + fileName, e);
+		}
+	}
+
+	@Override
+	public boolean exists (String fileName) {
+		return file.sibling(fileName).exists();
 	}
 
+	private InputStream openHandle (FileHandle handle) throws IOException {
+		try {
+			return handle.read(BUFFER_SIZE);
+		} catch (RuntimeException e) { // GdxRuntimeException
+			throw new IOException("Could not open " + handle.path(), e);
+		}
+	}
 }
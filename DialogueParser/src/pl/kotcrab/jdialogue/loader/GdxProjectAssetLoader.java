@@ -0,0 +1,71 @@
+/*******************************************************************************
+ * Copyright 2014 Pawel Pastuszak
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package pl.kotcrab.jdialogue.loader;
+
+import com.badlogic.gdx.assets.AssetDescriptor;
+import com.badlogic.gdx.assets.AssetLoaderParameters;
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.assets.loaders.AsynchronousAssetLoader;
+import com.badlogic.gdx.assets.loaders.FileHandleResolver;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Array;
+import pl.kotcrab.jdialogue.parser.Project;
+import pl.kotcrab.jdialogue.parser.impl.JDOMDialogueParser;
+
+/**
+ * Loads exported project.xml in libGDX {@link AssetManager}. Project is parsed on AssetManager loading thread, GL thread only
+ * takes finished object. Parser is then created without reading any files:
+ *
+ * <pre>
+ * manager.setLoader(Project.class, new GdxProjectAssetLoader(new InternalFileHandleResolver()));
+ * manager.load("dialogue/project.xml", Project.class);
+ * ...
+ * FileHandle file = Gdx.files.internal("dialogue/project.xml");
+ * parser = new JDOMDialogueParser(new GdxLoader(file), manager.get("dialogue/project.xml", Project.class), maxChars);
+ * </pre>
+ *
+ * @author Pawel Pastuszak
+ * @see GdxSequenceAssetLoader
+ */
+public class GdxProjectAssetLoader extends AsynchronousAssetLoader<Project, GdxProjectAssetLoader.ProjectParameter> {
+	private Project project;
+
+	public GdxProjectAssetLoader (FileHandleResolver resolver) {
+		super(resolver);
+	}
+
+	@Override
+	public void loadAsync (AssetManager manager, String fileName, FileHandle file, ProjectParameter parameter) {
+		project = JDOMDialogueParser.loadProject(new GdxLoader(file));
+	}
+
+	@Override
+	public Project loadSync (AssetManager manager, String fileName, FileHandle file, ProjectParameter parameter) {
+		Project project = this.project;
+		this.project = null;
+		return project;
+	}
+
+	@SuppressWarnings("rawtypes")
+	@Override
+	public Array<AssetDescriptor> getDependencies (String fileName, FileHandle file, ProjectParameter parameter) {
+		return null;
+	}
+
+	public static class ProjectParameter extends AssetLoaderParameters<Project> {
+	}
+}
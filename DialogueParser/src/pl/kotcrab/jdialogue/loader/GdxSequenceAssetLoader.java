@@ -0,0 +1,110 @@
+/*******************************************************************************
+ * Copyright 2014 Pawel Pastuszak
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package pl.kotcrab.jdialogue.loader;
+
+import com.badlogic.gdx.assets.AssetDescriptor;
+import com.badlogic.gdx.assets.AssetLoaderParameters;
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.assets.loaders.AsynchronousAssetLoader;
+import com.badlogic.gdx.assets.loaders.FileHandleResolver;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Array;
+import org.jdom2.JDOMException;
+import pl.kotcrab.jdialogue.parser.DialogueParserException;
+import pl.kotcrab.jdialogue.parser.DialogueSequence;
+import pl.kotcrab.jdialogue.parser.Project;
+import pl.kotcrab.jdialogue.parser.VariableStore;
+import pl.kotcrab.jdialogue.parser.expression.ExpressionCompiler;
+import pl.kotcrab.jdialogue.parser.impl.JDOMSequenceReader;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Loads exported sequence xml file in libGDX {@link AssetManager}. Sequence is decoded, parsed and its conditions are compiled
+ * on AssetManager loading thread, then it is started with {@link pl.kotcrab.jdialogue.parser.impl.JDOMDialogueParser#startSequence(DialogueSequence)}.
+ * Project of sequence is loaded first as dependency, it is needed for codec name. By default project is 'project.xml' in the
+ * same directory as sequence.
+ *
+ * <pre>
+ * manager.setLoader(DialogueSequence.class, new GdxSequenceAssetLoader(new InternalFileHandleResolver()));
+ * SequenceParameter parameter = new SequenceParameter();
+ * parameter.variables = parser.getVariableStore();
+ * manager.load("dialogue/test.xml", DialogueSequence.class, parameter);
+ * ...
+ * parser.startSequence(manager.get("dialogue/test.xml", DialogueSequence.class));
+ * </pre>
+ *
+ * Loaded sequences are not thread safe, parsers sharing sequence from AssetManager must run on the same thread.
+ *
+ * @author Pawel Pastuszak
+ */
+public class GdxSequenceAssetLoader extends AsynchronousAssetLoader<DialogueSequence, GdxSequenceAssetLoader.SequenceParameter> {
+	private static final int BUFFER_SIZE = 8192;
+
+	private DialogueSequence sequence;
+
+	public GdxSequenceAssetLoader (FileHandleResolver resolver) {
+		super(resolver);
+	}
+
+	@Override
+	public void loadAsync (AssetManager manager, String fileName, FileHandle file, SequenceParameter parameter) {
+		Project project = manager.get(getProjectFile(fileName, parameter), Project.class);
+		VariableStore variables = parameter != null && parameter.variables != null ? parameter.variables : new VariableStore();
+		String name = file.nameWithoutExtension();
+
+		try (InputStream in = project.getCodec().decode(file.read(BUFFER_SIZE))) {
+			sequence = JDOMSequenceReader.read(name, in, new ExpressionCompiler(variables));
+		} catch (JDOMException | IOException e) {
+			e.printStackTrace();
+			throw new DialogueParserException("Could not load sequence: " + name);
+		}
+	}
+
+	@Override
+	public DialogueSequence loadSync (AssetManager manager, String fileName, FileHandle file, SequenceParameter parameter) {
+		DialogueSequence sequence = this.sequence;
+		this.sequence = null;
+		return sequence;
+	}
+
+	@SuppressWarnings("rawtypes")
+	@Override
+	public Array<AssetDescriptor> getDependencies (String fileName, FileHandle file, SequenceParameter parameter) {
+		Array<AssetDescriptor> dependencies = new Array<>();
+		dependencies.add(new AssetDescriptor<>(getProjectFile(fileName, parameter), Project.class));
+		return dependencies;
+	}
+
+	private String getProjectFile (String fileName, SequenceParameter parameter) {
+		if (parameter != null && parameter.projectFile != null) return parameter.projectFile;
+
+		return fileName.substring(0, fileName.lastIndexOf('/') + 1) + "project.xml";
+	}
+
+	public static class SequenceParameter extends AssetLoaderParameters<DialogueSequence> {
+		/** Asset file name of project, null for 'project.xml' next to sequence */
+		public String projectFile;
+
+		/**
+		 * Variables used by conditions of sequence, must be the same store as the one set in parser. Null for empty store, only
+		 * for sequences without conditions.
+		 */
+		public VariableStore variables;
+	}
+}
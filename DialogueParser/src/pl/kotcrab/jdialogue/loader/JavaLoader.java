@@ -14,19 +14,66 @@
  * limitations under the License.
  ******************************************************************************/
 
+
 package pl.kotcrab.jdialogue.loader;
 
+import java.io.BufferedInputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
 
+/**
+ * Loads project from file system. Files read as buffers are memory mapped.
+ *
+ * @author Pawel Pastuszak
+ */
 public class JavaLoader implements DialogueLoader {
 	private File file;
+	private File dir;
 
 	public JavaLoader (File file) {
 		this.file = file;
+		this.dir = file.getAbsoluteFile().getParentFile();
+	}
+
+	@Override
+	public InputStream openProject () throws IOException {
+		return new BufferedInputStream(new FileInputStream(file));
+	}
+
+	@Override
+	public InputStream open (String fileName) throws IOException {
+		return new BufferedInputStream(new FileInputStream(new File(dir, fileName)));
+	}
+
+	@Override
+	public ReadableByteChannel openChannel (String fileName) throws IOException {
+		return new FileInputStream(new File(dir, fileName)).getChannel();
+	}
+
+	@Override
+	public ByteBuffer read (String fileName) throws IOException {
+		RandomAccessFile raf = new RandomAccessFile(new File(dir, fileName), "r");
+
+		try {
+			return raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, raf.length());
+		} finally {
+			raf.close();
+		}
+	}
+
+	@Override
+	public boolean isRandomAccess () {
+		return true;
 	}
 
 	@Override
-	public File getFile () {
-		return file;
+	public boolean exists (String fileName) {
+		return new File(dir, fileName).exists();
 	}
 }
@@ -0,0 +1,77 @@
+/*******************************************************************************
+ * Copyright 2014 Pawel Pastuszak
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+
+package pl.kotcrab.jdialogue.loader;
+
+import java.io.ByteArrayInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+
+/**
+ * Loads project from byte arrays kept in memory, for example downloaded from server or unpacked from custom archive
+ *
+ * @author Pawel Pastuszak
+ */
+public class MemoryLoader extends AbstractDialogueLoader {
+	private byte[] project;
+	private HashMap<String, byte[]> files = new HashMap<>();
+
+	public MemoryLoader (byte[] project) {
+		this.project = project;
+	}
+
+	/**
+	 * Adds file, for example exported sequence 'test.xml'. Array is not copied.
+	 */
+	public void put (String fileName, byte[] data) {
+		files.put(fileName, data);
+	}
+
+	@Override
+	public InputStream openProject () throws IOException {
+		return new ByteArrayInputStream(project);
+	}
+
+	@Override
+	public InputStream open (String fileName) throws IOException {
+		return new ByteArrayInputStream(get(fileName));
+	}
+
+	@Override
+	public ByteBuffer read (String fileName) throws IOException {
+		return ByteBuffer.wrap(get(fileName)).asReadOnlyBuffer();
+	}
+
+	@Override
+	public boolean isRandomAccess () {
+		return true;
+	}
+
+	@Override
+	public boolean exists (String fileName) {
+		return files.containsKey(fileName);
+	}
+
+	private byte[] get (String fileName) throws IOException {
+		byte[] data = files.get(fileName);
+		if (data == null) throw new FileNotFoundException("File not found: " + fileName);
+		return data;
+	}
+}
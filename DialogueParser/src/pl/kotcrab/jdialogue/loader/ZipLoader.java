@@ -0,0 +1,146 @@
+/*******************************************************************************
+ * Copyright 2014 Pawel Pastuszak
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+
+package pl.kotcrab.jdialogue.loader;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Enumeration;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Loads project directly from zip or jar file, for example from mod archive. Central directory is read once when loader is
+ * created and {@link ZipFile} keeps it as index, opening sequence only seeks to its entry and inflates it while it is read,
+ * nothing is extracted to disk. Loader keeps archive open until {@link #close()} is called. Can be used from many threads.
+ *
+ * @author Pawel Pastuszak
+ */
+public class ZipLoader extends AbstractDialogueLoader implements Closeable {
+	private ZipFile zip;
+	private String projectPath;
+	private String basePath;
+
+	/**
+	 * Opens archive and finds project file in it, project.xml in root of archive is preferred, otherwise project.xml with
+	 * shortest path is used
+	 */
+	public ZipLoader (File file) throws IOException {
+		this(new ZipFile(file), null);
+	}
+
+	/**
+	 * @param projectPath path of project file in archive, for example 'dialogues/project.xml'
+	 */
+	public ZipLoader (File file, String projectPath) throws IOException {
+		this(new ZipFile(file), projectPath);
+	}
+
+	private ZipLoader (ZipFile zip, String projectPath) throws IOException {
+		this.zip = zip;
+
+		if (projectPath == null) projectPath = findProject(zip);
+		if (projectPath.startsWith("/")) projectPath = projectPath.substring(1);
+
+		if (zip.getEntry(projectPath) == null) {
+			zip.close();
+			throw new FileNotFoundException("Project file not found in archive: " + projectPath);
+		}
+
+		this.projectPath = projectPath;
+		this.basePath = projectPath.substring(0, projectPath.lastIndexOf('/') + 1);
+	}
+
+	private static String findProject (ZipFile zip) throws IOException {
+		String found = null;
+		Enumeration<? extends ZipEntry> entries = zip.entries();
+
+		while (entries.hasMoreElements()) {
+			String name = entries.nextElement().getName();
+
+			if (name.equals("project.xml") || name.endsWith("/project.xml")) {
+				if (found == null || name.length() < found.length()) found = name;
+			}
+		}
+
+		if (found == null) {
+			zip.close();
+			throw new FileNotFoundException("Archive does not contain project.xml: " + zip.getName());
+		}
+
+		return found;
+	}
+
+	@Override
+	public InputStream openProject () throws IOException {
+		return openEntry(getEntry(projectPath));
+	}
+
+	@Override
+	public InputStream open (String fileName) throws IOException {
+		return openEntry(getEntry(basePath + fileName));
+	}
+
+	/**
+	 * Size of entries is known from central directory, so file is read into buffer of exact size without copying
+	 */
+	@Override
+	public ByteBuffer read (String fileName) throws IOException {
+		ZipEntry entry = getEntry(basePath + fileName);
+		if (entry.getSize() < 0 || entry.getSize() > Integer.MAX_VALUE) return super.read(fileName);
+
+		byte[] data = new byte[(int) entry.getSize()];
+
+		try (InputStream in = zip.getInputStream(entry)) {
+			int size = 0;
+
+			while (size < data.length) {
+				int read = in.read(data, size, data.length - size);
+				if (read == -1) throw new EOFException("Unexpected end of entry: " + entry.getName());
+				size += read;
+			}
+		}
+
+		return ByteBuffer.wrap(data).asReadOnlyBuffer();
+	}
+
+	@Override
+	public boolean exists (String fileName) {
+		return zip.getEntry(basePath + fileName) != null;
+	}
+
+	private ZipEntry getEntry (String path) throws FileNotFoundException {
+		ZipEntry entry = zip.getEntry(path);
+		if (entry == null) throw new FileNotFoundException("Entry not found in archive: " + path);
+		return entry;
+	}
+
+	private InputStream openEntry (ZipEntry entry) throws IOException {
+		return new BufferedInputStream(zip.getInputStream(entry));
+	}
+
+	@Override
+	public void close () throws IOException {
+		zip.close();
+	}
+}
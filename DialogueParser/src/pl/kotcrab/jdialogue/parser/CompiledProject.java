@@ -0,0 +1,36 @@
+/*******************************************************************************
+ * Copyright 2014 Pawel Pastuszak
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package pl.kotcrab.jdialogue.parser;
+
+import pl.kotcrab.jdialogue.parser.expression.ExpressionCompiler;
+
+/**
+ * Project compiled into game code. Editor generates implementation of this interface and class with static tables for each
+ * sequence when Java source export is enabled, so loading project and sequences doesn't parse any files and doesn't use
+ * reflection. Use with {@link pl.kotcrab.jdialogue.parser.impl.JDOMDialogueParser#JDOMDialogueParser(CompiledProject, int)}.
+ *
+ * @author Pawel Pastuszak
+ */
+public interface CompiledProject {
+	public Project getProject ();
+
+	/**
+	 * @param compiler used to compile expressions of condition components, may be null
+	 * @return sequence or null if project doesn't have sequence with such name
+	 */
+	public DialogueSequence getSequence (String name, ExpressionCompiler compiler);
+}
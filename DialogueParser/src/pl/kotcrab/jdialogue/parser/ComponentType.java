@@ -17,5 +17,5 @@
 package pl.kotcrab.jdialogue.parser;
 
 public enum ComponentType {
-	TEXT, CHOICE, RANDOM, CALLBACK, CBCHECK, END, RELAY
+	TEXT, CHOICE, RANDOM, CALLBACK, CBCHECK, END, RELAY, START, CONDITION
 }
@@ -0,0 +1,179 @@
+/*******************************************************************************
+ * Copyright 2014 Pawel Pastuszak
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package pl.kotcrab.jdialogue.parser;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Fixed size history of recently shown lines and selected choices, for scrolling back through conversation. Entries reference
+ * sequence, node and line index, text is resolved when needed with
+ * {@link pl.kotcrab.jdialogue.parser.impl.JDOMDialogueParser#getBacklogText(Entry)}. Only lines of text with variables keep
+ * reference to text that was shown, because it can't be resolved again once values of variables change. When backlog is full
+ * oldest entry is overwritten, so backlog never grows.
+ * <p>
+ * Line index of text node is index of wrapped line, for choice node it is index of selected choice or {@link #TITLE} for
+ * choice title. Iterator and entry returned by it are reused, they must not be kept or used by two loops at the same time.
+ *
+ * @author Pawel Pastuszak
+ */
+public class DialogueBacklog implements Iterable<DialogueBacklog.Entry> {
+	public static final int TITLE = -1;
+
+	private String[] sequences;
+	private int[] nodes;
+	private int[] lines;
+	private String[] texts;
+
+	private int head; // index of oldest entry
+	private int size;
+
+	private Entry entry = new Entry();
+	private BacklogIterator iterator = new BacklogIterator();
+
+	public DialogueBacklog (int capacity) {
+		if (capacity < 1) throw new IllegalArgumentException("capacity must be at least 1");
+
+		sequences = new String[capacity];
+		nodes = new int[capacity];
+		lines = new int[capacity];
+		texts = new String[capacity];
+	}
+
+	public void add (String sequence, int node, int line) {
+		add(sequence, node, line, null);
+	}
+
+	/**
+	 * @param text text that was shown, only for lines that can't be resolved from node later, null otherwise
+	 */
+	public void add (String sequence, int node, int line, String text) {
+		int index;
+
+		if (size == sequences.length) {
+			index = head;
+			head = (head + 1) % sequences.length;
+		} else
+			index = (head + size++) % sequences.length;
+
+		sequences[index] = sequence;
+		nodes[index] = node;
+		lines[index] = line;
+		texts[index] = text;
+	}
+
+	public void clear () {
+		for (int i = 0; i < sequences.length; i++) {
+			sequences[i] = null;
+			texts[i] = null;
+		}
+
+		head = 0;
+		size = 0;
+	}
+
+	public int size () {
+		return size;
+	}
+
+	public int getCapacity () {
+		return sequences.length;
+	}
+
+	/**
+	 * @param index 0 is oldest entry, size - 1 newest
+	 */
+	public String getSequence (int index) {
+		return sequences[toSlot(index)];
+	}
+
+	public int getNode (int index) {
+		return nodes[toSlot(index)];
+	}
+
+	public int getLine (int index) {
+		return lines[toSlot(index)];
+	}
+
+	/**
+	 * @return text that was shown, null if it has to be resolved from node
+	 */
+	public String getText (int index) {
+		return texts[toSlot(index)];
+	}
+
+	private int toSlot (int index) {
+		if (index < 0 || index >= size) throw new IndexOutOfBoundsException("index: " + index + ", size: " + size);
+		return (head + index) % sequences.length;
+	}
+
+	/**
+	 * @return reused iterator from oldest to newest entry
+	 */
+	@Override
+	public Iterator<Entry> iterator () {
+		iterator.next = 0;
+		return iterator;
+	}
+
+	/** View of single backlog entry, valid until next call of {@link Iterator#next()} */
+	public class Entry {
+		private int index;
+
+		public int getIndex () {
+			return index;
+		}
+
+		public String getSequence () {
+			return DialogueBacklog.this.getSequence(index);
+		}
+
+		public int getNode () {
+			return DialogueBacklog.this.getNode(index);
+		}
+
+		public int getLine () {
+			return DialogueBacklog.this.getLine(index);
+		}
+
+		public String getText () {
+			return DialogueBacklog.this.getText(index);
+		}
+	}
+
+	private class BacklogIterator implements Iterator<Entry> {
+		int next;
+
+		@Override
+		public boolean hasNext () {
+			return next < size;
+		}
+
+		@Override
+		public Entry next () {
+			if (next >= size) throw new NoSuchElementException();
+
+			entry.index = next++;
+			return entry;
+		}
+
+		@Override
+		public void remove () {
+			throw new UnsupportedOperationException();
+		}
+	}
+}
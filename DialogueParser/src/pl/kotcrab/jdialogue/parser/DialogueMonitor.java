@@ -0,0 +1,55 @@
+/*******************************************************************************
+ * Copyright 2014 Pawel Pastuszak
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package pl.kotcrab.jdialogue.parser;
+
+/**
+ * Receives timing of work done by parser, so dialogue costs can be shown by profilers next to rendering and GC. Every begin
+ * method is followed by matching end method on the same thread, callbacks are reported inside steps. When parser has no monitor
+ * (default) it doesn't read clocks or count bytes, so monitoring costs nothing.
+ * <p>
+ * Parser calls monitor only from thread that uses the parser, monitor shouldn't be shared by parsers used on different threads.
+ * Cache evictions are reported when monitor is also set as {@link EvictionListener} of {@link SequenceCache}.
+ *
+ * @see pl.kotcrab.jdialogue.jfr.JfrDialogueMonitor
+ * @author Pawel Pastuszak
+ */
+public interface DialogueMonitor extends EvictionListener {
+	public void projectLoadBegin ();
+
+	public void projectLoadEnd (String project, int characters, int callbacks);
+
+	public void sequenceLoadBegin (String sequence);
+
+	/**
+	 * @param codec name of codec sequence was decoded with, null for compiled sequences
+	 * @param compressedBytes bytes read from loader
+	 * @param bytes bytes after decoding, equal to compressedBytes for paged sequences that aren't decoded
+	 */
+	public void sequenceLoadEnd (String sequence, String codec, long compressedBytes, long bytes, int nodes);
+
+	public void stepBegin ();
+
+	public void stepEnd (String sequence, int node, ComponentType type);
+
+	public void callbackBegin ();
+
+	/**
+	 * @param check true for callback check components
+	 * @param result result returned by listeners of callback check, false for callbacks
+	 */
+	public void callbackEnd (String callback, boolean check, boolean result);
+}
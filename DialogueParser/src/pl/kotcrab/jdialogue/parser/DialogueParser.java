@@ -45,6 +45,14 @@ public abstract class DialogueParser {
 
 	public abstract boolean isCurrentMsgFinished ();
 
+	/**
+	 * @return style runs of line last returned by {@link #getMsg()}, null if text doesn't use markup. Text of returned object is
+	 * same as line returned by getMsg. Default implementation returns null, parsers that support markup override it.
+	 */
+	public StyledText getStyledMsg () {
+		return null;
+	}
+
 	//==============================FOR CHOICE COMPONENT ONLY==================================
 	public abstract String[] getChoiceData ();
 
@@ -0,0 +1,36 @@
+/*******************************************************************************
+ * Copyright 2014 Pawel Pastuszak
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package pl.kotcrab.jdialogue.parser;
+
+/**
+ * Source of random numbers used by parser for random components. Whole state must fit in single long, so it can be stored in
+ * session snapshots and restored to repeat exactly the same decisions.
+ *
+ * @author Pawel Pastuszak
+ */
+public interface DialogueRandom {
+	/**
+	 * @return random number from 0 (inclusive) to bound (exclusive)
+	 */
+	public int nextInt (int bound);
+
+	public long nextLong ();
+
+	public long getState ();
+
+	public void setState (long state);
+}
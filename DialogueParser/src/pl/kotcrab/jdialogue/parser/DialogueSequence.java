@@ -0,0 +1,48 @@
+/*******************************************************************************
+ * Copyright 2014 Pawel Pastuszak
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+
+package pl.kotcrab.jdialogue.parser;
+
+/**
+ * Source of nodes of single sequence. Implementations may keep all nodes in memory or load them when needed.
+ *
+ * @author Pawel Pastuszak
+ */
+public interface DialogueSequence {
+	public String getName ();
+
+	/**
+	 * @return id of node connected to 'Start' component
+	 */
+	public int getStartTarget ();
+
+	public int getNodeCount ();
+
+	public SequenceNode getNode (int id);
+
+	/**
+	 * @return hash of sequence content computed by editor when sequence was exported, it changes when exported nodes change.
+	 * 0 if sequence was exported before hashes were added.
+	 */
+	public long getHash ();
+
+	/**
+	 * @return estimated heap size retained by sequence in bytes, see {@link MemoryEstimator}. Value may change when
+	 * implementation loads or drops nodes.
+	 */
+	public long estimateSize ();
+}
@@ -0,0 +1,29 @@
+/*******************************************************************************
+ * Copyright 2014 Pawel Pastuszak
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package pl.kotcrab.jdialogue.parser;
+
+/**
+ * Notified when {@link SequenceCache} drops sequence to stay within its memory budget. Listener must not modify cache.
+ *
+ * @author Pawel Pastuszak
+ */
+public interface EvictionListener {
+	/**
+	 * @param size estimated size of sequence and its wrapped lines at the moment of eviction
+	 */
+	public void sequenceEvicted (DialogueSequence sequence, long size);
+}
@@ -0,0 +1,123 @@
+/*******************************************************************************
+ * Copyright 2014 Pawel Pastuszak
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package pl.kotcrab.jdialogue.parser;
+
+/**
+ * Estimates retained heap size of runtime objects. Estimates assume 64 bit JVM with compressed references (12 byte object
+ * header, 4 byte references, 8 byte alignment) and strings backed by char arrays, they are meant for budgeting, not exact
+ * measurement. Strings shared between objects are counted by every owner.
+ *
+ * @author Pawel Pastuszak
+ */
+public final class MemoryEstimator {
+	public static final int OBJECT_HEADER = 12;
+	public static final int ARRAY_HEADER = 16;
+	public static final int REFERENCE = 4;
+
+	/** String object with value, hash and the char array header */
+	private static final int STRING_OVERHEAD = 24 + ARRAY_HEADER;
+	/** Average size of one node of compiled expression, expressions are estimated from length of their source */
+	private static final int EXPRESSION_NODE = 24;
+
+	private MemoryEstimator () {
+	}
+
+	public static long align (long size) {
+		return (size + 7) & ~7L;
+	}
+
+	/**
+	 * @param fields total size of object fields
+	 */
+	public static long object (int fields) {
+		return align(OBJECT_HEADER + fields);
+	}
+
+	public static long string (String string) {
+		if (string == null) return 0;
+		return STRING_OVERHEAD + align(string.length() * 2L);
+	}
+
+	public static long intArray (int[] array) {
+		if (array == null) return 0;
+		return align(ARRAY_HEADER + array.length * 4L);
+	}
+
+	public static long byteArray (byte[] array) {
+		if (array == null) return 0;
+		return align(ARRAY_HEADER + array.length);
+	}
+
+	public static long referenceArray (int length) {
+		return align(ARRAY_HEADER + (long) length * REFERENCE);
+	}
+
+	public static long stringArray (String[] array) {
+		if (array == null) return 0;
+
+		long size = referenceArray(array.length);
+		for (int i = 0; i < array.length; i++)
+			size += string(array[i]);
+
+		return size;
+	}
+
+	/**
+	 * @return size of HashMap structure with given number of entries, without keys and values
+	 */
+	public static long hashMap (int entries) {
+		int capacity = 16;
+		while (capacity * 0.75f < entries)
+			capacity <<= 1;
+
+		return object(4 * 4 + 4 * REFERENCE) + referenceArray(capacity) + entries * object(4 + 3 * REFERENCE);
+	}
+
+	public static long node (SequenceNode node) {
+		long size = object(2 * 4 + 8 * REFERENCE);
+
+		size += intArray(node.getTargets());
+		size += string(node.getText());
+		size += intArray(node.getCallbacks());
+		size += stringArray(node.getChoices());
+		if (node.getCondition() != null) size += EXPRESSION_NODE * (node.getText().length() / 2 + 1);
+
+		TextTemplate template = node.getTemplate();
+		if (template != null) {
+			size += object(2 * REFERENCE) + stringArray(template.getLiterals()) + referenceArray(template.getVariableCount());
+			for (int i = 0; i < template.getVariableCount(); i++)
+				size += string(template.getVariableName(i));
+		}
+
+		StyledText styled = node.getStyledText();
+		if (styled != null) size += object(3 * REFERENCE) + string(styled.getText()) + intArray(styled.getRuns()) + intArray(styled.getPauses());
+
+		return size;
+	}
+
+	/**
+	 * @return size of array of nodes and all nodes in it, null elements are skipped
+	 */
+	public static long nodes (SequenceNode[] nodes) {
+		long size = referenceArray(nodes.length);
+
+		for (int i = 0; i < nodes.length; i++)
+			if (nodes[i] != null) size += node(nodes[i]);
+
+		return size;
+	}
+}
@@ -16,24 +16,33 @@
 
 package pl.kotcrab.jdialogue.parser;
 
-import java.util.ArrayList;
+import pl.kotcrab.jdialogue.codec.Codec;
+import pl.kotcrab.jdialogue.codec.Codecs;
+
 import java.util.HashMap;
 
+/**
+ * Exported project. Characters and callbacks are renumbered during export, id of each of them is equal to its index in array.
+ *
+ * @author Pawel Pastuszak
+ */
 public class Project {
 	private String name;
-	private boolean gzipExport;
-	private ArrayList<PCharacter> characterList;
-	private HashMap<Integer, Integer> characterMap;
-	private ArrayList<PCallback> callbackList;
-	private HashMap<Integer, Integer> callbackMap;
+	private Codec codec;
+	private PCharacter[] characters;
+	private PCallback[] callbacks;
+	private HashMap<String, SequenceManifest> manifests;
 
-	public Project (String name, boolean gzipExport, ArrayList<PCharacter> characterList, HashMap<Integer, Integer> characterMap, ArrayList<PCallback> callbackList, HashMap<Integer, Integer> callbackMap) {
+	/**
+	 * @param codec codec used to encode exported sequences
+	 * @param manifests manifests of exported sequences, empty for projects exported before manifests were added
+	 */
+	public Project (String name, Codec codec, PCharacter[] characters, PCallback[] callbacks, HashMap<String, SequenceManifest> manifests) {
 		this.name = name;
-		this.gzipExport = gzipExport;
-		this.characterList = characterList;
-		this.characterMap = characterMap;
-		this.callbackList = callbackList;
-		this.callbackMap = callbackMap;
+		this.codec = codec;
+		this.characters = characters;
+		this.callbacks = callbacks;
+		this.manifests = manifests;
 	}
 
 	public String getName () {
@@ -41,22 +50,62 @@ public class Project {
 	}
 
 	public boolean isGzipExport () {
-		return gzipExport;
+		return codec == Codecs.GZIP;
+	}
+
+	public Codec getCodec () {
+		return codec;
 	}
 
-	public ArrayList<PCharacter> getCharacterList () {
-		return characterList;
+	public PCharacter getCharacter (int id) {
+		return characters[id];
 	}
 
-	public HashMap<Integer, Integer> getCharacterMap () {
-		return characterMap;
+	public PCallback getCallback (int id) {
+		return callbacks[id];
 	}
 
-	public ArrayList<PCallback> getCallbackList () {
-		return callbackList;
+	/**
+	 * @return manifest of sequence, null if there is no such sequence or project was exported by older version of editor
+	 */
+	public SequenceManifest getManifest (String sequence) {
+		return manifests.get(sequence);
 	}
 
-	public HashMap<Integer, Integer> getCallbackMap () {
-		return callbackMap;
+	/**
+	 * @return all characters, array is shared and must not be modified
+	 */
+	public PCharacter[] getCharacters () {
+		return characters;
+	}
+
+	/**
+	 * @return all callbacks, array is shared and must not be modified
+	 */
+	public PCallback[] getCallbacks () {
+		return callbacks;
+	}
+
+	/**
+	 * @return estimated heap size of project data in bytes: characters, callbacks and manifests, see {@link MemoryEstimator}
+	 */
+	public long estimateSize () {
+		long size = MemoryEstimator.object(5 * MemoryEstimator.REFERENCE) + MemoryEstimator.string(name);
+
+		size += MemoryEstimator.referenceArray(characters.length);
+		for (PCharacter character : characters)
+			size += MemoryEstimator.object(4 + 2 * MemoryEstimator.REFERENCE) + MemoryEstimator.string(character.getName()) + MemoryEstimator.string(character.getTextureName());
+
+		size += MemoryEstimator.referenceArray(callbacks.length);
+		for (PCallback callback : callbacks)
+			size += MemoryEstimator.object(4 + MemoryEstimator.REFERENCE) + MemoryEstimator.string(callback.getName());
+
+		size += MemoryEstimator.hashMap(manifests.size());
+		for (SequenceManifest manifest : manifests.values()) {
+			size += MemoryEstimator.object(3 * MemoryEstimator.REFERENCE) + MemoryEstimator.string(manifest.getSequence());
+			size += MemoryEstimator.intArray(manifest.getCharacters()) + MemoryEstimator.stringArray(manifest.getTextureNames());
+		}
+
+		return size;
 	}
 }
@@ -0,0 +1,202 @@
+/*******************************************************************************
+ * Copyright 2014 Pawel Pastuszak
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package pl.kotcrab.jdialogue.parser;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Remembers which text nodes were already shown, independently of save games, for 'skip read text'. Every sequence has bitset
+ * of long words indexed by node id, so sequence of 1000 nodes takes 128 bytes in memory and in saved file.
+ * <p>
+ * Node ids change when sequence is exported again, so bitset is stored with hash of sequence content computed by
+ * editor during export (see {@link DialogueSequence#getHash()}). When sequence is marked with different hash, for example after game update, its seen nodes
+ * are forgotten.
+ * <p>
+ * Used by {@link pl.kotcrab.jdialogue.parser.impl.JDOMDialogueParser#setSeenNodes(SeenNodes)}, may be shared by parsers running
+ * on the same thread.
+ *
+ * <pre>
+ * file: int magic, int version, int sequenceCount, sequences (UTF name, long hash, int wordCount, long words)
+ * </pre>
+ *
+ * @author Pawel Pastuszak
+ */
+public class SeenNodes {
+	private static final int MAGIC = 0x4A44534E; // JDSN
+	private static final int VERSION = 2;
+
+	private HashMap<String, SeenSequence> sequences = new HashMap<>();
+
+	// most nodes are marked in the same sequence as previous one
+	private String lastName;
+	private SeenSequence last;
+
+	/**
+	 * Marks node as seen. If sequence was marked before with different hash, its previously seen nodes are forgotten.
+	 * @param hash hash of sequence content returned by {@link DialogueSequence#getHash()}
+	 * @return true if node was already seen before
+	 */
+	public boolean mark (String sequence, long hash, int node) {
+		SeenSequence seen = get(sequence);
+
+		if (seen == null) {
+			seen = new SeenSequence(hash, 1);
+			sequences.put(sequence, seen);
+			lastName = sequence;
+			last = seen;
+		} else if (seen.hash != hash) {
+			seen.hash = hash;
+			Arrays.fill(seen.bits, 0);
+		}
+
+		long[] bits = seen.bits;
+		int word = node >>> 6;
+
+		if (word >= bits.length) {
+			bits = Arrays.copyOf(bits, Math.max(word + 1, bits.length * 2));
+			seen.bits = bits;
+		}
+
+		long mask = 1L << node; // shift uses only low 6 bits
+		boolean wasSeen = (bits[word] & mask) != 0;
+		bits[word] |= mask;
+		return wasSeen;
+	}
+
+	/**
+	 * @param hash hash of sequence content returned by {@link DialogueSequence#getHash()}
+	 * @return true if node was seen, false if it wasn't or sequence was marked with different hash
+	 */
+	public boolean isSeen (String sequence, long hash, int node) {
+		SeenSequence seen = get(sequence);
+		if (seen == null || seen.hash != hash) return false;
+
+		int word = node >>> 6;
+		return word < seen.bits.length && (seen.bits[word] & (1L << node)) != 0;
+	}
+
+	/**
+	 * @return number of seen nodes in sequence
+	 */
+	public int getSeenCount (String sequence) {
+		SeenSequence seen = get(sequence);
+		if (seen == null) return 0;
+
+		int count = 0;
+		for (long word : seen.bits)
+			count += Long.bitCount(word);
+
+		return count;
+	}
+
+	/** Forgets seen nodes of single sequence */
+	public void clear (String sequence) {
+		sequences.remove(sequence);
+		lastName = null;
+		last = null;
+	}
+
+	public void clear () {
+		sequences.clear();
+		lastName = null;
+		last = null;
+	}
+
+	private SeenSequence get (String sequence) {
+		if (sequence == lastName || sequence.equals(lastName)) return last;
+
+		SeenSequence seen = sequences.get(sequence);
+		if (seen != null) {
+			lastName = sequence;
+			last = seen;
+		}
+
+		return seen;
+	}
+
+	/**
+	 * Writes seen nodes, trailing empty words are not saved. Stream is not closed.
+	 */
+	public void save (OutputStream out) throws IOException {
+		DataOutputStream data = new DataOutputStream(out);
+		data.writeInt(MAGIC);
+		data.writeInt(VERSION);
+		data.writeInt(sequences.size());
+
+		for (Map.Entry<String, SeenSequence> entry : sequences.entrySet()) {
+			SeenSequence seen = entry.getValue();
+			long[] bits = seen.bits;
+
+			int words = bits.length;
+			while (words > 0 && bits[words - 1] == 0)
+				words--;
+
+			data.writeUTF(entry.getKey());
+			data.writeLong(seen.hash);
+			data.writeInt(words);
+
+			for (int i = 0; i < words; i++)
+				data.writeLong(bits[i]);
+		}
+
+		data.flush();
+	}
+
+	/**
+	 * Reads seen nodes written by {@link #save(OutputStream)}. Stream is not closed.
+	 */
+	public static SeenNodes load (InputStream in) throws IOException {
+		DataInputStream data = new DataInputStream(in);
+
+		if (data.readInt() != MAGIC) throw new DialogueParserException("Not a seen nodes file.");
+		if (data.readInt() != VERSION) throw new DialogueParserException("Unsupported seen nodes version.");
+
+		SeenNodes seen = new SeenNodes();
+		int count = data.readInt();
+
+		for (int i = 0; i < count; i++) {
+			String name = data.readUTF();
+			long hash = data.readLong();
+			int words = data.readInt();
+			SeenSequence sequence = new SeenSequence(hash, Math.max(words, 1));
+
+			for (int j = 0; j < words; j++)
+				sequence.bits[j] = data.readLong();
+
+			seen.sequences.put(name, sequence);
+		}
+
+		return seen;
+	}
+
+	private static class SeenSequence {
+		long hash;
+		long[] bits;
+
+		SeenSequence (long hash, int words) {
+			this.hash = hash;
+			bits = new long[words];
+		}
+	}
+}
@@ -0,0 +1,233 @@
+/*******************************************************************************
+ * Copyright 2014 Pawel Pastuszak
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package pl.kotcrab.jdialogue.parser;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * Keeps loaded sequences and their wrapped text lines within memory budget. Size of each entry is estimated with
+ * {@link MemoryEstimator} and refreshed every time entry is accessed, when total size exceeds budget least recently used
+ * entries are evicted. Most recently used entry is never evicted, so budget of 0 keeps only sequence that is currently played.
+ * <p>
+ * Cache can be shared by parsers of the same project. Parser keeps using its current sequence even if it was evicted, memory
+ * is released when parser moves to another sequence. Sequences implementing {@link Closeable} are closed when they are evicted
+ * or replaced, they must stay usable after close. Cache is not thread safe.
+ *
+ * @author Pawel Pastuszak
+ */
+public class SequenceCache {
+	public static final long UNLIMITED = Long.MAX_VALUE;
+
+	private LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+	private long budget;
+	private long size;
+
+	private EvictionListener listener;
+
+	private int evictions;
+
+	/**
+	 * @param budget max estimated size of cached sequences in bytes
+	 */
+	public SequenceCache (long budget) {
+		if (budget < 0) throw new IllegalArgumentException("budget can't be negative");
+		this.budget = budget;
+	}
+
+	/**
+	 * @return cached sequence or null if it isn't loaded
+	 */
+	public DialogueSequence get (String name) {
+		Entry entry = entries.get(name);
+		if (entry == null) return null;
+
+		refresh(entry);
+		enforceBudget();
+		return entry.sequence;
+	}
+
+	/**
+	 * Adds sequence to cache, replacing previous sequence with the same name. Sequence becomes most recently used entry.
+	 */
+	public void put (DialogueSequence sequence) {
+		Entry entry = new Entry(sequence);
+		entry.size = sequence.estimateSize();
+
+		Entry old = entries.put(sequence.getName(), entry);
+		if (old != null) {
+			size -= old.size;
+			if (old.sequence != sequence) close(old.sequence);
+		}
+		size += entry.size;
+
+		enforceBudget();
+	}
+
+	/**
+	 * @return lines of text node wrapped to maxChars, null if they weren't cached or sequence is no longer in cache
+	 */
+	public String[] getLines (DialogueSequence sequence, int node, int maxChars) {
+		Entry entry = entries.get(sequence.getName());
+		if (entry == null || entry.sequence != sequence || entry.lines == null || entry.linesMaxChars != maxChars) return null;
+
+		return entry.lines[node];
+	}
+
+	/**
+	 * Stores lines of text node wrapped to maxChars. Ignored if sequence is no longer in cache. Cache keeps lines for single
+	 * maxChars value per sequence, lines wrapped to different length replace all previously stored lines.
+	 * @param lines lines, array must not be modified after it is passed to cache
+	 */
+	public void putLines (DialogueSequence sequence, int node, int maxChars, String[] lines) {
+		Entry entry = entries.get(sequence.getName());
+		if (entry == null || entry.sequence != sequence) return;
+
+		if (entry.lines == null || entry.linesMaxChars != maxChars) {
+			entry.lines = new String[sequence.getNodeCount()][];
+			entry.linesMaxChars = maxChars;
+			entry.linesSize = MemoryEstimator.referenceArray(entry.lines.length);
+		}
+
+		if (entry.lines[node] != null) entry.linesSize -= MemoryEstimator.stringArray(entry.lines[node]);
+		entry.lines[node] = lines;
+		entry.linesSize += MemoryEstimator.stringArray(lines);
+
+		refresh(entry);
+		enforceBudget();
+	}
+
+	/**
+	 * Removes sequence from cache, listener is not notified.
+	 * @return true if sequence was cached
+	 */
+	public boolean remove (String name) {
+		Entry entry = entries.remove(name);
+		if (entry == null) return false;
+
+		size -= entry.size;
+		return true;
+	}
+
+	/**
+	 * Evicts all sequences, listener is notified about each of them.
+	 */
+	public void clear () {
+		Iterator<Entry> it = entries.values().iterator();
+
+		while (it.hasNext())
+			evict(it, it.next());
+	}
+
+	public boolean contains (String name) {
+		return entries.containsKey(name);
+	}
+
+	/**
+	 * @return estimated size of sequence and its wrapped lines, -1 if sequence isn't cached
+	 */
+	public long getSize (String name) {
+		Entry entry = entries.get(name);
+		return entry == null ? -1 : entry.size;
+	}
+
+	/**
+	 * @return estimated size of all cached sequences and wrapped lines in bytes
+	 */
+	public long getSize () {
+		return size;
+	}
+
+	public int getSequenceCount () {
+		return entries.size();
+	}
+
+	public long getBudget () {
+		return budget;
+	}
+
+	/**
+	 * Changes budget, sequences are evicted immediately if cache is over new budget.
+	 */
+	public void setBudget (long budget) {
+		if (budget < 0) throw new IllegalArgumentException("budget can't be negative");
+		this.budget = budget;
+		enforceBudget();
+	}
+
+	/**
+	 * @return number of sequences evicted since cache was created
+	 */
+	public int getEvictions () {
+		return evictions;
+	}
+
+	public void setEvictionListener (EvictionListener listener) {
+		this.listener = listener;
+	}
+
+	private void refresh (Entry entry) {
+		long newSize = entry.sequence.estimateSize() + entry.linesSize;
+		size += newSize - entry.size;
+		entry.size = newSize;
+	}
+
+	private void enforceBudget () {
+		if (size <= budget) return;
+
+		Iterator<Entry> it = entries.values().iterator();
+
+		// last entry is most recently used one
+		for (int i = entries.size() - 1; i > 0 && size > budget; i--)
+			evict(it, it.next());
+	}
+
+	private void evict (Iterator<Entry> it, Entry entry) {
+		it.remove();
+		size -= entry.size;
+		evictions++;
+
+		if (listener != null) listener.sequenceEvicted(entry.sequence, entry.size);
+		close(entry.sequence);
+	}
+
+	private static void close (DialogueSequence sequence) {
+		if (sequence instanceof Closeable == false) return;
+
+		try {
+			((Closeable) sequence).close();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	private static class Entry {
+		DialogueSequence sequence;
+		long size;
+
+		String[][] lines;
+		int linesMaxChars;
+		long linesSize;
+
+		public Entry (DialogueSequence sequence) {
+			this.sequence = sequence;
+		}
+	}
+}
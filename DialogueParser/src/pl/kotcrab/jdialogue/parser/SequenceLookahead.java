@@ -0,0 +1,176 @@
+/*******************************************************************************
+ * Copyright 2014 Pawel Pastuszak
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+
+package pl.kotcrab.jdialogue.parser;
+
+import java.util.Collection;
+
+/**
+ * Finds characters that may speak in next few steps of conversation, so their portraits can be loaded before they are shown.
+ * Search walks graph of sequence breadth first from given node and follows every output, because choices and random components
+ * can't be predicted. Only visited nodes are read, so paged sequences load only pages near cursor. Arrays are reused between
+ * calls, after warm up collecting does not allocate.
+ *
+ * @author Pawel Pastuszak
+ */
+public class SequenceLookahead {
+	private Project project;
+
+	private int[] queue = new int[64];
+	private int[] depth = new int[64];
+
+	// open addressing set of visited nodes, cleared by changing stamp
+	private int[] visitedNodes = new int[128];
+	private int[] visitedStamps = new int[128];
+	private int stamp;
+
+	private boolean[] characterFound;
+	private int[] characters;
+	private int characterCount;
+
+	public SequenceLookahead (Project project) {
+		this.project = project;
+		characterFound = new boolean[project.getCharacters().length];
+		characters = new int[characterFound.length];
+	}
+
+	/**
+	 * Collects characters of text components reachable from node, previous result is cleared
+	 * @param node id of first node, usually node that parser will process next, -1 clears result
+	 * @param steps max number of connections followed from first node, 0 checks only first node
+	 */
+	public void collect (DialogueSequence sequence, int node, int steps) {
+		for (int i = 0; i < characterCount; i++)
+			characterFound[characters[i]] = false;
+		characterCount = 0;
+
+		if (node == -1) return;
+
+		nextStamp();
+
+		int head = 0;
+		int tail = 0;
+		queue[tail] = node;
+		depth[tail++] = 0;
+		markVisited(node, 1);
+
+		while (head < tail) {
+			int id = queue[head];
+			int nodeDepth = depth[head++];
+
+			SequenceNode current = sequence.getNode(id);
+			if (current.getType() == ComponentType.TEXT) addCharacter(current.getCharacter());
+
+			if (nodeDepth == steps) continue;
+
+			int[] targets = current.getTargets();
+			for (int i = 0; i < targets.length; i++) {
+				if (markVisited(targets[i], tail + 1) == false) continue;
+
+				if (tail == queue.length) {
+					queue = grow(queue);
+					depth = grow(depth);
+				}
+
+				queue[tail] = targets[i];
+				depth[tail++] = nodeDepth + 1;
+			}
+		}
+	}
+
+	private void addCharacter (int id) {
+		if (id < 0 || id >= characterFound.length || characterFound[id]) return;
+
+		characterFound[id] = true;
+		characters[characterCount++] = id;
+	}
+
+	private void nextStamp () {
+		stamp++;
+
+		if (stamp == Integer.MAX_VALUE) {
+			stamp = 1;
+			for (int i = 0; i < visitedStamps.length; i++)
+				visitedStamps[i] = 0;
+		}
+	}
+
+	/**
+	 * @param visitedCount number of visited nodes including this one, used to keep set at most half full
+	 * @return true if node was not visited before
+	 */
+	private boolean markVisited (int node, int visitedCount) {
+		if (visitedCount * 2 > visitedNodes.length) rehash();
+
+		int mask = visitedNodes.length - 1;
+		int i = (node * 0x9E3779B9) >>> 7 & mask;
+
+		while (visitedStamps[i] == stamp) {
+			if (visitedNodes[i] == node) return false;
+			i = (i + 1) & mask;
+		}
+
+		visitedNodes[i] = node;
+		visitedStamps[i] = stamp;
+		return true;
+	}
+
+	private void rehash () {
+		int[] oldNodes = visitedNodes;
+		int[] oldStamps = visitedStamps;
+
+		visitedNodes = new int[oldNodes.length * 2];
+		visitedStamps = new int[oldNodes.length * 2];
+		int mask = visitedNodes.length - 1;
+
+		for (int j = 0; j < oldNodes.length; j++) {
+			if (oldStamps[j] != stamp) continue;
+
+			int i = (oldNodes[j] * 0x9E3779B9) >>> 7 & mask;
+			while (visitedStamps[i] == stamp)
+				i = (i + 1) & mask;
+
+			visitedNodes[i] = oldNodes[j];
+			visitedStamps[i] = stamp;
+		}
+	}
+
+	private static int[] grow (int[] array) {
+		int[] newArray = new int[array.length * 2];
+		System.arraycopy(array, 0, newArray, 0, array.length);
+		return newArray;
+	}
+
+	public int getCharacterCount () {
+		return characterCount;
+	}
+
+	/** @param index index of found character, from 0 to {@link #getCharacterCount()} - 1 */
+	public PCharacter getCharacter (int index) {
+		return project.getCharacter(characters[index]);
+	}
+
+	/**
+	 * Adds texture names of found characters to collection, 'none' is skipped. Use set to avoid duplicates.
+	 */
+	public void getTextureNames (Collection<String> out) {
+		for (int i = 0; i < characterCount; i++) {
+			String textureName = getCharacter(i).getTextureName();
+			if (textureName != null && textureName.equals("none") == false) out.add(textureName);
+		}
+	}
+}
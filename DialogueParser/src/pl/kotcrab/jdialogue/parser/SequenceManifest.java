@@ -0,0 +1,54 @@
+/*******************************************************************************
+ * Copyright 2014 Pawel Pastuszak
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+
+package pl.kotcrab.jdialogue.parser;
+
+/**
+ * Assets needed by exported sequence: characters of all its text components and their texture names (without 'none'). Created
+ * by editor during export, so game can load everything before conversation starts.
+ *
+ * @author Pawel Pastuszak
+ */
+public class SequenceManifest {
+	private String sequence;
+	private int[] characters;
+	private String[] textureNames;
+
+	public SequenceManifest (String sequence, int[] characters, String[] textureNames) {
+		this.sequence = sequence;
+		this.characters = characters;
+		this.textureNames = textureNames;
+	}
+
+	public String getSequence () {
+		return sequence;
+	}
+
+	/**
+	 * @return ids of characters used by sequence, array is shared and must not be modified
+	 */
+	public int[] getCharacters () {
+		return characters;
+	}
+
+	/**
+	 * @return distinct texture names of characters used by sequence, array is shared and must not be modified
+	 */
+	public String[] getTextureNames () {
+		return textureNames;
+	}
+}
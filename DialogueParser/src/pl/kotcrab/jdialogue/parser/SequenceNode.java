@@ -0,0 +1,127 @@
+/*******************************************************************************
+ * Copyright 2014 Pawel Pastuszak
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+
+package pl.kotcrab.jdialogue.parser;
+
+import pl.kotcrab.jdialogue.parser.expression.Expression;
+
+/**
+ * Single component of exported sequence. Nodes are immutable, id of node is equal to its index in sequence.
+ *
+ * @author Pawel Pastuszak
+ */
+public class SequenceNode {
+	private int id;
+	private ComponentType type;
+	private int[] targets;
+
+	private String text;
+	private int character;
+	private int[] callbacks;
+	private String[] choices;
+	private Expression condition;
+	private TextTemplate template;
+	private StyledText styledText;
+
+	public SequenceNode (int id, ComponentType type, int[] targets, String text, int character, int[] callbacks, String[] choices, Expression condition) {
+		this.id = id;
+		this.type = type;
+		this.targets = targets;
+		this.text = text;
+		this.character = character;
+		this.callbacks = callbacks;
+		this.choices = choices;
+		this.condition = condition;
+
+		if (type == ComponentType.TEXT || type == ComponentType.CHOICE) {
+			template = TextTemplate.parse(text);
+
+			// templated text is styled after variables are substituted
+			if (template == null) styledText = StyledText.parse(text);
+		}
+	}
+
+	public int getId () {
+		return id;
+	}
+
+	public ComponentType getType () {
+		return type;
+	}
+
+	/**
+	 * @return ids of target nodes, array is shared and must not be modified
+	 */
+	public int[] getTargets () {
+		return targets;
+	}
+
+	/**
+	 * @return text of text and choice node, source of expression for condition node
+	 */
+	public String getText () {
+		return text;
+	}
+
+	public int getCharacter () {
+		return character;
+	}
+
+	/**
+	 * @return id of first callback of callback and callback check node, -1 for other types
+	 */
+	public int getCallback () {
+		return callbacks == null ? -1 : callbacks[0];
+	}
+
+	/**
+	 * @return ids of callbacks for callback and callback check node, null for other types. Optimized export may merge several
+	 * callbacks following each other into one node, they must be fired in array order. Array is shared and must not be modified
+	 */
+	public int[] getCallbacks () {
+		return callbacks;
+	}
+
+	/**
+	 * @return choices text for choice node, null for other types. Array is shared and must not be modified
+	 */
+	public String[] getChoices () {
+		return choices;
+	}
+
+	/**
+	 * @return tokenized text of text and choice node, null if text doesn't use variables
+	 */
+	public TextTemplate getTemplate () {
+		return template;
+	}
+
+	/**
+	 * @return text of text and choice node with markup parsed into style spans, null if text doesn't use markup or uses
+	 * variables
+	 */
+	public StyledText getStyledText () {
+		return styledText;
+	}
+
+	/**
+	 * @return compiled expression of condition node, null for other types or when sequence was loaded without compiler
+	 */
+	public Expression getCondition () {
+		return condition;
+	}
+}
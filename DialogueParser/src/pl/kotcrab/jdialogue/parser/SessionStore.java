@@ -0,0 +1,287 @@
+/*******************************************************************************
+ * Copyright 2014 Pawel Pastuszak
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+
+package pl.kotcrab.jdialogue.parser;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * Stores cursors of many dialogue sessions outside of java heap. Every session is fixed size record in direct {@link ByteBuffer}
+ * slab, addressed by int handle, so keeping millions of idle sessions costs no objects and no GC work. Freed records are reused
+ * before slab grows. Sequence names are kept once in small name table and records store only their index.
+ * <p>
+ * Store is used together with single parser: {@link pl.kotcrab.jdialogue.parser.impl.JDOMDialogueParser#restoreSession(SessionStore, int)}
+ * before processing session and {@link pl.kotcrab.jdialogue.parser.impl.JDOMDialogueParser#saveSession(SessionStore, int)} after.
+ * <p>
+ * Store is not thread safe, with one exception: records of distinct handles may be read and written from different threads
+ * while name table is frozen with {@link #setNamesFrozen(boolean)}. Structure of store (creating, freeing and growing records,
+ * adding names) must be changed only by single thread and never at the same time as records are accessed.
+ *
+ * <pre>
+ * record: int sequence, int node, int target, int msgOffset, long randomState, int flags, int nextFree
+ * file: int magic, int version, int capacity, int freeHead, int used, int nameCount, names (int length, UTF-8 bytes), slab
+ * </pre>
+ *
+ * @author Pawel Pastuszak
+ */
+public class SessionStore {
+	public static final int RECORD_SIZE = 32;
+	/** max number of records, slab is single buffer so its size can't exceed Integer.MAX_VALUE */
+	public static final int MAX_CAPACITY = Integer.MAX_VALUE / RECORD_SIZE;
+
+	public static final int FLAG_USED = 1;
+	public static final int FLAG_CHECK_RESULT = 2;
+
+	private static final int MAGIC = 0x4A445353; // JDSS
+	private static final int VERSION = 1;
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	private static final int SEQUENCE = 0;
+	private static final int NODE = 4;
+	private static final int TARGET = 8;
+	private static final int MSG_OFFSET = 12;
+	private static final int RANDOM_STATE = 16;
+	private static final int FLAGS = 24;
+	private static final int NEXT_FREE = 28;
+
+	private ByteBuffer slab;
+	private int capacity;
+	private int allocated; // records below this index were handed out at least once
+	private int freeHead = -1;
+	private int used;
+
+	private ArrayList<String> names = new ArrayList<>();
+	private HashMap<String, Integer> nameIds = new HashMap<>();
+	private boolean namesFrozen;
+
+	/** @param capacity initial number of records, slab grows when more sessions are created */
+	public SessionStore (int capacity) {
+		if (capacity < 1) throw new IllegalArgumentException("capacity must be at least 1");
+		if (capacity > MAX_CAPACITY) throw new IllegalArgumentException("capacity can't be greater than " + MAX_CAPACITY);
+
+		this.capacity = capacity;
+		slab = ByteBuffer.allocateDirect(capacity * RECORD_SIZE);
+	}
+
+	/**
+	 * Creates new session which is not started yet
+	 * @return handle of session
+	 */
+	public int create () {
+		int handle;
+
+		if (freeHead != -1) {
+			handle = freeHead;
+			freeHead = slab.getInt(handle * RECORD_SIZE + NEXT_FREE);
+		} else {
+			if (allocated == capacity) grow();
+			handle = allocated++;
+		}
+
+		int offset = handle * RECORD_SIZE;
+		slab.putInt(offset + SEQUENCE, -1);
+		slab.putInt(offset + NODE, -1);
+		slab.putInt(offset + TARGET, -1);
+		slab.putInt(offset + MSG_OFFSET, 0);
+		slab.putLong(offset + RANDOM_STATE, 0);
+		slab.putInt(offset + FLAGS, FLAG_USED);
+		slab.putInt(offset + NEXT_FREE, -1);
+
+		used++;
+		return handle;
+	}
+
+	public void free (int handle) {
+		int offset = checkHandle(handle);
+
+		slab.putInt(offset + FLAGS, 0);
+		slab.putInt(offset + NEXT_FREE, freeHead);
+		freeHead = handle;
+		used--;
+	}
+
+	private void grow () {
+		if (capacity == MAX_CAPACITY) throw new DialogueParserException("Session store is full, it can't hold more than " + MAX_CAPACITY + " sessions.");
+
+		int newCapacity = (int) Math.min((long) capacity * 2, MAX_CAPACITY);
+		ByteBuffer newSlab = ByteBuffer.allocateDirect(newCapacity * RECORD_SIZE);
+		ByteBuffer old = slab.duplicate();
+		old.clear();
+		newSlab.put(old);
+		newSlab.clear();
+
+		slab = newSlab;
+		capacity = newCapacity;
+	}
+
+	private int checkHandle (int handle) {
+		if (handle < 0 || handle >= allocated || (slab.getInt(handle * RECORD_SIZE + FLAGS) & FLAG_USED) == 0)
+			throw new DialogueParserException("Invalid session handle: " + handle);
+
+		return handle * RECORD_SIZE;
+	}
+
+	public boolean isUsed (int handle) {
+		return handle >= 0 && handle < allocated && (slab.getInt(handle * RECORD_SIZE + FLAGS) & FLAG_USED) != 0;
+	}
+
+	/** @return name of sequence of session, null if session was not started */
+	public String getSequence (int handle) {
+		int id = slab.getInt(checkHandle(handle) + SEQUENCE);
+		return id == -1 ? null : names.get(id);
+	}
+
+	/**
+	 * @throws DialogueParserException if name is not in name table yet and name table is frozen
+	 */
+	public void setSequence (int handle, String name) {
+		Integer id = nameIds.get(name);
+
+		if (id == null) {
+			if (namesFrozen) throw new DialogueParserException("Can't add sequence name while name table is frozen: " + name);
+
+			id = names.size();
+			names.add(name);
+			nameIds.put(name, id);
+		}
+
+		slab.putInt(checkHandle(handle) + SEQUENCE, id);
+	}
+
+	/**
+	 * Frozen name table is only read, so {@link #setSequence(int, String)} with names that are already in it and other record
+	 * methods can be called for distinct handles from multiple threads. Adding new name throws exception until table is unfrozen.
+	 */
+	public void setNamesFrozen (boolean frozen) {
+		namesFrozen = frozen;
+	}
+
+	public boolean isNamesFrozen () {
+		return namesFrozen;
+	}
+
+	/** @return id of last processed node, -1 if no node was processed yet */
+	public int getNode (int handle) {
+		return slab.getInt(checkHandle(handle) + NODE);
+	}
+
+	public int getTarget (int handle) {
+		return slab.getInt(checkHandle(handle) + TARGET);
+	}
+
+	/** @return number of lines of current message that were already shown */
+	public int getMsgOffset (int handle) {
+		return slab.getInt(checkHandle(handle) + MSG_OFFSET);
+	}
+
+	public long getRandomState (int handle) {
+		return slab.getLong(checkHandle(handle) + RANDOM_STATE);
+	}
+
+	public int getFlags (int handle) {
+		return slab.getInt(checkHandle(handle) + FLAGS);
+	}
+
+	/** Sets cursor of session in one call, sequence must be set before with {@link #setSequence(int, String)} */
+	public void setCursor (int handle, int node, int target, int msgOffset, long randomState, int flags) {
+		int offset = checkHandle(handle);
+
+		slab.putInt(offset + NODE, node);
+		slab.putInt(offset + TARGET, target);
+		slab.putInt(offset + MSG_OFFSET, msgOffset);
+		slab.putLong(offset + RANDOM_STATE, randomState);
+		slab.putInt(offset + FLAGS, flags | FLAG_USED);
+	}
+
+	/** @return number of sessions that are not freed */
+	public int getSize () {
+		return used;
+	}
+
+	public int getCapacity () {
+		return capacity;
+	}
+
+	public void save (File file) throws IOException {
+		int namesSize = 0;
+		byte[][] nameBytes = new byte[names.size()][];
+
+		for (int i = 0; i < nameBytes.length; i++) {
+			nameBytes[i] = names.get(i).getBytes(UTF8);
+			namesSize += 4 + nameBytes[i].length;
+		}
+
+		ByteBuffer header = ByteBuffer.allocate(24 + namesSize);
+		header.putInt(MAGIC).putInt(VERSION).putInt(allocated).putInt(freeHead).putInt(used).putInt(nameBytes.length);
+
+		for (byte[] bytes : nameBytes)
+			header.putInt(bytes.length).put(bytes);
+
+		header.flip();
+
+		ByteBuffer records = slab.duplicate();
+		records.position(0);
+		records.limit(allocated * RECORD_SIZE);
+
+		try (RandomAccessFile raf = new RandomAccessFile(file, "rw"); FileChannel channel = raf.getChannel()) {
+			channel.truncate(0);
+
+			while (header.hasRemaining())
+				channel.write(header);
+
+			while (records.hasRemaining())
+				channel.write(records);
+		}
+	}
+
+	public static SessionStore load (File file) throws IOException {
+		try (RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel channel = raf.getChannel()) {
+			ByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+			if (in.getInt() != MAGIC) throw new DialogueParserException("'" + file + "' is not session store file.");
+			if (in.getInt() != VERSION) throw new DialogueParserException("Unsupported session store version.");
+
+			int allocated = in.getInt();
+			SessionStore store = new SessionStore(Math.max(allocated, 1));
+			store.allocated = allocated;
+			store.freeHead = in.getInt();
+			store.used = in.getInt();
+
+			int nameCount = in.getInt();
+			for (int i = 0; i < nameCount; i++) {
+				byte[] bytes = new byte[in.getInt()];
+				in.get(bytes);
+				String name = new String(bytes, UTF8);
+				store.names.add(name);
+				store.nameIds.put(name, i);
+			}
+
+			in.limit(in.position() + allocated * RECORD_SIZE);
+			store.slab.put(in);
+			store.slab.clear();
+
+			return store;
+		}
+	}
+}
@@ -0,0 +1,93 @@
+/*******************************************************************************
+ * Copyright 2014 Pawel Pastuszak
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package pl.kotcrab.jdialogue.parser;
+
+/**
+ * Default {@link DialogueRandom}, SplitMix64 generator (the one behind java.util.SplittableRandom). State is single counter
+ * advanced by constant on every number, so generator can jump ahead any number of steps in O(1) and whole state fits in single
+ * long that can be saved with session. Unlike SplittableRandom all instances use the same gamma, see {@link #split()}. Not
+ * thread safe, each parser owns its own instance so there is no shared state.
+ *
+ * @author Pawel Pastuszak
+ */
+public class SplitMixRandom implements DialogueRandom {
+	private static final long GAMMA = 0x9E3779B97F4A7C15L;
+
+	private static long seedUniquifier = System.nanoTime();
+
+	private long state;
+
+	/**
+	 * Creates generator with seed that is different for every instance
+	 */
+	public SplitMixRandom () {
+		this(nextSeed() ^ System.nanoTime());
+	}
+
+	public SplitMixRandom (long seed) {
+		state = seed;
+	}
+
+	private static synchronized long nextSeed () {
+		return mix(seedUniquifier += GAMMA);
+	}
+
+	@Override
+	public long nextLong () {
+		return mix(state += GAMMA);
+	}
+
+	@Override
+	public int nextInt (int bound) {
+		if (bound <= 0) throw new IllegalArgumentException("bound must be positive");
+		return (int) (((nextLong() >>> 32) * bound) >>> 32);
+	}
+
+	/**
+	 * Skips given number of values, generator continues as if nextLong was called that many times
+	 */
+	public void jump (long steps) {
+		state += GAMMA * steps;
+	}
+
+	/**
+	 * Creates generator seeded with next value of this one. Both generators use the same gamma, so new generator walks the same
+	 * cycle of 2^64 values starting at random position, it is not statistically independent stream like child of
+	 * SplittableRandom. Streams overlap only if they are long enough to reach each other, which is unlikely for dialogue
+	 * sessions but generators created this way shouldn't be used where independence matters.
+	 * @return new generator seeded from this one
+	 */
+	public SplitMixRandom split () {
+		return new SplitMixRandom(nextLong());
+	}
+
+	@Override
+	public long getState () {
+		return state;
+	}
+
+	@Override
+	public void setState (long state) {
+		this.state = state;
+	}
+
+	private static long mix (long z) {
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+}
@@ -0,0 +1,300 @@
+/*******************************************************************************
+ * Copyright 2014 Pawel Pastuszak
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package pl.kotcrab.jdialogue.parser;
+
+/**
+ * Text with markup parsed into plain string, run-length array of styles and pause markers. Markup is parsed once when node is
+ * loaded, renderers only walk runs. Supported tags:
+ *
+ * <pre>
+ * [c=red]...[/c] or [c=#ff8000]...[/c]  color, may be nested
+ * [e]...[/e]                            emphasis
+ * [p=500]                               pause in milliseconds before next character, for renderers that reveal text
+ * [[                                    literal '['
+ * </pre>
+ *
+ * Unknown tags are left in text. Style of run is int: low 24 bits are RGB color, valid when {@link #COLOR} bit is set, and
+ * {@link #EMPHASIS} bit, 0 is plain text.
+ *
+ * @author Pawel Pastuszak
+ */
+public class StyledText {
+	public static final int COLOR = 1 << 24;
+	public static final int EMPHASIS = 1 << 25;
+
+	private static final int MAX_COLOR_DEPTH = 8;
+
+	private static final String[] COLOR_NAMES = {"white", "black", "gray", "red", "green", "blue", "yellow", "orange", "cyan", "magenta"};
+	private static final int[] COLOR_VALUES = {0xffffff, 0x000000, 0x808080, 0xff0000, 0x00ff00, 0x0000ff, 0xffff00, 0xffa500, 0x00ffff, 0xff00ff};
+
+	private String text;
+	private int[] runs;
+	private int[] pauses;
+
+	private StyledText (String text, int[] runs, int[] pauses) {
+		this.text = text;
+		this.runs = runs;
+		this.pauses = pauses;
+	}
+
+	/**
+	 * @return parsed text or null if text doesn't contain any markup
+	 */
+	public static StyledText parse (String markup) {
+		if (markup == null || markup.indexOf('[') == -1) return null;
+
+		StringBuilder text = new StringBuilder(markup.length());
+		IntList runs = new IntList();
+		IntList pauses = new IntList();
+
+		int[] colors = new int[MAX_COLOR_DEPTH];
+		int colorDepth = 0;
+		int emphasis = 0;
+		int style = 0;
+		int runStart = 0;
+		boolean found = false;
+
+		int i = 0;
+		while (i < markup.length()) {
+			char c = markup.charAt(i);
+
+			if (c != '[') {
+				text.append(c);
+				i++;
+				continue;
+			}
+
+			if (i + 1 < markup.length() && markup.charAt(i + 1) == '[') {
+				text.append('[');
+				i += 2;
+				found = true;
+				continue;
+			}
+
+			int end = markup.indexOf(']', i + 1);
+			String tag = end == -1 ? null : markup.substring(i + 1, end);
+			int newColorDepth = colorDepth;
+			int newEmphasis = emphasis;
+
+			if (tag == null)
+				tag = "";
+			else if (tag.startsWith("c=") && colorDepth < MAX_COLOR_DEPTH && parseColor(tag.substring(2)) != -1)
+				colors[newColorDepth++] = parseColor(tag.substring(2));
+			else if (tag.equals("/c") && colorDepth > 0)
+				newColorDepth--;
+			else if (tag.equals("e"))
+				newEmphasis++;
+			else if (tag.equals("/e") && emphasis > 0)
+				newEmphasis--;
+			else if (tag.startsWith("p=") && isNumber(tag.substring(2))) {
+				pauses.add(text.length());
+				pauses.add(Integer.parseInt(tag.substring(2)));
+			} else
+				tag = "";
+
+			if (tag.length() == 0) { // not a tag
+				text.append(c);
+				i++;
+				continue;
+			}
+
+			found = true;
+			i = end + 1;
+			colorDepth = newColorDepth;
+			emphasis = newEmphasis;
+
+			int newStyle = (colorDepth > 0 ? COLOR | colors[colorDepth - 1] : 0) | (emphasis > 0 ? EMPHASIS : 0);
+			if (newStyle != style) {
+				addRun(runs, text.length() - runStart, style);
+				runStart = text.length();
+				style = newStyle;
+			}
+		}
+
+		if (found == false) return null;
+
+		addRun(runs, text.length() - runStart, style);
+		return new StyledText(text.toString(), runs.toArray(), pauses.toArray());
+	}
+
+	private static void addRun (IntList runs, int length, int style) {
+		if (length == 0) return;
+
+		if (runs.size() > 0 && runs.get(runs.size() - 1) == style) {
+			runs.set(runs.size() - 2, runs.get(runs.size() - 2) + length);
+			return;
+		}
+
+		runs.add(length);
+		runs.add(style);
+	}
+
+	/**
+	 * @return part of text from start (inclusive) to end (exclusive) with its runs and pauses, pause at the end of text is
+	 * kept by slice that ends there
+	 */
+	public StyledText slice (int start, int end) {
+		IntList newRuns = new IntList();
+		int pos = 0;
+
+		for (int i = 0; i < runs.length; i += 2) {
+			int runEnd = pos + runs[i];
+			int from = Math.max(pos, start);
+			int to = Math.min(runEnd, end);
+
+			if (from < to) addRun(newRuns, to - from, runs[i + 1]);
+
+			pos = runEnd;
+		}
+
+		IntList newPauses = new IntList();
+		for (int i = 0; i < pauses.length; i += 2) {
+			int position = pauses[i];
+
+			if (position >= start && (position < end || (position == end && end == text.length()))) {
+				newPauses.add(position - start);
+				newPauses.add(pauses[i + 1]);
+			}
+		}
+
+		return new StyledText(text.substring(start, end), newRuns.toArray(), newPauses.toArray());
+	}
+
+	/**
+	 * @return text without markup
+	 */
+	public String getText () {
+		return text;
+	}
+
+	public int getRunCount () {
+		return runs.length / 2;
+	}
+
+	public int getRunLength (int run) {
+		return runs[run * 2];
+	}
+
+	public int getRunStyle (int run) {
+		return runs[run * 2 + 1];
+	}
+
+	public int getPauseCount () {
+		return pauses.length / 2;
+	}
+
+	/**
+	 * @return index of character in plain text that pause happens before
+	 */
+	public int getPausePosition (int pause) {
+		return pauses[pause * 2];
+	}
+
+	public int getPauseMillis (int pause) {
+		return pauses[pause * 2 + 1];
+	}
+
+	/**
+	 * @return run-length array, pairs of length and style. Array is shared and must not be modified
+	 */
+	public int[] getRuns () {
+		return runs;
+	}
+
+	/**
+	 * @return pairs of position and milliseconds. Array is shared and must not be modified
+	 */
+	public int[] getPauses () {
+		return pauses;
+	}
+
+	public static boolean hasColor (int style) {
+		return (style & COLOR) != 0;
+	}
+
+	public static boolean isEmphasis (int style) {
+		return (style & EMPHASIS) != 0;
+	}
+
+	/**
+	 * @return color as 0xRRGGBB
+	 */
+	public static int getColor (int style) {
+		return style & 0xffffff;
+	}
+
+	private static int parseColor (String value) {
+		if (value.length() == 7 && value.charAt(0) == '#') {
+			int color = 0;
+
+			for (int i = 1; i < 7; i++) { // parseInt would also accept sign
+				int digit = Character.digit(value.charAt(i), 16);
+				if (digit == -1) return -1;
+				color = color << 4 | digit;
+			}
+
+			return color & 0xffffff;
+		}
+
+		for (int i = 0; i < COLOR_NAMES.length; i++)
+			if (COLOR_NAMES[i].equals(value)) return COLOR_VALUES[i];
+
+		return -1;
+	}
+
+	private static boolean isNumber (String value) {
+		if (value.length() == 0 || value.length() > 9) return false;
+
+		for (int i = 0; i < value.length(); i++)
+			if (Character.isDigit(value.charAt(i)) == false) return false;
+
+		return true;
+	}
+
+	private static class IntList {
+		int[] items = new int[8];
+		int size;
+
+		void add (int value) {
+			if (size == items.length) {
+				int[] newItems = new int[size * 2];
+				System.arraycopy(items, 0, newItems, 0, size);
+				items = newItems;
+			}
+
+			items[size++] = value;
+		}
+
+		int get (int index) {
+			return items[index];
+		}
+
+		void set (int index, int value) {
+			items[index] = value;
+		}
+
+		int size () {
+			return size;
+		}
+
+		int[] toArray () {
+			int[] array = new int[size];
+			System.arraycopy(items, 0, array, 0, size);
+			return array;
+		}
+	}
+}
@@ -0,0 +1,107 @@
+/*******************************************************************************
+ * Copyright 2014 Pawel Pastuszak
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package pl.kotcrab.jdialogue.parser;
+
+import java.util.ArrayList;
+
+/**
+ * Text split into literal segments and variables, like "Welcome back, {playerName}. You owe {debt} gold.". Text is tokenized
+ * once when node is loaded, rendering only appends segments and variable values to reused builder. '{{' and '}}' are written
+ * as single braces. Unknown variables and unclosed braces are left in text as they are.
+ *
+ * @author Pawel Pastuszak
+ */
+public class TextTemplate {
+	private String[] literals;
+	private String[] names;
+
+	private TextTemplate (String[] literals, String[] names) {
+		this.literals = literals;
+		this.names = names;
+	}
+
+	/**
+	 * @return template or null if text doesn't contain any variables or escaped braces
+	 */
+	public static TextTemplate parse (String text) {
+		if (text == null || (text.indexOf('{') == -1 && text.indexOf("}}") == -1)) return null;
+
+		ArrayList<String> literals = new ArrayList<>();
+		ArrayList<String> names = new ArrayList<>();
+		StringBuilder literal = new StringBuilder(text.length());
+
+		int i = 0;
+		while (i < text.length()) {
+			char c = text.charAt(i);
+
+			if (c == '{' && i + 1 < text.length() && text.charAt(i + 1) == '{') {
+				literal.append('{');
+				i += 2;
+			} else if (c == '}' && i + 1 < text.length() && text.charAt(i + 1) == '}') {
+				literal.append('}');
+				i += 2;
+			} else if (c == '{') {
+				int end = text.indexOf('}', i + 1);
+
+				if (end == -1 || end == i + 1) {
+					literal.append(c);
+					i++;
+				} else {
+					literals.add(literal.toString());
+					names.add(text.substring(i + 1, end).trim());
+					literal.setLength(0);
+					i = end + 1;
+				}
+			} else {
+				literal.append(c);
+				i++;
+			}
+		}
+
+		literals.add(literal.toString());
+
+		return new TextTemplate(literals.toArray(new String[literals.size()]), names.toArray(new String[names.size()]));
+	}
+
+	/**
+	 * Appends text with substituted variables to out
+	 * @param variables source of values, may be null then all variables are left as they are
+	 */
+	public void render (TextVariables variables, StringBuilder out) {
+		out.append(literals[0]);
+
+		for (int i = 0; i < names.length; i++) {
+			if (variables == null || variables.appendVariable(names[i], out) == false) out.append('{').append(names[i]).append('}');
+			out.append(literals[i + 1]);
+		}
+	}
+
+	public int getVariableCount () {
+		return names.length;
+	}
+
+	public String getVariableName (int index) {
+		return names[index];
+	}
+
+	/**
+	 * @return literal segments, there is one more segment than variables. Array is shared and must not be modified
+	 */
+	public String[] getLiterals () {
+		return literals;
+	}
+}
@@ -0,0 +1,31 @@
+/*******************************************************************************
+ * Copyright 2014 Pawel Pastuszak
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package pl.kotcrab.jdialogue.parser;
+
+/**
+ * Provides values of variables used in text templates, see {@link TextTemplate}
+ *
+ * @author Pawel Pastuszak
+ */
+public interface TextVariables {
+	/**
+	 * Appends value of variable to out. Implementations should append directly (for example with StringBuilder.append(int)) so
+	 * rendering doesn't allocate.
+	 * @return true if variable was appended, false if it is unknown
+	 */
+	public boolean appendVariable (String name, StringBuilder out);
+}
@@ -0,0 +1,140 @@
+/*******************************************************************************
+ * Copyright 2014 Pawel Pastuszak
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+
+package pl.kotcrab.jdialogue.parser;
+
+import java.util.HashMap;
+
+/**
+ * Game variables used by condition components. Every variable is defined once and gets int slot, compiled expressions read
+ * variables by slot so checking condition does not need any lookups or allocations. Booleans are stored as 0 and 1.
+ * <p>
+ * Store is also default source of values for text templates, see {@link TextTemplate}.
+ *
+ * @author Pawel Pastuszak
+ */
+public class VariableStore implements TextVariables {
+	public static final byte INT = 0;
+	public static final byte BOOLEAN = 1;
+
+	private HashMap<String, Integer> slots = new HashMap<>();
+
+	private String[] names = new String[16];
+	private byte[] types = new byte[16];
+	private int[] values = new int[16];
+	private int size;
+
+	public int defineInt (String name, int value) {
+		int slot = define(name, INT);
+		values[slot] = value;
+		return slot;
+	}
+
+	public int defineBoolean (String name, boolean value) {
+		int slot = define(name, BOOLEAN);
+		values[slot] = value ? 1 : 0;
+		return slot;
+	}
+
+	private int define (String name, byte type) {
+		if (slots.containsKey(name)) throw new DialogueParserException("Variable already defined: " + name);
+
+		if (size == values.length) {
+			int newLength = size * 2;
+			String[] newNames = new String[newLength];
+			byte[] newTypes = new byte[newLength];
+			int[] newValues = new int[newLength];
+
+			System.arraycopy(names, 0, newNames, 0, size);
+			System.arraycopy(types, 0, newTypes, 0, size);
+			System.arraycopy(values, 0, newValues, 0, size);
+
+			names = newNames;
+			types = newTypes;
+			values = newValues;
+		}
+
+		names[size] = name;
+		types[size] = type;
+		slots.put(name, size);
+
+		return size++;
+	}
+
+	/**
+	 * @return slot of variable or -1 if variable is not defined
+	 */
+	public int getSlot (String name) {
+		Integer slot = slots.get(name);
+		return slot == null ? -1 : slot;
+	}
+
+	public byte getType (int slot) {
+		return types[slot];
+	}
+
+	public String getName (int slot) {
+		return names[slot];
+	}
+
+	public int getSize () {
+		return size;
+	}
+
+	public int getInt (int slot) {
+		return values[slot];
+	}
+
+	public void setInt (int slot, int value) {
+		values[slot] = value;
+	}
+
+	public boolean getBoolean (int slot) {
+		return values[slot] != 0;
+	}
+
+	public void setBoolean (int slot, boolean value) {
+		values[slot] = value ? 1 : 0;
+	}
+
+	public void setInt (String name, int value) {
+		values[getDefinedSlot(name)] = value;
+	}
+
+	public void setBoolean (String name, boolean value) {
+		values[getDefinedSlot(name)] = value ? 1 : 0;
+	}
+
+	@Override
+	public boolean appendVariable (String name, StringBuilder out) {
+		int slot = getSlot(name);
+		if (slot == -1) return false;
+
+		if (types[slot] == BOOLEAN)
+			out.append(values[slot] != 0);
+		else
+			out.append(values[slot]);
+
+		return true;
+	}
+
+	private int getDefinedSlot (String name) {
+		int slot = getSlot(name);
+		if (slot == -1) throw new DialogueParserException("Variable not defined: " + name);
+		return slot;
+	}
+}
@@ -0,0 +1,47 @@
+/*******************************************************************************
+ * Copyright 2014 Pawel Pastuszak
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+
+package pl.kotcrab.jdialogue.parser.expression;
+
+import pl.kotcrab.jdialogue.parser.VariableStore;
+
+/**
+ * Compiled expression, created by {@link ExpressionCompiler}. Evaluating expression doesn't allocate, boolean results are
+ * returned as 0 and 1.
+ *
+ * @author Pawel Pastuszak
+ */
+public abstract class Expression {
+	private final byte type;
+
+	protected Expression (byte type) {
+		this.type = type;
+	}
+
+	public abstract int evaluate (VariableStore vars);
+
+	public boolean test (VariableStore vars) {
+		return evaluate(vars) != 0;
+	}
+
+	/**
+	 * @return {@link VariableStore#INT} or {@link VariableStore#BOOLEAN}
+	 */
+	public byte getType () {
+		return type;
+	}
+}
@@ -0,0 +1,397 @@
+/*******************************************************************************
+ * Copyright 2014 Pawel Pastuszak
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+
+package pl.kotcrab.jdialogue.parser.expression;
+
+import pl.kotcrab.jdialogue.parser.DialogueParserException;
+import pl.kotcrab.jdialogue.parser.VariableStore;
+
+/**
+ * Compiles expressions used by condition components into tree of {@link Expression}. Variables are resolved to slots of given
+ * {@link VariableStore} during compilation, so compiled expression can be evaluated with any store that has the same variables
+ * defined in the same order.
+ * <p>
+ * Supported syntax, from lowest precedence: ||, &amp;&amp;, !, comparisons (== != &lt; &lt;= &gt; &gt;=), + -, * / %, unary -.
+ * Operands are int literals, true, false, variable names and expressions in parentheses. Int arithmetic wraps on overflow like
+ * in Java. Division or modulo by literal 0 is rejected during compilation, division or modulo by expression that evaluates to 0
+ * returns 0, so evaluating condition never throws.
+ *
+ * @author Pawel Pastuszak
+ */
+public class ExpressionCompiler {
+	private static final byte INT = VariableStore.INT;
+	private static final byte BOOLEAN = VariableStore.BOOLEAN;
+
+	private VariableStore vars;
+
+	private String source;
+	private int pos;
+
+	public ExpressionCompiler (VariableStore vars) {
+		this.vars = vars;
+	}
+
+	public Expression compile (String source) {
+		this.source = source;
+		this.pos = 0;
+
+		Expression expr = parseOr();
+		skipWhitespace();
+		if (pos != source.length()) throw error("Unexpected character '" + source.charAt(pos) + "'");
+
+		return expr;
+	}
+
+	/**
+	 * Compiles expression that must return boolean
+	 */
+	public Expression compileCondition (String source) {
+		Expression expr = compile(source);
+		if (expr.getType() != BOOLEAN) throw error("Condition must be boolean expression");
+		return expr;
+	}
+
+	private Expression parseOr () {
+		Expression left = parseAnd();
+
+		while (match("||")) {
+			final Expression a = checkType(left, BOOLEAN, "||");
+			final Expression b = checkType(parseAnd(), BOOLEAN, "||");
+
+			left = new Expression(BOOLEAN) {
+				@Override
+				public int evaluate (VariableStore vars) {
+					return (a.evaluate(vars) != 0 || b.evaluate(vars) != 0) ? 1 : 0;
+				}
+			};
+		}
+
+		return left;
+	}
+
+	private Expression parseAnd () {
+		Expression left = parseNot();
+
+		while (match("&&")) {
+			final Expression a = checkType(left, BOOLEAN, "&&");
+			final Expression b = checkType(parseNot(), BOOLEAN, "&&");
+
+			left = new Expression(BOOLEAN) {
+				@Override
+				public int evaluate (VariableStore vars) {
+					return (a.evaluate(vars) != 0 && b.evaluate(vars) != 0) ? 1 : 0;
+				}
+			};
+		}
+
+		return left;
+	}
+
+	private Expression parseNot () {
+		if (peek('!') && peekAt(1) != '=') {
+			pos++;
+			final Expression a = checkType(parseNot(), BOOLEAN, "!");
+
+			return new Expression(BOOLEAN) {
+				@Override
+				public int evaluate (VariableStore vars) {
+					return a.evaluate(vars) ^ 1;
+				}
+			};
+		}
+
+		return parseComparison();
+	}
+
+	private Expression parseComparison () {
+		Expression left = parseSum();
+
+		String op;
+		if (match("=="))
+			op = "==";
+		else if (match("!="))
+			op = "!=";
+		else if (match("<="))
+			op = "<=";
+		else if (match(">="))
+			op = ">=";
+		else if (match("<"))
+			op = "<";
+		else if (match(">"))
+			op = ">";
+		else
+			return left;
+
+		final Expression a = left;
+		final Expression b = parseSum();
+
+		if (op.equals("==") || op.equals("!=")) {
+			if (a.getType() != b.getType()) throw error("Can't compare int with boolean");
+		} else {
+			checkType(a, INT, op);
+			checkType(b, INT, op);
+		}
+
+		switch (op) {
+			case "==":
+				return new Expression(BOOLEAN) {
+					@Override
+					public int evaluate (VariableStore vars) {
+						return a.evaluate(vars) == b.evaluate(vars) ? 1 : 0;
+					}
+				};
+			case "!=":
+				return new Expression(BOOLEAN) {
+					@Override
+					public int evaluate (VariableStore vars) {
+						return a.evaluate(vars) != b.evaluate(vars) ? 1 : 0;
+					}
+				};
+			case "<=":
+				return new Expression(BOOLEAN) {
+					@Override
+					public int evaluate (VariableStore vars) {
+						return a.evaluate(vars) <= b.evaluate(vars) ? 1 : 0;
+					}
+				};
+			case ">=":
+				return new Expression(BOOLEAN) {
+					@Override
+					public int evaluate (VariableStore vars) {
+						return a.evaluate(vars) >= b.evaluate(vars) ? 1 : 0;
+					}
+				};
+			case "<":
+				return new Expression(BOOLEAN) {
+					@Override
+					public int evaluate (VariableStore vars) {
+						return a.evaluate(vars) < b.evaluate(vars) ? 1 : 0;
+					}
+				};
+			default:
+				return new Expression(BOOLEAN) {
+					@Override
+					public int evaluate (VariableStore vars) {
+						return a.evaluate(vars) > b.evaluate(vars) ? 1 : 0;
+					}
+				};
+		}
+	}
+
+	private Expression parseSum () {
+		Expression left = parseTerm();
+
+		while (true) {
+			boolean add;
+			if (match("+"))
+				add = true;
+			else if (match("-"))
+				add = false;
+			else
+				return left;
+
+			final Expression a = checkType(left, INT, add ? "+" : "-");
+			final Expression b = checkType(parseTerm(), INT, add ? "+" : "-");
+
+			if (add)
+				left = new Expression(INT) {
+					@Override
+					public int evaluate (VariableStore vars) {
+						return a.evaluate(vars) + b.evaluate(vars);
+					}
+				};
+			else
+				left = new Expression(INT) {
+					@Override
+					public int evaluate (VariableStore vars) {
+						return a.evaluate(vars) - b.evaluate(vars);
+					}
+				};
+		}
+	}
+
+	private Expression parseTerm () {
+		Expression left = parseUnary();
+
+		while (true) {
+			char op;
+			if (match("*"))
+				op = '*';
+			else if (match("/"))
+				op = '/';
+			else if (match("%"))
+				op = '%';
+			else
+				return left;
+
+			final Expression a = checkType(left, INT, String.valueOf(op));
+			skipWhitespace();
+			int divisorStart = pos;
+			final Expression b = checkType(parseUnary(), INT, String.valueOf(op));
+
+			if (op != '*' && b instanceof Constant && ((Constant) b).value == 0) {
+				pos = divisorStart;
+				throw error("Division by zero");
+			}
+
+			if (op == '*')
+				left = new Expression(INT) {
+					@Override
+					public int evaluate (VariableStore vars) {
+						return a.evaluate(vars) * b.evaluate(vars);
+					}
+				};
+			else if (op == '/')
+				left = new Expression(INT) {
+					@Override
+					public int evaluate (VariableStore vars) {
+						int divisor = b.evaluate(vars);
+						return divisor == 0 ? 0 : a.evaluate(vars) / divisor;
+					}
+				};
+			else
+				left = new Expression(INT) {
+					@Override
+					public int evaluate (VariableStore vars) {
+						int divisor = b.evaluate(vars);
+						return divisor == 0 ? 0 : a.evaluate(vars) % divisor;
+					}
+				};
+		}
+	}
+
+	private Expression parseUnary () {
+		if (match("-")) {
+			final Expression a = checkType(parseUnary(), INT, "-");
+
+			return new Expression(INT) {
+				@Override
+				public int evaluate (VariableStore vars) {
+					return -a.evaluate(vars);
+				}
+			};
+		}
+
+		return parsePrimary();
+	}
+
+	private Expression parsePrimary () {
+		skipWhitespace();
+		if (pos == source.length()) throw error("Unexpected end of expression");
+
+		char c = source.charAt(pos);
+
+		if (c == '(') {
+			pos++;
+			Expression expr = parseOr();
+			if (match(")") == false) throw error("Missing ')'");
+			return expr;
+		}
+
+		if (Character.isDigit(c)) {
+			int start = pos;
+			while (pos < source.length() && Character.isDigit(source.charAt(pos)))
+				pos++;
+
+			String literal = source.substring(start, pos);
+
+			try {
+				return constant(INT, Integer.parseInt(literal));
+			} catch (NumberFormatException e) {
+				pos = start;
+				throw error("Number '" + literal + "' is too big");
+			}
+		}
+
+		if (Character.isJavaIdentifierStart(c)) {
+			int start = pos;
+			while (pos < source.length() && (Character.isJavaIdentifierPart(source.charAt(pos)) || source.charAt(pos) == '.'))
+				pos++;
+
+			String name = source.substring(start, pos);
+
+			if (name.equals("true")) return constant(BOOLEAN, 1);
+			if (name.equals("false")) return constant(BOOLEAN, 0);
+
+			final int slot = vars.getSlot(name);
+			if (slot == -1) throw error("Unknown variable '" + name + "'");
+
+			return new Expression(vars.getType(slot)) {
+				@Override
+				public int evaluate (VariableStore vars) {
+					return vars.getInt(slot);
+				}
+			};
+		}
+
+		throw error("Unexpected character '" + c + "'");
+	}
+
+	private Expression constant (byte type, int value) {
+		return new Constant(type, value);
+	}
+
+	private Expression checkType (Expression expr, byte type, String operator) {
+		if (expr.getType() != type)
+			throw error("Operator '" + operator + "' requires " + (type == INT ? "int" : "boolean") + " operands");
+
+		return expr;
+	}
+
+	private boolean match (String token) {
+		skipWhitespace();
+		if (source.startsWith(token, pos)) {
+			pos += token.length();
+			return true;
+		}
+
+		return false;
+	}
+
+	private boolean peek (char c) {
+		skipWhitespace();
+		return pos < source.length() && source.charAt(pos) == c;
+	}
+
+	private char peekAt (int offset) {
+		return pos + offset < source.length() ? source.charAt(pos + offset) : 0;
+	}
+
+	private void skipWhitespace () {
+		while (pos < source.length() && Character.isWhitespace(source.charAt(pos)))
+			pos++;
+	}
+
+	private DialogueParserException error (String message) {
+		return new DialogueParserException("Invalid expression '" + source + "' at " + pos + ": " + message);
+	}
+
+	/** Literal operand, kept as separate class so compiler can check value of divisor */
+	private static class Constant extends Expression {
+		final int value;
+
+		Constant (byte type, int value) {
+			super(type);
+			this.value = value;
+		}
+
+		@Override
+		public int evaluate (VariableStore vars) {
+			return value;
+		}
+	}
+}
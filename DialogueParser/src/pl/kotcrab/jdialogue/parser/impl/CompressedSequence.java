@@ -0,0 +1,333 @@
+/*******************************************************************************
+ * Copyright 2014 Pawel Pastuszak
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package pl.kotcrab.jdialogue.parser.impl;
+
+import pl.kotcrab.jdialogue.parser.ComponentType;
+import pl.kotcrab.jdialogue.parser.DialogueParserException;
+import pl.kotcrab.jdialogue.parser.DialogueSequence;
+import pl.kotcrab.jdialogue.parser.MemoryEstimator;
+import pl.kotcrab.jdialogue.parser.SequenceNode;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Sequence that keeps text of text and choice nodes compressed in memory, for devices where strings of all lines don't fit into
+ * dialogue memory budget. Strings are stored in blocks of {@link #STRINGS_PER_BLOCK}, every block is deflated separately, so
+ * showing a line decodes only its block. Text and choice nodes are created when they are needed and only few recently used
+ * nodes are kept, other nodes don't have text that would be worth compressing and are kept as they are.
+ * <p>
+ * Getting node that isn't decoded costs inflating one block and creating node, including parsing its template and markup.
+ * Sequence is not thread safe.
+ *
+ * <pre>
+ * block: strings, each: int length in bytes (-1 for null), UTF-8 bytes
+ * </pre>
+ *
+ * @author Pawel Pastuszak
+ */
+public class CompressedSequence implements DialogueSequence {
+	public static final int STRINGS_PER_BLOCK = 32;
+
+	private static final ComponentType[] TYPES = ComponentType.values();
+
+	private String name;
+	private int startTarget;
+	private long hash;
+
+	private SequenceNode[] nodes; // nodes without text, null for text and choice nodes
+	private byte[] types;
+	private int[][] targets;
+	private int[] characters;
+	private int[][] callbacks;
+	private int[] stringIndex; // first string of node, node has stringIndex[i + 1] - stringIndex[i] strings: text and choices
+
+	private byte[] data;
+	private int[] blockOffsets;
+	private int[] blockSizes;
+
+	private byte[] blockBuffer;
+	private int decodedBlock = -1;
+	private String[] blockStrings = new String[STRINGS_PER_BLOCK];
+
+	private LinkedHashMap<Integer, SequenceNode> decodedNodes;
+	private long decodedSize;
+	private long storageSize;
+
+	/**
+	 * @param maxDecodedNodes max number of text and choice nodes kept decoded
+	 */
+	public CompressedSequence (DialogueSequence sequence, final int maxDecodedNodes) {
+		if (maxDecodedNodes < 1) throw new IllegalArgumentException("maxDecodedNodes must be at least 1");
+
+		name = sequence.getName();
+		startTarget = sequence.getStartTarget();
+		hash = sequence.getHash();
+
+		int count = sequence.getNodeCount();
+		nodes = new SequenceNode[count];
+		types = new byte[count];
+		targets = new int[count][];
+		characters = new int[count];
+		callbacks = new int[count][];
+		stringIndex = new int[count + 1];
+
+		ArrayList<String> strings = new ArrayList<>();
+
+		for (int i = 0; i < count; i++) {
+			SequenceNode node = sequence.getNode(i);
+			ComponentType type = node.getType();
+			stringIndex[i] = strings.size();
+
+			if (type != ComponentType.TEXT && type != ComponentType.CHOICE) {
+				nodes[i] = node;
+				continue;
+			}
+
+			types[i] = (byte) type.ordinal();
+			targets[i] = node.getTargets();
+			characters[i] = node.getCharacter();
+			callbacks[i] = node.getCallbacks();
+
+			strings.add(node.getText());
+			if (type == ComponentType.CHOICE) {
+				for (String choice : node.getChoices())
+					strings.add(choice);
+			}
+		}
+
+		stringIndex[count] = strings.size();
+
+		try {
+			compress(strings);
+		} catch (IOException e) { // streams are in memory
+			throw new IllegalStateException(e);
+		}
+
+		decodedNodes = new LinkedHashMap<Integer, SequenceNode>(maxDecodedNodes + 1, 1f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry (Map.Entry<Integer, SequenceNode> eldest) {
+				if (size() > maxDecodedNodes) {
+					decodedSize -= MemoryEstimator.node(eldest.getValue());
+					return true;
+				}
+
+				return false;
+			}
+		};
+
+		storageSize = MemoryEstimator.object(3 * 4 + 2 * 8 + 16 * MemoryEstimator.REFERENCE) + MemoryEstimator.string(name) + MemoryEstimator.nodes(nodes);
+		storageSize += MemoryEstimator.byteArray(types) + MemoryEstimator.intArray(characters) + MemoryEstimator.intArray(stringIndex);
+		storageSize += 2 * MemoryEstimator.referenceArray(count);
+		for (int i = 0; i < count; i++) {
+			if (nodes[i] != null) continue;
+			storageSize += MemoryEstimator.intArray(targets[i]) + MemoryEstimator.intArray(callbacks[i]);
+		}
+
+		storageSize += MemoryEstimator.byteArray(data) + MemoryEstimator.intArray(blockOffsets) + MemoryEstimator.intArray(blockSizes);
+		storageSize += MemoryEstimator.byteArray(blockBuffer) + MemoryEstimator.referenceArray(STRINGS_PER_BLOCK);
+	}
+
+	private void compress (ArrayList<String> strings) throws IOException {
+		int blockCount = (strings.size() + STRINGS_PER_BLOCK - 1) / STRINGS_PER_BLOCK;
+		blockOffsets = new int[blockCount + 1];
+		blockSizes = new int[blockCount];
+
+		ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+		ByteArrayOutputStream raw = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(raw);
+		Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION, true);
+		byte[] buffer = new byte[4096];
+		int maxBlockSize = 0;
+
+		for (int block = 0; block < blockCount; block++) {
+			raw.reset();
+
+			int end = Math.min(strings.size(), (block + 1) * STRINGS_PER_BLOCK);
+			for (int i = block * STRINGS_PER_BLOCK; i < end; i++) {
+				String string = strings.get(i);
+				if (string == null)
+					out.writeInt(-1);
+				else {
+					byte[] bytes = string.getBytes(PagedSequence.UTF8);
+					out.writeInt(bytes.length);
+					out.write(bytes);
+				}
+			}
+
+			out.flush();
+			byte[] bytes = raw.toByteArray();
+			blockSizes[block] = bytes.length;
+			maxBlockSize = Math.max(maxBlockSize, bytes.length);
+
+			deflater.reset();
+			deflater.setInput(bytes);
+			deflater.finish();
+
+			while (deflater.finished() == false)
+				compressed.write(buffer, 0, deflater.deflate(buffer));
+
+			blockOffsets[block + 1] = compressed.size();
+		}
+
+		deflater.end();
+
+		data = compressed.toByteArray();
+		blockBuffer = new byte[maxBlockSize];
+	}
+
+	@Override
+	public String getName () {
+		return name;
+	}
+
+	@Override
+	public int getStartTarget () {
+		return startTarget;
+	}
+
+	@Override
+	public int getNodeCount () {
+		return nodes.length;
+	}
+
+	@Override
+	public SequenceNode getNode (int id) {
+		SequenceNode node = nodes[id];
+		if (node != null) return node;
+
+		node = decodedNodes.get(id);
+
+		if (node == null) {
+			node = createNode(id);
+			decodedNodes.put(id, node);
+			decodedSize += MemoryEstimator.node(node);
+		}
+
+		return node;
+	}
+
+	/**
+	 * @return number of text and choice nodes currently kept decoded
+	 */
+	public int getDecodedNodes () {
+		return decodedNodes.size();
+	}
+
+	/**
+	 * @return size of compressed text in bytes
+	 */
+	public int getCompressedSize () {
+		return data.length;
+	}
+
+	/**
+	 * @return estimated size of compressed storage, nodes without text and currently decoded nodes and block
+	 */
+	@Override
+	public long getHash () {
+		return hash;
+	}
+
+	@Override
+	public long estimateSize () {
+		long size = storageSize + MemoryEstimator.hashMap(decodedNodes.size()) + decodedSize;
+
+		for (String string : blockStrings)
+			size += MemoryEstimator.string(string);
+
+		return size;
+	}
+
+	private SequenceNode createNode (int id) {
+		ComponentType type = TYPES[types[id]];
+		int first = stringIndex[id];
+
+		String text = getString(first);
+		String[] choices = null;
+
+		if (type == ComponentType.CHOICE) {
+			choices = new String[stringIndex[id + 1] - first - 1];
+
+			for (int i = 0; i < choices.length; i++)
+				choices[i] = getString(first + 1 + i);
+		}
+
+		return new SequenceNode(id, type, targets[id], text, characters[id], callbacks[id], choices, null);
+	}
+
+	private String getString (int index) {
+		int block = index / STRINGS_PER_BLOCK;
+		if (block != decodedBlock) decodeBlock(block);
+
+		return blockStrings[index % STRINGS_PER_BLOCK];
+	}
+
+	private void decodeBlock (int block) {
+		// inflater is created for each block, so sequences kept in cache don't hold native memory
+		Inflater inflater = new Inflater(true);
+
+		try {
+			inflater.setInput(data, blockOffsets[block], blockOffsets[block + 1] - blockOffsets[block]);
+
+			int size = blockSizes[block];
+			int read = 0;
+			while (read < size) {
+				int inflated = inflater.inflate(blockBuffer, read, size - read);
+				if (inflated == 0 && (inflater.finished() || inflater.needsInput())) break;
+				read += inflated;
+			}
+
+			if (read != size) throw new DialogueParserException("Compressed text of sequence '" + name + "' is corrupted.");
+		} catch (DataFormatException e) {
+			throw new DialogueParserException("Compressed text of sequence '" + name + "' is corrupted.");
+		} finally {
+			inflater.end();
+		}
+
+		ByteBuffer in = ByteBuffer.wrap(blockBuffer, 0, blockSizes[block]);
+		int count = Math.min(STRINGS_PER_BLOCK, stringIndex[nodes.length] - block * STRINGS_PER_BLOCK);
+
+		for (int i = 0; i < STRINGS_PER_BLOCK; i++) {
+			if (i >= count) {
+				blockStrings[i] = null;
+				continue;
+			}
+
+			int length = in.getInt();
+
+			if (length == -1)
+				blockStrings[i] = null;
+			else {
+				blockStrings[i] = new String(blockBuffer, in.position(), length, PagedSequence.UTF8);
+				in.position(in.position() + length);
+			}
+		}
+
+		decodedBlock = block;
+	}
+}
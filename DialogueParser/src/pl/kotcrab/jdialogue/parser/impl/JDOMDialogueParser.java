@@ -20,150 +20,670 @@ import org.jdom2.Document;
 import org.jdom2.Element;
 import org.jdom2.JDOMException;
 import org.jdom2.input.SAXBuilder;
+import pl.kotcrab.jdialogue.codec.Codec;
+import pl.kotcrab.jdialogue.codec.Codecs;
 import pl.kotcrab.jdialogue.loader.DialogueLoader;
 import pl.kotcrab.jdialogue.parser.CallbackListener;
+import pl.kotcrab.jdialogue.parser.CompiledProject;
 import pl.kotcrab.jdialogue.parser.ComponentType;
+import pl.kotcrab.jdialogue.parser.DialogueBacklog;
+import pl.kotcrab.jdialogue.parser.DialogueMonitor;
 import pl.kotcrab.jdialogue.parser.DialogueParser;
 import pl.kotcrab.jdialogue.parser.DialogueParserException;
+import pl.kotcrab.jdialogue.parser.DialogueRandom;
+import pl.kotcrab.jdialogue.parser.DialogueSequence;
 import pl.kotcrab.jdialogue.parser.PCallback;
 import pl.kotcrab.jdialogue.parser.PCharacter;
 import pl.kotcrab.jdialogue.parser.Project;
-
-import java.io.File;
-import java.io.FileInputStream;
+import pl.kotcrab.jdialogue.parser.SeenNodes;
+import pl.kotcrab.jdialogue.parser.SequenceCache;
+import pl.kotcrab.jdialogue.parser.SequenceLookahead;
+import pl.kotcrab.jdialogue.parser.SequenceManifest;
+import pl.kotcrab.jdialogue.parser.SequenceNode;
+import pl.kotcrab.jdialogue.parser.SessionStore;
+import pl.kotcrab.jdialogue.parser.SplitMixRandom;
+import pl.kotcrab.jdialogue.parser.StyledText;
+import pl.kotcrab.jdialogue.parser.TextTemplate;
+import pl.kotcrab.jdialogue.parser.TextVariables;
+import pl.kotcrab.jdialogue.parser.VariableStore;
+import pl.kotcrab.jdialogue.parser.expression.ExpressionCompiler;
+
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
-import java.util.Random;
 import java.util.StringTokenizer;
-import java.util.zip.GZIPInputStream;
 
 public class JDOMDialogueParser extends DialogueParser {
-	private Random random = new Random();
+	private DialogueRandom random = new SplitMixRandom();
 
 	private ArrayList<CallbackListener> listeners = new ArrayList<>();
 
+	private DialogueLoader loader;
+	private CompiledProject compiledProject;
 	private Project project;
-	private String projectPath;
 
-	private List<Element> elementList;
-	private Element currentElement;
+	private int windowPages = 0;
+	private int decodedNodes = 0;
+
+	private VariableStore variables = new VariableStore();
+	private TextVariables textVariables;
+	private StringBuilder textBuilder = new StringBuilder();
+
+	private SequenceCache cache = new SequenceCache(0);
+	private DialogueSequence sequence;
+	private SequenceNode currentNode;
 
 	private ComponentType currentComponentType;
 	private int target = -1;
 
 	private PCharacter currentCharacterData;
-	private boolean lastCallbackCheckResult;
+	private boolean lastCheckResult;
 
 	private String[] msgText;
+	private StyledText[] msgStyles;
 	private int currentMsg;
+	private int lastMsg;
+	private int recordedMsg; // number of lines of current message added to backlog
+
+	private DialogueBacklog backlog;
+
+	private SeenNodes seenNodes;
+	private boolean currentSeen;
+
+	private SequenceLookahead lookahead;
+
+	private DialogueMonitor monitor;
 
 	public JDOMDialogueParser (DialogueLoader projectFile, int maxChars) {
+		this(projectFile, maxChars, null);
+	}
+
+	/**
+	 * Creates parser that reports loading of project and all following work to monitor
+	 */
+	public JDOMDialogueParser (DialogueLoader projectFile, int maxChars, DialogueMonitor monitor) {
 		super(projectFile, maxChars);
 
+		loader = projectFile;
+		this.monitor = monitor;
+
+		if (monitor != null) monitor.projectLoadBegin();
 		project = loadProject(projectFile);
-		projectPath = projectFile.getFile().getParent() + File.separator;
+		if (monitor != null) monitor.projectLoadEnd(project.getName(), project.getCharacters().length, project.getCallbacks().length);
+	}
+
+	/**
+	 * Creates parser for project that was already loaded with {@link #loadProject(DialogueLoader)}, for example by
+	 * {@link pl.kotcrab.jdialogue.loader.GdxProjectAssetLoader}, no files are read. Loader is used only for sequences.
+	 */
+	public JDOMDialogueParser (DialogueLoader projectFile, Project project, int maxChars) {
+		super(projectFile, maxChars);
+
+		loader = projectFile;
+		this.project = project;
+	}
+
+	/**
+	 * Creates parser for project compiled into Java source by editor, no files are read. Windowed loading has no effect for
+	 * compiled projects.
+	 */
+	public JDOMDialogueParser (CompiledProject compiledProject, int maxChars) {
+		super(null, maxChars);
+
+		this.compiledProject = compiledProject;
+		project = compiledProject.getProject();
+	}
+
+	/**
+	 * Enables windowed loading of sequences. When enabled, sequences are read from paged '.dpk' files created by
+	 * {@link PagedSequenceWriter} instead of exported xml files, and only pages of nodes near current component are kept in
+	 * memory. Files are memory mapped when loader reads them from file system, with other loaders (zip, classpath, libGDX
+	 * internal files) each page is read from loader when it is needed. Must be called before startSequence.
+	 * @param maxResidentPages max number of node pages kept in memory, 0 to load whole sequences from xml files (default)
+	 */
+	public void setWindowedLoading (int maxResidentPages) {
+		windowPages = maxResidentPages;
+		sequence = null;
+		cache.clear();
+	}
+
+	/**
+	 * Switches between speed and memory optimized storage of text. When enabled, text of sequences loaded from xml files is
+	 * kept compressed in memory by {@link CompressedSequence} and only few recently shown text and choice nodes are kept
+	 * decoded, showing other line costs decompressing small block of text. Has no effect for windowed loading and compiled
+	 * projects, which don't keep all text in memory. Must be called before startSequence.
+	 * @param maxDecodedNodes max number of decoded text and choice nodes per sequence, 0 to keep all text as strings (default,
+	 * fastest)
+	 */
+	public void setCompressedText (int maxDecodedNodes) {
+		decodedNodes = maxDecodedNodes;
+		sequence = null;
+		cache.clear();
+	}
+
+	/**
+	 * Sets variables used by condition components. Expressions are compiled when sequence is loaded, so all variables used by
+	 * sequence must be defined before calling startSequence.
+	 */
+	public void setVariableStore (VariableStore variables) {
+		this.variables = variables;
+		sequence = null;
+		cache.clear();
+	}
+
+	public VariableStore getVariableStore () {
+		return variables;
+	}
+
+	/**
+	 * Sets source of values for variables in text, like {playerName}. Text is rendered into reused builder and wrapped after
+	 * substitution. When not set, variables are taken from {@link VariableStore}.
+	 */
+	public void setTextVariables (TextVariables textVariables) {
+		this.textVariables = textVariables;
+	}
+
+	public TextVariables getTextVariables () {
+		return textVariables != null ? textVariables : variables;
+	}
+
+	/**
+	 * Sets cache used to keep loaded sequences and wrapped text. Default cache has budget of 0, so only current sequence is
+	 * kept. Cache may be shared by parsers of the same project that use the same loading mode and variable store.
+	 */
+	public void setSequenceCache (SequenceCache cache) {
+		this.cache = cache;
+		sequence = null;
+	}
+
+	public SequenceCache getSequenceCache () {
+		return cache;
+	}
+
+	/**
+	 * Sets backlog that records every shown line and selected choice, null to disable recording (default). Backlog may be
+	 * replaced at any time, for example when loading save.
+	 */
+	public void setBacklog (DialogueBacklog backlog) {
+		this.backlog = backlog;
+	}
+
+	public DialogueBacklog getBacklog () {
+		return backlog;
+	}
+
+	/**
+	 * Sets storage of text nodes that were already shown, null to disable tracking (default). Text node is marked as seen when
+	 * it is processed. Seen nodes of sequence are forgotten when its hash changes, sequences exported before hashes were added
+	 * have hash 0, so their seen nodes are kept even when they change.
+	 */
+	public void setSeenNodes (SeenNodes seenNodes) {
+		this.seenNodes = seenNodes;
+	}
+
+	public SeenNodes getSeenNodes () {
+		return seenNodes;
+	}
+
+	/**
+	 * @return true if current component is text that was already seen before it was processed this time, always false when seen
+	 * nodes are not tracked
+	 */
+	public boolean isSeen () {
+		return currentSeen;
+	}
+
+	/**
+	 * Skips already seen text. Processes components until it reaches text that wasn't seen yet, choice or end of sequence, or
+	 * until maxSteps components were processed. Seen text is not shown and not added to backlog, callbacks are fired as usual.
+	 * Stopped component is processed the same way as by {@link #processNextComponent()}, renderer only displays it.
+	 * @param maxSteps limit for sequences that loop through seen text, if it is less than 1 nothing is processed
+	 * @return type of component where fast forward stopped, type of current component if nothing was processed
+	 */
+	public ComponentType fastForward (int maxSteps) {
+		if (maxSteps < 1) return currentComponentType;
+
+		ComponentType type = processNextComponent();
+
+		for (int i = 1; i < maxSteps; i++) {
+			if (type == ComponentType.CHOICE || type == ComponentType.END) break;
+			if (type == ComponentType.TEXT && currentSeen == false) break;
+
+			moveToNextComponent();
+			type = processNextComponent();
+		}
+
+		return type;
+	}
+
+	/**
+	 * @return text of backlog entry as it was shown, null if line doesn't exist anymore, for example after sequence was changed
+	 */
+	public String getBacklogText (DialogueBacklog.Entry entry) {
+		String text = entry.getText();
+		if (text != null) return text;
+
+		return getBacklogText(entry.getSequence(), entry.getNode(), entry.getLine());
 	}
 
+	/**
+	 * Resolves text of line from node. Lines are wrapped to current maxChars and sequence is loaded if it isn't cached anymore.
+	 * Text with variables is rendered with their current values, backlog keeps text of such lines as it was shown, so
+	 * {@link #getBacklogText(DialogueBacklog.Entry)} should be preferred.
+	 * @return text of line, null if node doesn't have such line
+	 */
+	public String getBacklogText (String sequenceName, int nodeId, int line) {
+		DialogueSequence sequence = this.sequence != null && this.sequence.getName().equals(sequenceName) ? this.sequence : getSequence(sequenceName);
+		if (nodeId < 0 || nodeId >= sequence.getNodeCount()) return null;
+
+		SequenceNode node = sequence.getNode(nodeId);
+
+		if (node.getType() == ComponentType.CHOICE && line != DialogueBacklog.TITLE) {
+			String[] choices = node.getChoices();
+			return line >= 0 && line < choices.length ? choices[line] : null;
+		}
+
+		TextTemplate template = node.getTemplate();
+		String text = template == null ? node.getText() : renderTemplate(template);
+		StyledText styled = template == null ? node.getStyledText() : StyledText.parse(text);
+
+		if (node.getType() == ComponentType.CHOICE || maxChars <= 0) return line == 0 || line == DialogueBacklog.TITLE ? (styled == null ? text : styled.getText()) : null;
+
+		if (styled != null) {
+			StyledText[] lines = splitIntoStyledLines(styled);
+			return line >= 0 && line < lines.length ? lines[line].getText() : null;
+		}
+
+		String[] lines = template == null ? cache.getLines(sequence, nodeId, maxChars) : null;
+		if (lines == null) lines = splitIntoLines(text);
+
+		return line >= 0 && line < lines.length ? lines[line] : null;
+	}
+
+	/**
+	 * Sets monitor that receives timing of sequence loading, steps and callbacks, null to disable monitoring (default)
+	 */
+	public void setMonitor (DialogueMonitor monitor) {
+		this.monitor = monitor;
+	}
+
+	public DialogueMonitor getMonitor () {
+		return monitor;
+	}
+
+	/**
+	 * @return estimated heap size of project and cached sequences in bytes, see {@link pl.kotcrab.jdialogue.parser.MemoryEstimator}
+	 */
+	public long estimateSize () {
+		long size = project.estimateSize() + cache.getSize();
+		if (sequence != null && cache.contains(sequence.getName()) == false) size += sequence.estimateSize();
+		return size;
+	}
+
+	/**
+	 * Starts sequence from beginning. If the same sequence was started before and it is still cached, already loaded nodes are
+	 * reused.
+	 */
 	@Override
 	public void startSequence (String name) {
-		try {
-			SAXBuilder builder = new SAXBuilder();
-			Document document;
+		sequence = getSequence(name);
+
+		target = sequence.getStartTarget();
+		currentNode = null;
+	}
+
+	/**
+	 * Starts sequence that was loaded outside of parser, for example by {@link pl.kotcrab.jdialogue.loader.GdxSequenceAssetLoader},
+	 * so no files are read. Sequence is put into cache, replacing cached sequence with the same name. Conditions of sequence must
+	 * be compiled for variable store of this parser.
+	 */
+	public void startSequence (DialogueSequence sequence) {
+		if (cache.get(sequence.getName()) != sequence) cache.put(sequence);
+
+		this.sequence = sequence;
+		target = sequence.getStartTarget();
+		currentNode = null;
+	}
+
+	/**
+	 * Starts sequence from beginning with random generator set to seed, so random components always choose the same targets
+	 * for the same seed and player decisions. Useful for replays and lockstep multiplayer.
+	 */
+	public void startSequence (String name, long seed) {
+		startSequence(name);
+		random.setState(seed);
+	}
+
+	/**
+	 * Sets random generator used by random components, default is {@link SplitMixRandom} with unique seed
+	 */
+	public void setRandom (DialogueRandom random) {
+		this.random = random;
+	}
+
+	public DialogueRandom getRandom () {
+		return random;
+	}
 
-			if (project.isGzipExport())
-				document = builder.build(new GZIPInputStream(new FileInputStream(new File(projectPath + name + ".xml"))));
+	private DialogueSequence getSequence (String name) {
+		DialogueSequence sequence = cache.get(name);
+
+		if (sequence == null) {
+			if (monitor == null)
+				sequence = loadSequence(name);
 			else
-				document = builder.build(new File(projectPath + name + ".xml"));
+				sequence = loadMonitoredSequence(name);
 
-			Element rootNode = document.getRootElement();
+			cache.put(sequence);
+		}
+
+		return sequence;
+	}
+
+	private DialogueSequence loadSequence (String name) {
+		return loadSequence(name, null, null);
+	}
+
+	private DialogueSequence loadMonitoredSequence (String name) {
+		monitor.sequenceLoadBegin(name);
+
+		CountingInputStream compressed = null;
+		CountingInputStream decoded = null;
+
+		if (compiledProject == null && windowPages == 0) {
+			compressed = new CountingInputStream();
+			decoded = new CountingInputStream();
+		}
+
+		DialogueSequence sequence = loadSequence(name, compressed, decoded);
+
+		if (compiledProject != null)
+			monitor.sequenceLoadEnd(name, null, 0, 0, sequence.getNodeCount());
+		else if (windowPages > 0) {
+			long bytes = ((PagedSequence) sequence).getFileSize();
+			monitor.sequenceLoadEnd(name, null, bytes, bytes, sequence.getNodeCount());
+		} else
+			monitor.sequenceLoadEnd(name, project.getCodec().getName(), compressed.count, decoded.count, sequence.getNodeCount());
+
+		return sequence;
+	}
 
-			elementList = rootNode.getChildren();
+	/**
+	 * Paged files of random access loaders are read as buffer, which is memory mapped or already in memory. Other loaders would
+	 * copy whole file to heap, so pages are read from their streams when they are needed.
+	 */
+	private PagedSequence openPagedSequence (String name, ExpressionCompiler compiler) throws IOException {
+		String fileName = name + ".dpk";
+
+		if (loader.isRandomAccess())
+			return new PagedSequence(name, loader.read(fileName), windowPages, compiler);
+		else
+			return new PagedSequence(name, loader, fileName, windowPages, compiler);
+	}
 
-			Element startNode = rootNode.getChildren("dStart").get(0);
-			target = Integer.valueOf(startNode.getChildText("target0"));
+	/**
+	 * @param compressed if not null, counts bytes read from loader, only for xml sequences
+	 * @param decoded if not null, counts bytes after decoding, only for xml sequences
+	 */
+	private DialogueSequence loadSequence (String name, CountingInputStream compressed, CountingInputStream decoded) {
+		ExpressionCompiler compiler = new ExpressionCompiler(variables);
+		DialogueSequence sequence;
+
+		if (compiledProject != null) {
+			sequence = compiledProject.getSequence(name, compiler);
+			if (sequence == null) throw new DialogueParserException("Could not load sequence: " + name);
+			return sequence;
+		}
+
+		try {
+			if (windowPages > 0)
+				sequence = openPagedSequence(name, compiler);
+			else {
+				InputStream in = loader.open(name + ".xml");
+				if (compressed != null) in = compressed.wrap(in);
+
+				in = project.getCodec().decode(in);
+				if (decoded != null) in = decoded.wrap(in);
+
+				try {
+					sequence = JDOMSequenceReader.read(name, in, compiler);
+				} finally {
+					in.close();
+				}
+
+				if (decodedNodes > 0) sequence = new CompressedSequence(sequence, decodedNodes);
+			}
 		} catch (JDOMException | IOException e) {
-			if (e.getMessage().contains("Invalid byte 1 of 1-byte UTF-8 sequence."))
+			if (e.getMessage() != null && e.getMessage().contains("Invalid byte 1 of 1-byte UTF-8 sequence."))
 				throw new DialogueParserException("Error decoding file.");
 
 			e.printStackTrace();
+			throw new DialogueParserException("Could not load sequence: " + name);
 		}
+
+		return sequence;
+	}
+
+	/**
+	 * Writes cursor of current session to store, including state of random generator, so restored session continues exactly
+	 * the same way as parser would.
+	 * @throws IllegalStateException if no sequence was started
+	 */
+	public void saveSession (SessionStore store, int handle) {
+		if (sequence == null) throw new IllegalStateException("Can't save session, no sequence was started");
+
+		store.setSequence(handle, sequence.getName());
+		store.setCursor(handle, currentNode == null ? -1 : currentNode.getId(), target, currentMsg, random.getState(), lastCheckResult ? SessionStore.FLAG_CHECK_RESULT : 0);
+	}
+
+	/**
+	 * Restores session saved with {@link #saveSession(SessionStore, int)}. Only current node is read from sequence, callbacks
+	 * of current node are not fired again. If sequence of session is different than sequence of previous session it is loaded
+	 * again, so sessions should be processed grouped by sequence when possible.
+	 */
+	public void restoreSession (SessionStore store, int handle) {
+		String name = store.getSequence(handle);
+
+		if (name == null) {
+			target = -1;
+			currentNode = null;
+			return;
+		}
+
+		if (sequence == null || sequence.getName().equals(name) == false) sequence = getSequence(name);
+
+		int node = store.getNode(handle);
+		target = store.getTarget(handle);
+		currentMsg = store.getMsgOffset(handle);
+		lastCheckResult = (store.getFlags(handle) & SessionStore.FLAG_CHECK_RESULT) != 0;
+		random.setState(store.getRandomState(handle));
+
+		if (node == -1) {
+			currentNode = null;
+			currentComponentType = null;
+			return;
+		}
+
+		currentNode = sequence.getNode(node);
+		currentComponentType = currentNode.getType();
+
+		if (currentComponentType == ComponentType.TEXT || currentComponentType == ComponentType.CHOICE) {
+			prepareMessage();
+			recordedMsg = currentMsg; // lines shown before save are already in backlog
+		}
+	}
+
+	public Project getProject () {
+		return project;
+	}
+
+	/**
+	 * Finds characters that can speak within given number of steps from current position in sequence. Returned object is reused
+	 * by next call.
+	 */
+	public SequenceLookahead lookahead (int steps) {
+		if (lookahead == null) lookahead = new SequenceLookahead(project);
+
+		lookahead.collect(sequence, target, steps);
+		return lookahead;
 	}
 
 	@Override
 	public ComponentType processNextComponent () {
+		if (monitor == null) return processComponent();
+
+		monitor.stepBegin();
+		ComponentType type = processComponent();
+		monitor.stepEnd(sequence.getName(), currentNode.getId(), type);
+		return type;
+	}
+
+	private ComponentType processComponent () {
 		if (target == -1)
 			throw new DialogueParserException("target == -1. Did you call startSequence(String sequenceName) before calling processNextComponent()?");
 
-		currentElement = elementList.get(target);
+		currentNode = sequence.getNode(target);
+		currentComponentType = currentNode.getType();
+		currentSeen = false;
 
-		String name = currentElement.getName();
+		switch (currentComponentType) {
+			case CHOICE:
+				prepareMessage();
+				break;
 
-		if (name.equals("dEnd")) currentComponentType = ComponentType.END;
-		if (name.equals("dChoice")) {
-			currentComponentType = ComponentType.CHOICE;
-			msgText = new String[1];
-			msgText[0] = currentElement.getChildText("text");
+			case TEXT:
+				prepareMessage();
+				currentMsg = 0;
+				currentSeen = seenNodes != null && seenNodes.mark(sequence.getName(), sequence.getHash(), currentNode.getId());
+				break;
 
-		}
-		if (name.equals("dRandom")) currentComponentType = ComponentType.RANDOM;
-		if (name.equals("dRelay")) currentComponentType = ComponentType.RELAY;
+			case CALLBACK: {
+				int[] callbacks = currentNode.getCallbacks();
 
-		if (name.equals("dText")) {
-			int id = Integer.parseInt(currentElement.getChildText("character"));
-			currentCharacterData = project.getCharacterList().get(project.getCharacterMap().get(id));
+				for (int i = 0; i < callbacks.length; i++) {
+					String callbackText = project.getCallback(callbacks[i]).getName();
+					if (monitor != null) monitor.callbackBegin();
 
-			if (maxChars > 0)
-				msgText = splitIntoLines(currentElement.getChildText("text"));
-			else {
-				msgText = new String[1];
-				msgText[0] = currentElement.getChildText("text");
+					for (CallbackListener lis : listeners)
+						lis.handleCallback(callbackText);
+
+					if (monitor != null) monitor.callbackEnd(callbackText, false, false);
+				}
+				break;
 			}
-			currentMsg = 0;
 
-			currentComponentType = ComponentType.TEXT;
+			case CBCHECK: {
+				String callbackText = getCallbackText();
+				if (monitor != null) monitor.callbackBegin();
 
+				for (CallbackListener lis : listeners)
+					lastCheckResult = lis.handleCallbackCheck(callbackText);
+
+				if (monitor != null) monitor.callbackEnd(callbackText, true, lastCheckResult);
+				break;
+			}
+
+			case CONDITION:
+				lastCheckResult = currentNode.getCondition().test(variables);
+				break;
+
+			default:
+				break;
 		}
-		if (name.startsWith("dCallback")) {
-			int id = Integer.parseInt(currentElement.getChildText("callback"));
-			String callbackText = project.getCallbackList().get(project.getCallbackMap().get(id)).getName();
 
-			if (name.equals("dCallback")) {
-				for (CallbackListener lis : listeners)
-					lis.handleCallback(callbackText);
+		return currentComponentType;
+	}
+
+	private void prepareMessage () {
+		TextTemplate template = currentNode.getTemplate();
+		StyledText styled;
+		String text;
+
+		if (template == null) {
+			styled = currentNode.getStyledText();
+			text = currentNode.getText();
+		} else {
+			text = renderTemplate(template);
+			styled = StyledText.parse(text); // markup may come from variables, so it can't be parsed with node
+		}
+
+		if (styled != null) text = styled.getText();
+
+		lastMsg = 0;
+		recordedMsg = 0;
+		msgStyles = null;
+
+		if (currentComponentType == ComponentType.CHOICE) {
+			msgText = new String[1];
+			msgText[0] = text;
+			if (styled != null) msgStyles = new StyledText[] {styled};
+			return;
+		}
+
+		currentCharacterData = project.getCharacter(currentNode.getCharacter());
 
-				currentComponentType = ComponentType.CALLBACK;
+		if (maxChars > 0) {
+			if (styled != null) {
+				msgStyles = splitIntoStyledLines(styled);
+				msgText = new String[msgStyles.length];
+
+				for (int i = 0; i < msgStyles.length; i++)
+					msgText[i] = msgStyles[i].getText();
+
+				return;
 			}
 
-			if (name.equals("dCallbackCheck")) {
-				for (CallbackListener lis : listeners)
-					lastCallbackCheckResult = lis.handleCallbackCheck(callbackText);
+			// values may change, so lines of templates are not cached, lines of compressed text would take memory it saves
+			if (template != null || sequence instanceof CompressedSequence) {
+				msgText = splitIntoLines(text);
+				return;
+			}
+
+			msgText = cache.getLines(sequence, currentNode.getId(), maxChars);
 
-				currentComponentType = ComponentType.CBCHECK;
+			if (msgText == null) {
+				msgText = splitIntoLines(text);
+				cache.putLines(sequence, currentNode.getId(), maxChars, msgText);
 			}
+		} else {
+			msgText = new String[1];
+			msgText[0] = text;
+			if (styled != null) msgStyles = new StyledText[] {styled};
 		}
+	}
 
-		return currentComponentType;
+	private String renderTemplate (TextTemplate template) {
+		textBuilder.setLength(0);
+		template.render(getTextVariables(), textBuilder);
+		return textBuilder.toString();
+	}
+
+	private String getCallbackText () {
+		return project.getCallback(currentNode.getCallback()).getName();
 	}
 
 	@Override
 	public void moveToNextComponent (int target) {
-		if (currentComponentType == ComponentType.RANDOM) {
-			List<Element> randomList = currentElement.getChildren();
-			this.target = Integer.parseInt(randomList.get(1 + random.nextInt(randomList.size() - 1)).getText());
+		int[] targets = currentNode.getTargets();
 
+		if (currentComponentType == ComponentType.RANDOM) {
+			this.target = targets[random.nextInt(targets.length)];
 			return;
 		}
 
+		if (currentComponentType == ComponentType.CHOICE && backlog != null) backlog.add(sequence.getName(), currentNode.getId(), target);
+
 		if (currentComponentType != ComponentType.END)
-			this.target = Integer.valueOf(currentElement.getChildText("target" + target));
+			this.target = targets[target];
 	}
 
 	@Override
 	public void moveToNextComponent () {
-		if (currentComponentType == ComponentType.CBCHECK) {
-			if (lastCallbackCheckResult == true)
+		if (currentComponentType == ComponentType.CBCHECK || currentComponentType == ComponentType.CONDITION) {
+			if (lastCheckResult == true)
 				moveToNextComponent(0);
 			else
 				moveToNextComponent(1);
@@ -177,32 +697,43 @@ public class JDOMDialogueParser extends DialogueParser {
 	@Override
 	public String getMsg () {
 		if (maxChars > 0 && currentMsg < msgText.length) {
-			String text = msgText[currentMsg];
+			lastMsg = currentMsg;
 			currentMsg++;
-			return text;
 		} else
-			return msgText[0];
+			lastMsg = 0;
+
+		// every line is added once, even if renderer asks for it again
+		if (backlog != null && lastMsg == recordedMsg) {
+			int line = currentComponentType == ComponentType.CHOICE ? DialogueBacklog.TITLE : lastMsg;
+			// text with variables can't be resolved again later, values may change
+			backlog.add(sequence.getName(), currentNode.getId(), line, currentNode.getTemplate() != null ? msgText[lastMsg] : null);
+			recordedMsg++;
+		}
+
+		return msgText[lastMsg];
+	}
+
+	@Override
+	public StyledText getStyledMsg () {
+		return msgStyles == null ? null : msgStyles[lastMsg];
 	}
 
 	@Override
 	public boolean isCurrentMsgFinished () {
-		return currentMsg == msgText.length;
+		return currentMsg >= msgText.length;
 	}
 
 	@Override
 	public int getId () {
-		return Integer.parseInt(currentElement.getChildText("id"));
+		return currentNode.getId();
 	}
 
+	/**
+	 * @return choices of current choice component, array is shared and must not be modified
+	 */
 	@Override
 	public String[] getChoiceData () {
-		List<Element> choiceList = currentElement.getChildren("choiceData").get(0).getChildren("string");
-		String[] choiceData = new String[choiceList.size()];
-
-		for (int i = 0; i < choiceData.length; i++)
-			choiceData[i] = choiceList.get(i).getText();
-
-		return choiceData;
+		return currentNode.getChoices();
 	}
 
 	@Override
@@ -245,59 +776,176 @@ public class JDOMDialogueParser extends DialogueParser {
 		return output.toString().split("\n");
 	}
 
+	/**
+	 * Wraps plain text of styled text the same way as {@link #splitIntoLines(String)} but keeps positions in text so every line
+	 * gets its own slice of style runs, markup doesn't count into line length
+	 */
+	private StyledText[] splitIntoStyledLines (StyledText styled) {
+		String text = styled.getText();
+		int length = text.length();
+		ArrayList<StyledText> lines = new ArrayList<>();
+
+		int pos = 0;
+		while (true) {
+			while (pos < length && text.charAt(pos) == ' ')
+				pos++;
+
+			if (pos >= length) break;
+
+			int lineStart = pos;
+			int lineEnd = pos;
+
+			while (pos < length) {
+				int wordStart = pos;
+				while (wordStart < length && text.charAt(wordStart) == ' ')
+					wordStart++;
+
+				if (wordStart >= length) break;
+
+				int wordEnd = wordStart;
+				while (wordEnd < length && text.charAt(wordEnd) != ' ')
+					wordEnd++;
+
+				if (lineEnd == lineStart && wordEnd - wordStart > maxChars) { // word longer than line, split it
+					lineEnd = wordStart + maxChars;
+					pos = lineEnd;
+					break;
+				}
+
+				if (lineEnd != lineStart && wordEnd - lineStart > maxChars) break;
+
+				lineEnd = wordEnd;
+				pos = wordEnd;
+			}
+
+			lines.add(styled.slice(lineStart, lineEnd));
+		}
+
+		if (lines.size() == 0) lines.add(styled);
+
+		return lines.toArray(new StyledText[lines.size()]);
+	}
+
 	// =====================================LOADING PROJECT========================================
 
-	private Project loadProject (DialogueLoader projectFile) {
+	/**
+	 * Reads project file without creating parser, for loading project on background thread
+	 */
+	public static Project loadProject (DialogueLoader projectFile) {
 		String name = "";
-		boolean gzipExport = false;
-		ArrayList<PCharacter> characterList = new ArrayList<>();
-		HashMap<Integer, Integer> characterMap = new HashMap<>();
-		ArrayList<PCallback> callbackList = new ArrayList<>();
-		HashMap<Integer, Integer> callbackMap = new HashMap<>();
+		Codec codec;
+		PCharacter[] characters;
+		PCallback[] callbacks;
+		HashMap<String, SequenceManifest> manifests = new HashMap<>();
 
-		try {
+		try (InputStream in = projectFile.openProject()) {
 			SAXBuilder builder = new SAXBuilder();
-			Document document = builder.build(projectFile.getFile());
+			Document document = builder.build(in);
 			Element rootNode = document.getRootElement();
 
 			name = rootNode.getChildText("name");
-			gzipExport = Boolean.valueOf(rootNode.getChildText("gzipExport"));
 
-			List<Element> characterElementList = rootNode.getChild("characterList").getChildren();
-			for (Element el : characterElementList)
-				characterList.add(loadCharacter(el));
+			String codecName = rootNode.getChildText("codec");
+			if (codecName != null)
+				codec = Codecs.get(codecName);
+			else // exported before codecs were added
+				codec = Boolean.valueOf(rootNode.getChildText("gzipExport")) ? Codecs.GZIP : Codecs.NONE;
 
-			List<Element> callbackElementList = rootNode.getChild("callbackList").getChildren();
-			for (Element el : callbackElementList)
-				callbackList.add(loadCallback(el));
+			if (rootNode.getChild("characterMap") != null)
+				throw new DialogueParserException("Project was exported by older version of editor, export it again.");
 
-			List<Element> characterHaspMapElementList = rootNode.getChild("characterMap").getChildren();
-			for (Element el : characterHaspMapElementList)
-				characterMap.put(Integer.valueOf(el.getChildren().get(0).getText()), Integer.valueOf(el.getChildren().get(1).getText()));
+			List<Element> characterElementList = rootNode.getChild("characterList").getChildren();
+			characters = new PCharacter[characterElementList.size()];
+			for (int i = 0; i < characters.length; i++)
+				characters[i] = loadCharacter(characterElementList.get(i));
 
-			List<Element> callbackHaspMapElementList = rootNode.getChild("callbackMap").getChildren();
-			for (Element el : callbackHaspMapElementList)
-				callbackMap.put(Integer.valueOf(el.getChildren().get(0).getText()), Integer.valueOf(el.getChildren().get(1).getText()));
+			List<Element> callbackElementList = rootNode.getChild("callbackList").getChildren();
+			callbacks = new PCallback[callbackElementList.size()];
+			for (int i = 0; i < callbacks.length; i++)
+				callbacks[i] = loadCallback(callbackElementList.get(i));
+
+			Element manifestList = rootNode.getChild("manifestList");
+			if (manifestList != null) {
+				for (Element manifestElement : manifestList.getChildren()) {
+					SequenceManifest manifest = loadManifest(manifestElement);
+					manifests.put(manifest.getSequence(), manifest);
+				}
+			}
 
 		} catch (JDOMException | IOException e) {
 			throw new DialogueParserException("Chould not load project! Is your project.xml file correct?");
 		}
 
-		return new Project(name, gzipExport, characterList, characterMap, callbackList, callbackMap);
+		return new Project(name, codec, characters, callbacks, manifests);
 	}
 
-	private PCallback loadCallback (Element callbackElement) {
+	private static SequenceManifest loadManifest (Element manifestElement) {
+		String sequence = manifestElement.getChildText("sequence");
+
+		List<Element> characterList = manifestElement.getChild("characters").getChildren();
+		int[] characters = new int[characterList.size()];
+		for (int i = 0; i < characters.length; i++)
+			characters[i] = Integer.parseInt(characterList.get(i).getText());
+
+		List<Element> textureList = manifestElement.getChild("textureNames").getChildren();
+		String[] textureNames = new String[textureList.size()];
+		for (int i = 0; i < textureNames.length; i++)
+			textureNames[i] = textureList.get(i).getText();
+
+		return new SequenceManifest(sequence, characters, textureNames);
+	}
+
+	private static PCallback loadCallback (Element callbackElement) {
 		int id = Integer.valueOf(callbackElement.getChildText("id"));
 		String name = callbackElement.getChildText("name");
 
 		return new PCallback(id, name);
 	}
 
-	private PCharacter loadCharacter (Element characterElement) {
+	private static PCharacter loadCharacter (Element characterElement) {
 		int id = Integer.valueOf(characterElement.getChildText("id"));
 		String name = characterElement.getChildText("name");
 		String textureName = characterElement.getChildText("textureName");
 
 		return new PCharacter(id, name, textureName);
 	}
+
+	private static class CountingInputStream extends FilterInputStream {
+		long count;
+
+		CountingInputStream () {
+			super(null);
+		}
+
+		InputStream wrap (InputStream in) {
+			this.in = in;
+			return this;
+		}
+
+		@Override
+		public int read () throws IOException {
+			int b = in.read();
+			if (b != -1) count++;
+			return b;
+		}
+
+		@Override
+		public int read (byte[] b, int off, int len) throws IOException {
+			int read = in.read(b, off, len);
+			if (read > 0) count += read;
+			return read;
+		}
+
+		@Override
+		public long skip (long n) throws IOException {
+			long skipped = in.skip(n);
+			count += skipped;
+			return skipped;
+		}
+
+		@Override
+		public boolean markSupported () {
+			return false;
+		}
+	}
 }
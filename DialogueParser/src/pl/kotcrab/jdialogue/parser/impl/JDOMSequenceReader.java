@@ -0,0 +1,125 @@
+/*******************************************************************************
+ * Copyright 2014 Pawel Pastuszak
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+
+package pl.kotcrab.jdialogue.parser.impl;
+
+import org.jdom2.Document;
+import org.jdom2.Element;
+import org.jdom2.JDOMException;
+import org.jdom2.input.SAXBuilder;
+import pl.kotcrab.jdialogue.parser.ComponentType;
+import pl.kotcrab.jdialogue.parser.DialogueParserException;
+import pl.kotcrab.jdialogue.parser.SequenceNode;
+import pl.kotcrab.jdialogue.parser.expression.Expression;
+import pl.kotcrab.jdialogue.parser.expression.ExpressionCompiler;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+/**
+ * Reads exported sequence xml file into {@link LoadedSequence}. Document is only used while reading, it is not referenced
+ * after that. Hash of sequence content is read from 'hash' attribute of root element, written by editor during export.
+ *
+ * @author Pawel Pastuszak
+ */
+public class JDOMSequenceReader {
+	/**
+	 * @param compiler used to compile expressions of condition components, if null expressions are not compiled
+	 */
+	public static LoadedSequence read (String name, InputStream in, ExpressionCompiler compiler) throws JDOMException, IOException {
+		SAXBuilder builder = new SAXBuilder();
+		Document document = builder.build(in);
+
+		Element root = document.getRootElement();
+		List<Element> elementList = root.getChildren();
+		SequenceNode[] nodes = new SequenceNode[elementList.size()];
+		int startTarget = -1;
+
+		for (int i = 0; i < nodes.length; i++) {
+			nodes[i] = readNode(i, elementList.get(i), compiler);
+
+			if (nodes[i].getType() == ComponentType.START) startTarget = nodes[i].getTargets()[0];
+		}
+
+		if (startTarget == -1) throw new DialogueParserException("Sequence '" + name + "' does not have 'Start' component.");
+
+		String hash = root.getAttributeValue("hash");
+		return new LoadedSequence(name, startTarget, nodes, hash == null ? 0 : Long.parseLong(hash));
+	}
+
+	private static SequenceNode readNode (int index, Element element, ExpressionCompiler compiler) {
+		ComponentType type = getType(element.getName());
+
+		int id = Integer.parseInt(element.getChildText("id"));
+		if (id != index)
+			throw new DialogueParserException("Invalid component id: " + id + ", expected: " + index + ". Export sequence again.");
+
+		int targetCount = 0;
+		while (element.getChild("target" + targetCount) != null)
+			targetCount++;
+
+		int[] targets = new int[targetCount];
+		for (int i = 0; i < targetCount; i++)
+			targets[i] = Integer.parseInt(element.getChildText("target" + i));
+
+		String text = element.getChildText(type == ComponentType.CONDITION ? "expression" : "text");
+		int character = parseOptionalInt(element.getChildText("character"));
+		int[] callbacks = null;
+		List<Element> callbackList = element.getChildren("callback");
+		if (callbackList.size() > 0) {
+			callbacks = new int[callbackList.size()];
+
+			for (int i = 0; i < callbacks.length; i++)
+				callbacks[i] = Integer.parseInt(callbackList.get(i).getText());
+		}
+
+		String[] choices = null;
+		Element choiceData = element.getChild("choiceData");
+		if (choiceData != null) {
+			List<Element> choiceList = choiceData.getChildren("string");
+			choices = new String[choiceList.size()];
+
+			for (int i = 0; i < choices.length; i++)
+				choices[i] = choiceList.get(i).getText();
+		}
+
+		Expression condition = null;
+		if (type == ComponentType.CONDITION && compiler != null) condition = compiler.compileCondition(text);
+
+		return new SequenceNode(id, type, targets, text, character, callbacks, choices, condition);
+	}
+
+	private static int parseOptionalInt (String value) {
+		if (value == null) return -1;
+		return Integer.parseInt(value);
+	}
+
+	private static ComponentType getType (String name) {
+		if (name.equals("dText")) return ComponentType.TEXT;
+		if (name.equals("dChoice")) return ComponentType.CHOICE;
+		if (name.equals("dRandom")) return ComponentType.RANDOM;
+		if (name.equals("dCallback")) return ComponentType.CALLBACK;
+		if (name.equals("dCallbackCheck")) return ComponentType.CBCHECK;
+		if (name.equals("dEnd")) return ComponentType.END;
+		if (name.equals("dRelay")) return ComponentType.RELAY;
+		if (name.equals("dStart")) return ComponentType.START;
+		if (name.equals("dCondition")) return ComponentType.CONDITION;
+
+		throw new DialogueParserException("Unrecognized component type: " + name);
+	}
+}
@@ -0,0 +1,78 @@
+/*******************************************************************************
+ * Copyright 2014 Pawel Pastuszak
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+
+package pl.kotcrab.jdialogue.parser.impl;
+
+import pl.kotcrab.jdialogue.parser.DialogueSequence;
+import pl.kotcrab.jdialogue.parser.MemoryEstimator;
+import pl.kotcrab.jdialogue.parser.SequenceNode;
+
+/**
+ * Sequence with all nodes kept in memory
+ *
+ * @author Pawel Pastuszak
+ */
+public class LoadedSequence implements DialogueSequence {
+	private String name;
+	private int startTarget;
+	private SequenceNode[] nodes;
+	private long hash;
+
+	private long size = -1;
+
+	public LoadedSequence (String name, int startTarget, SequenceNode[] nodes) {
+		this(name, startTarget, nodes, 0);
+	}
+
+	public LoadedSequence (String name, int startTarget, SequenceNode[] nodes, long hash) {
+		this.name = name;
+		this.startTarget = startTarget;
+		this.nodes = nodes;
+		this.hash = hash;
+	}
+
+	@Override
+	public String getName () {
+		return name;
+	}
+
+	@Override
+	public int getStartTarget () {
+		return startTarget;
+	}
+
+	@Override
+	public int getNodeCount () {
+		return nodes.length;
+	}
+
+	@Override
+	public SequenceNode getNode (int id) {
+		return nodes[id];
+	}
+
+	@Override
+	public long getHash () {
+		return hash;
+	}
+
+	@Override
+	public long estimateSize () {
+		if (size == -1) size = MemoryEstimator.object(4 + 2 * MemoryEstimator.REFERENCE + 8 + 8) + MemoryEstimator.string(name) + MemoryEstimator.nodes(nodes);
+		return size;
+	}
+}
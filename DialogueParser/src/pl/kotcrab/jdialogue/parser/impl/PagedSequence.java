@@ -0,0 +1,341 @@
+/*******************************************************************************
+ * Copyright 2014 Pawel Pastuszak
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+
+package pl.kotcrab.jdialogue.parser.impl;
+
+import pl.kotcrab.jdialogue.loader.DialogueLoader;
+import pl.kotcrab.jdialogue.parser.ComponentType;
+import pl.kotcrab.jdialogue.parser.DialogueParserException;
+import pl.kotcrab.jdialogue.parser.DialogueSequence;
+import pl.kotcrab.jdialogue.parser.MemoryEstimator;
+import pl.kotcrab.jdialogue.parser.SequenceNode;
+import pl.kotcrab.jdialogue.parser.expression.Expression;
+import pl.kotcrab.jdialogue.parser.expression.ExpressionCompiler;
+
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Sequence backed by paged file created by {@link PagedSequenceWriter}. Only header is read when sequence is opened, pages of
+ * nodes are decoded when parser reaches them and least recently used pages are dropped when more than maxResidentPages are
+ * loaded. Memory used by sequence depends on page size and maxResidentPages, not on number of nodes.
+ * <p>
+ * Sequence can be backed by buffer with whole file, preferably memory mapped, or read from stream of loader that isn't random
+ * access. Stream is kept open and pages after its position are read by skipping forward, so playing sequence in export order
+ * reads file once. Going back to page before stream position opens file again, for compressed streams (deflated zip entries)
+ * this costs reading file up to that page. {@link #close()} releases the stream, sequence stays usable and opens file again
+ * when it needs next page.
+ *
+ * <pre>
+ * int magic, int version, int nodeCount, int startTarget, int nodesPerPage, int pageCount, long hash
+ * int[pageCount + 1] page offsets
+ * pages, each node: byte type, int targetCount, int[] targets, string text, int character, int callbackCount, int[] callbacks, int choiceCount, string[] choices
+ * string: int length in bytes (-1 for null), UTF-8 bytes, callbackCount and choiceCount are -1 for null arrays
+ * </pre>
+ *
+ * @author Pawel Pastuszak
+ */
+public class PagedSequence implements DialogueSequence, Closeable {
+	public static final int MAGIC = 0x4A44504B; // JDPK
+	public static final int VERSION = 3;
+	public static final int HEADER_SIZE = 32;
+
+	static final Charset UTF8 = Charset.forName("UTF-8");
+	private static final ComponentType[] TYPES = ComponentType.values();
+
+	private String name;
+	private ByteBuffer buffer;
+	private DialogueLoader loader;
+	private String fileName;
+	private DataInputStream pageStream;
+	private int streamPosition;
+	private ExpressionCompiler compiler;
+
+	private int nodeCount;
+	private int startTarget;
+	private int nodesPerPage;
+	private int pageCount;
+	private long hash;
+	private int[] pageOffsets;
+
+	private LinkedHashMap<Integer, SequenceNode[]> pages;
+	private long residentSize;
+
+	private int lastPage = -1;
+	private SequenceNode[] lastPageNodes;
+
+	/**
+	 * @param buffer content of paged file, memory mapped file is preferred so opening sequence costs the same regardless of its size
+	 * @param compiler used to compile expressions of condition components when page is loaded, may be null
+	 */
+	public PagedSequence (String name, ByteBuffer buffer, final int maxResidentPages, ExpressionCompiler compiler) {
+		if (maxResidentPages < 1) throw new IllegalArgumentException("maxResidentPages must be at least 1");
+
+		this.name = name;
+		this.buffer = buffer;
+		this.compiler = compiler;
+
+		readHeader(buffer);
+
+		pageOffsets = new int[pageCount + 1];
+		for (int i = 0; i < pageOffsets.length; i++)
+			pageOffsets[i] = buffer.getInt(HEADER_SIZE + i * 4);
+
+		createPages(maxResidentPages);
+	}
+
+	/**
+	 * Creates sequence that reads header now and pages from loader stream when they are needed, whole file is never kept in
+	 * memory
+	 * @param fileName name of paged file, for example 'test.dpk'
+	 * @param compiler used to compile expressions of condition components when page is loaded, may be null
+	 */
+	public PagedSequence (String name, DialogueLoader loader, String fileName, int maxResidentPages, ExpressionCompiler compiler) throws IOException {
+		if (maxResidentPages < 1) throw new IllegalArgumentException("maxResidentPages must be at least 1");
+
+		this.name = name;
+		this.loader = loader;
+		this.fileName = fileName;
+		this.compiler = compiler;
+
+		DataInputStream in = new DataInputStream(loader.open(fileName));
+
+		try {
+			byte[] header = new byte[HEADER_SIZE];
+			in.readFully(header);
+			readHeader(ByteBuffer.wrap(header));
+
+			pageOffsets = new int[pageCount + 1];
+			for (int i = 0; i < pageOffsets.length; i++)
+				pageOffsets[i] = in.readInt();
+		} catch (IOException | RuntimeException e) {
+			in.close();
+			throw e;
+		}
+
+		// first page follows offsets, stream is kept for it
+		pageStream = in;
+		streamPosition = HEADER_SIZE + pageOffsets.length * 4;
+
+		createPages(maxResidentPages);
+	}
+
+	private void readHeader (ByteBuffer header) {
+		if (header.getInt(0) != MAGIC) throw new DialogueParserException("'" + name + "' is not paged sequence file.");
+		if (header.getInt(4) != VERSION) throw new DialogueParserException("Unsupported paged sequence version: " + header.getInt(4));
+
+		nodeCount = header.getInt(8);
+		startTarget = header.getInt(12);
+		nodesPerPage = header.getInt(16);
+		pageCount = header.getInt(20);
+		hash = header.getLong(24);
+	}
+
+	private void createPages (final int maxResidentPages) {
+		pages = new LinkedHashMap<Integer, SequenceNode[]>(maxResidentPages + 1, 1f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry (Map.Entry<Integer, SequenceNode[]> eldest) {
+				if (size() > maxResidentPages) {
+					residentSize -= MemoryEstimator.nodes(eldest.getValue());
+					return true;
+				}
+
+				return false;
+			}
+		};
+	}
+
+	@Override
+	public String getName () {
+		return name;
+	}
+
+	@Override
+	public int getStartTarget () {
+		return startTarget;
+	}
+
+	@Override
+	public int getNodeCount () {
+		return nodeCount;
+	}
+
+	@Override
+	public SequenceNode getNode (int id) {
+		int page = id / nodesPerPage;
+
+		if (page != lastPage) {
+			SequenceNode[] nodes = pages.get(page);
+
+			if (nodes == null) {
+				nodes = loadPage(page);
+				residentSize += MemoryEstimator.nodes(nodes);
+				pages.put(page, nodes);
+			}
+
+			lastPage = page;
+			lastPageNodes = nodes;
+		}
+
+		return lastPageNodes[id - page * nodesPerPage];
+	}
+
+	@Override
+	public long getHash () {
+		return hash;
+	}
+
+	/**
+	 * @return size of paged file in bytes
+	 */
+	public long getFileSize () {
+		return pageOffsets[pageCount];
+	}
+
+	/**
+	 * @return number of pages currently decoded and kept in memory
+	 */
+	public int getResidentPages () {
+		return pages.size();
+	}
+
+	/**
+	 * @return estimated size of header and decoded pages, content of buffer is counted only when it is on heap (memory mapped
+	 * and direct buffers are not)
+	 */
+	@Override
+	public long estimateSize () {
+		long size = MemoryEstimator.object(7 * 4 + 8 + 11 * MemoryEstimator.REFERENCE) + MemoryEstimator.string(name) + residentSize;
+		size += MemoryEstimator.intArray(pageOffsets) + MemoryEstimator.hashMap(pages.size());
+		if (buffer != null && buffer.isDirect() == false) size += buffer.capacity();
+		return size;
+	}
+
+	private SequenceNode[] loadPage (int page) {
+		if (page < 0 || page >= pageCount) throw new DialogueParserException("Node page out of range: " + page);
+
+		ByteBuffer in;
+
+		if (buffer != null) {
+			in = buffer.duplicate();
+			in.position(pageOffsets[page]);
+		} else
+			in = readPage(page);
+
+		int firstId = page * nodesPerPage;
+		SequenceNode[] nodes = new SequenceNode[Math.min(nodesPerPage, nodeCount - firstId)];
+
+		for (int i = 0; i < nodes.length; i++)
+			nodes[i] = readNode(in, firstId + i);
+
+		return nodes;
+	}
+
+	private ByteBuffer readPage (int page) {
+		byte[] data = new byte[pageOffsets[page + 1] - pageOffsets[page]];
+
+		try {
+			if (pageStream == null || streamPosition > pageOffsets[page]) {
+				close();
+				pageStream = new DataInputStream(loader.open(fileName));
+				streamPosition = 0;
+			}
+
+			int skip = pageOffsets[page] - streamPosition;
+			while (skip > 0) {
+				int skipped = pageStream.skipBytes(skip);
+				if (skipped == 0) throw new EOFException("Unexpected end of file: " + fileName);
+				skip -= skipped;
+			}
+
+			pageStream.readFully(data);
+			streamPosition = pageOffsets[page + 1];
+
+			if (page == pageCount - 1) close(); // nothing left to read
+		} catch (IOException e) {
+			close();
+			e.printStackTrace();
+			throw new DialogueParserException("Could not load page " + page + " of sequence: " + name);
+		}
+
+		return ByteBuffer.wrap(data);
+	}
+
+	/**
+	 * Closes stream of sequence read from loader, does nothing for sequences backed by buffer
+	 */
+	@Override
+	public void close () {
+		if (pageStream == null) return;
+
+		try {
+			pageStream.close();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+
+		pageStream = null;
+	}
+
+	private SequenceNode readNode (ByteBuffer in, int id) {
+		ComponentType type = TYPES[in.get()];
+
+		int[] targets = new int[in.getInt()];
+		for (int i = 0; i < targets.length; i++)
+			targets[i] = in.getInt();
+
+		String text = readString(in);
+		int character = in.getInt();
+		int[] callbacks = null;
+		int callbackCount = in.getInt();
+		if (callbackCount >= 0) {
+			callbacks = new int[callbackCount];
+			for (int i = 0; i < callbackCount; i++)
+				callbacks[i] = in.getInt();
+		}
+
+		String[] choices = null;
+		int choiceCount = in.getInt();
+		if (choiceCount >= 0) {
+			choices = new String[choiceCount];
+			for (int i = 0; i < choiceCount; i++)
+				choices[i] = readString(in);
+		}
+
+		Expression condition = null;
+		if (type == ComponentType.CONDITION && compiler != null) condition = compiler.compileCondition(text);
+
+		return new SequenceNode(id, type, targets, text, character, callbacks, choices, condition);
+	}
+
+	private static String readString (ByteBuffer in) {
+		int length = in.getInt();
+		if (length == -1) return null;
+
+		byte[] bytes = new byte[length];
+		in.get(bytes);
+		return new String(bytes, UTF8);
+	}
+}
@@ -0,0 +1,156 @@
+/*******************************************************************************
+ * Copyright 2014 Pawel Pastuszak
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+
+package pl.kotcrab.jdialogue.parser.impl;
+
+import org.jdom2.JDOMException;
+import pl.kotcrab.jdialogue.codec.Codec;
+import pl.kotcrab.jdialogue.codec.Codecs;
+import pl.kotcrab.jdialogue.loader.JavaLoader;
+import pl.kotcrab.jdialogue.parser.DialogueSequence;
+import pl.kotcrab.jdialogue.parser.SequenceNode;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Converts exported sequences into paged files used by {@link PagedSequence}. Run it as a build step after exporting project:
+ * <pre>PagedSequenceWriter path/to/project.xml [nodesPerPage]</pre>
+ * Every sequence from project directory is written next to its xml file with '.dpk' extension. Paged files are never compressed.
+ *
+ * @author Pawel Pastuszak
+ */
+public class PagedSequenceWriter {
+	public static final int DEFAULT_NODES_PER_PAGE = 64;
+
+	public static void write (DialogueSequence sequence, OutputStream out, int nodesPerPage) throws IOException {
+		int nodeCount = sequence.getNodeCount();
+		int pageCount = (nodeCount + nodesPerPage - 1) / nodesPerPage;
+		int[] offsets = new int[pageCount + 1];
+
+		ByteArrayOutputStream pagesBytes = new ByteArrayOutputStream();
+		DataOutputStream pagesOut = new DataOutputStream(pagesBytes);
+		int pagesStart = PagedSequence.HEADER_SIZE + offsets.length * 4;
+
+		for (int i = 0; i < nodeCount; i++) {
+			if (i % nodesPerPage == 0) offsets[i / nodesPerPage] = pagesStart + pagesOut.size();
+			writeNode(pagesOut, sequence.getNode(i));
+		}
+
+		offsets[pageCount] = pagesStart + pagesOut.size();
+
+		DataOutputStream dataOut = new DataOutputStream(new BufferedOutputStream(out));
+		dataOut.writeInt(PagedSequence.MAGIC);
+		dataOut.writeInt(PagedSequence.VERSION);
+		dataOut.writeInt(nodeCount);
+		dataOut.writeInt(sequence.getStartTarget());
+		dataOut.writeInt(nodesPerPage);
+		dataOut.writeInt(pageCount);
+		dataOut.writeLong(sequence.getHash());
+
+		for (int offset : offsets)
+			dataOut.writeInt(offset);
+
+		pagesBytes.writeTo(dataOut);
+		dataOut.flush();
+	}
+
+	private static void writeNode (DataOutputStream out, SequenceNode node) throws IOException {
+		out.writeByte(node.getType().ordinal());
+
+		int[] targets = node.getTargets();
+		out.writeInt(targets.length);
+		for (int target : targets)
+			out.writeInt(target);
+
+		writeString(out, node.getText());
+		out.writeInt(node.getCharacter());
+
+		int[] callbacks = node.getCallbacks();
+		if (callbacks == null)
+			out.writeInt(-1);
+		else {
+			out.writeInt(callbacks.length);
+			for (int callback : callbacks)
+				out.writeInt(callback);
+		}
+
+		String[] choices = node.getChoices();
+		if (choices == null)
+			out.writeInt(-1);
+		else {
+			out.writeInt(choices.length);
+			for (String choice : choices)
+				writeString(out, choice);
+		}
+	}
+
+	private static void writeString (DataOutputStream out, String text) throws IOException {
+		if (text == null) {
+			out.writeInt(-1);
+			return;
+		}
+
+		byte[] bytes = text.getBytes(PagedSequence.UTF8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	public static void main (String[] args) throws IOException, JDOMException {
+		if (args.length == 0) {
+			System.out.println("Usage: PagedSequenceWriter path/to/project.xml [nodesPerPage]");
+			return;
+		}
+
+		File projectFile = new File(args[0]).getAbsoluteFile();
+		File projectDir = projectFile.getParentFile();
+		Codec codec = new JDOMDialogueParser(new JavaLoader(projectFile), 0).getProject().getCodec();
+		int nodesPerPage = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_NODES_PER_PAGE;
+
+		for (File file : projectDir.listFiles()) {
+			String fileName = file.getName();
+			if (fileName.endsWith(".xml") == false || fileName.equals("project.xml")) continue;
+
+			String name = fileName.substring(0, fileName.length() - 4);
+			DialogueSequence sequence;
+
+			InputStream in = codec.decode(new BufferedInputStream(new FileInputStream(file), Codecs.BUFFER_SIZE));
+			try {
+				sequence = JDOMSequenceReader.read(name, in, null);
+			} finally {
+				in.close();
+			}
+
+			OutputStream out = new FileOutputStream(new File(projectDir, name + ".dpk"));
+			try {
+				write(sequence, out, nodesPerPage);
+			} finally {
+				out.close();
+			}
+
+			System.out.println("Written " + name + ".dpk (" + sequence.getNodeCount() + " nodes)");
+		}
+	}
+}
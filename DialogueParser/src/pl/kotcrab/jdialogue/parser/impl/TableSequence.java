@@ -0,0 +1,162 @@
+/*******************************************************************************
+ * Copyright 2014 Pawel Pastuszak
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package pl.kotcrab.jdialogue.parser.impl;
+
+import pl.kotcrab.jdialogue.parser.ComponentType;
+import pl.kotcrab.jdialogue.parser.DialogueParserException;
+import pl.kotcrab.jdialogue.parser.DialogueSequence;
+import pl.kotcrab.jdialogue.parser.MemoryEstimator;
+import pl.kotcrab.jdialogue.parser.SequenceNode;
+import pl.kotcrab.jdialogue.parser.expression.Expression;
+import pl.kotcrab.jdialogue.parser.expression.ExpressionCompiler;
+
+/**
+ * Sequence backed by flat tables, used by sequences compiled into Java source (see
+ * {@link pl.kotcrab.jdialogue.parser.CompiledProject}). Tables are static data of generated class and are not copied, nodes are
+ * created when parser reaches them for the first time.
+ * <p>
+ * Node i has type ComponentType.values()[types[i]], targets from targets[targetIndex[i]] to targets[targetIndex[i + 1]], same
+ * for callbacks and choices. Node has callbacks array only if its slice is not empty and choices array only if it is choice
+ * node. Index tables have nodeCount + 1 elements.
+ * <p>
+ * Hash of sequence content is generated as constant of sequence class, sources generated before hashes were added use
+ * constructor without it and have hash 0.
+ *
+ * @author Pawel Pastuszak
+ */
+public class TableSequence implements DialogueSequence {
+	private static final ComponentType[] TYPES = ComponentType.values();
+
+	private String name;
+	private int startTarget;
+	private long hash;
+
+	private byte[] types;
+	private int[] targetIndex;
+	private int[] targets;
+	private String[] texts;
+	private int[] characters;
+	private int[] callbackIndex;
+	private int[] callbacks;
+	private int[] choiceIndex;
+	private String[] choices;
+
+	private ExpressionCompiler compiler;
+	private SequenceNode[] nodes;
+	private long nodesSize;
+
+	/**
+	 * @param compiler used to compile expressions of condition components, may be null
+	 */
+	public TableSequence (String name, int startTarget, byte[] types, int[] targetIndex, int[] targets, String[] texts, int[] characters, int[] callbackIndex, int[] callbacks, int[] choiceIndex, String[] choices, ExpressionCompiler compiler) {
+		this(name, startTarget, 0, types, targetIndex, targets, texts, characters, callbackIndex, callbacks, choiceIndex, choices, compiler);
+	}
+
+	/**
+	 * @param hash hash of sequence content computed by editor
+	 * @param compiler used to compile expressions of condition components, may be null
+	 */
+	public TableSequence (String name, int startTarget, long hash, byte[] types, int[] targetIndex, int[] targets, String[] texts, int[] characters, int[] callbackIndex, int[] callbacks, int[] choiceIndex, String[] choices, ExpressionCompiler compiler) {
+		int count = types.length;
+
+		if (targetIndex.length != count + 1 || texts.length != count || characters.length != count || callbackIndex.length != count + 1 || choiceIndex.length != count + 1)
+			throw new DialogueParserException("Tables of sequence '" + name + "' have inconsistent lengths, generate sources again.");
+
+		this.name = name;
+		this.startTarget = startTarget;
+		this.hash = hash;
+		this.types = types;
+		this.targetIndex = targetIndex;
+		this.targets = targets;
+		this.texts = texts;
+		this.characters = characters;
+		this.callbackIndex = callbackIndex;
+		this.callbacks = callbacks;
+		this.choiceIndex = choiceIndex;
+		this.choices = choices;
+		this.compiler = compiler;
+
+		nodes = new SequenceNode[count];
+	}
+
+	@Override
+	public String getName () {
+		return name;
+	}
+
+	@Override
+	public int getStartTarget () {
+		return startTarget;
+	}
+
+	@Override
+	public int getNodeCount () {
+		return nodes.length;
+	}
+
+	@Override
+	public SequenceNode getNode (int id) {
+		SequenceNode node = nodes[id];
+
+		if (node == null) {
+			node = createNode(id);
+			nodes[id] = node;
+			nodesSize += MemoryEstimator.node(node);
+		}
+
+		return node;
+	}
+
+	@Override
+	public long getHash () {
+		return hash;
+	}
+
+	/**
+	 * @return estimated size of nodes created so far, static tables are not counted
+	 */
+	@Override
+	public long estimateSize () {
+		return MemoryEstimator.object(4 + 8 + 8 + 12 * MemoryEstimator.REFERENCE) + MemoryEstimator.referenceArray(nodes.length) + nodesSize;
+	}
+
+	private SequenceNode createNode (int id) {
+		ComponentType type = TYPES[types[id]];
+
+		int[] nodeTargets = slice(targets, targetIndex[id], targetIndex[id + 1]);
+
+		int[] nodeCallbacks = null;
+		if (callbackIndex[id] != callbackIndex[id + 1]) nodeCallbacks = slice(callbacks, callbackIndex[id], callbackIndex[id + 1]);
+
+		String[] nodeChoices = null;
+		if (type == ComponentType.CHOICE) {
+			nodeChoices = new String[choiceIndex[id + 1] - choiceIndex[id]];
+			System.arraycopy(choices, choiceIndex[id], nodeChoices, 0, nodeChoices.length);
+		}
+
+		Expression condition = null;
+		if (type == ComponentType.CONDITION && compiler != null) condition = compiler.compileCondition(texts[id]);
+
+		return new SequenceNode(id, type, nodeTargets, texts[id], characters[id], nodeCallbacks, nodeChoices, condition);
+	}
+
+	private static int[] slice (int[] table, int start, int end) {
+		int[] array = new int[end - start];
+		System.arraycopy(table, start, array, 0, array.length);
+		return array;
+	}
+}
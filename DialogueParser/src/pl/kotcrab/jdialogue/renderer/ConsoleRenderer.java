@@ -20,74 +20,115 @@ import pl.kotcrab.jdialogue.parser.CallbackListener;
 import pl.kotcrab.jdialogue.parser.ComponentType;
 import pl.kotcrab.jdialogue.parser.DialogueParser;
 
+import java.io.BufferedWriter;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Writer;
 import java.util.InputMismatchException;
 import java.util.Scanner;
 
 /**
- * Simplest 'renderer' posible, uses console for 'rendering' and handling input
+ * Simplest 'renderer' posible, uses console for 'rendering' and handling input. In batch mode choices and callback checks are
+ * read from {@link DialogueInput} instead of console and output is written to buffered writer, which allows running sequences
+ * from scripts and tests.
  *
  * @author Pawel Pastuszak
  */
 public class ConsoleRenderer implements DialogueRenderer {
 	private Scanner scanner;
 	private DialogueParser parser;
+	private DialogueInput input;
+	private PrintWriter out;
 
+	private int stepLimit = 0;
+	private int steps;
+
+	/**
+	 * Creates interactive renderer, reading from System.in
+	 */
 	public ConsoleRenderer (DialogueParser parser) {
-		this.parser = parser;
+		this(parser, null, new PrintWriter(new OutputStreamWriter(System.out)));
 		scanner = new Scanner(System.in);
+		input = new ScannerInput();
+	}
+
+	/**
+	 * Creates renderer working in batch mode
+	 * @param input source of choices and callback checks results
+	 * @param out where output will be written, it is buffered, call {@link #dispose()} or {@link #flush()} to flush it. May be
+	 *           null, then nothing is written
+	 */
+	public ConsoleRenderer (DialogueParser parser, DialogueInput input, Writer out) {
+		this.parser = parser;
+		this.input = input;
+
+		if (out == null)
+			this.out = null;
+		else if (out instanceof PrintWriter)
+			this.out = (PrintWriter) out;
+		else
+			this.out = new PrintWriter(new BufferedWriter(out));
 
 		parser.addCallbackListener(new CallbackListener() {
 
 			@Override
 			public boolean handleCallbackCheck (String callbackText) {
-				System.out.print("***Callback Check*** " + callbackText + " DEBUG INPUT: true/false");
-
-				return nextValidBoolean();
+				return ConsoleRenderer.this.input.nextCheck(callbackText);
 			}
 
 			@Override
 			public void handleCallback (String callbackText) {
-				System.out.println("***Callback*** " + callbackText);
+				println("***Callback*** " + callbackText);
 			}
 		});
 	}
 
+	/**
+	 * Sets max number of components processed by single {@link #render()} call, useful for sequences that have loops. 0 means
+	 * no limit (default).
+	 */
+	public void setStepLimit (int stepLimit) {
+		this.stepLimit = stepLimit;
+	}
+
+	/**
+	 * @return number of components processed by last {@link #render()} call
+	 */
+	public int getSteps () {
+		return steps;
+	}
+
 	public void render () {
 		ComponentType nextType;
+		steps = 0;
+
 		do {
 			nextType = parser.processNextComponent();
+			steps++;
 
 			if (nextType == ComponentType.TEXT) {
-				print(parser.getCharacterData().getName() + ": ");
-				println(parser.getMsg());
+				if (out != null) {
+					print(parser.getCharacterData().getName() + ": ");
+					println(parser.getMsg());
+				}
+
 				parser.moveToNextComponent();
 
 				continue;
 			}
 
 			if (nextType == ComponentType.CHOICE) {
-				println("===" + parser.getMsg() + "===");
-
 				String[] choices = parser.getChoiceData();
 
-				for (int i = 0; i < choices.length; i++) {
-					println(i + 1 + ". " + choices[i]);
-				}
+				if (out != null) {
+					println("===" + parser.getMsg() + "===");
 
-				print("Option: ");
-				int chosen = -1;
-				do {
-					try {
-						chosen = scanner.nextInt() - 1;
-					} catch (InputMismatchException e) {
-						scanner.nextLine();
+					for (int i = 0; i < choices.length; i++) {
+						println(i + 1 + ". " + choices[i]);
 					}
+				}
 
-					if (chosen >= choices.length || chosen < 0) println("Option not found, try again");
-
-				} while (chosen >= choices.length || chosen < 0);
-
-				parser.moveToNextComponent(chosen);
+				parser.moveToNextComponent(input.nextChoice(choices));
 				println("====================");
 
 				continue;
@@ -95,16 +136,21 @@ public class ConsoleRenderer implements DialogueRenderer {
 
 			parser.moveToNextComponent();
 
-		} while (nextType != ComponentType.END);
+		} while (nextType != ComponentType.END && (stepLimit == 0 || steps < stepLimit));
 
+		flush();
 	}
 
 	private void println (String line) {
-		System.out.println(line);
+		if (out != null) out.println(line);
 	}
 
 	private void print (String text) {
-		System.out.print(text);
+		if (out != null) out.print(text);
+	}
+
+	public void flush () {
+		if (out != null) out.flush();
 	}
 
 	@Override
@@ -112,24 +158,55 @@ public class ConsoleRenderer implements DialogueRenderer {
 		parser.startSequence(name);
 	}
 
-	private boolean nextValidBoolean () {
-		boolean valid = false;
-		boolean response = false;
-		do {
-			try {
-				response = scanner.nextBoolean();
-				valid = true;
-			} catch (InputMismatchException e) {
-				System.out.println("Input valid boolean!");
-				scanner.nextLine();
-				valid = false;
-			}
-		} while (valid == false);
-
-		return response;
+	public void dispose () {
+		flush();
+		if (scanner != null) scanner.close();
 	}
 
-	public void dispose () {
-		scanner.close();
+	private class ScannerInput implements DialogueInput {
+		@Override
+		public int nextChoice (String[] choices) {
+			print("Option: ");
+			flush();
+
+			int chosen = -1;
+			do {
+				try {
+					chosen = scanner.nextInt() - 1;
+				} catch (InputMismatchException e) {
+					scanner.nextLine();
+				}
+
+				if (chosen >= choices.length || chosen < 0) {
+					println("Option not found, try again");
+					flush();
+				}
+
+			} while (chosen >= choices.length || chosen < 0);
+
+			return chosen;
+		}
+
+		@Override
+		public boolean nextCheck (String callbackText) {
+			print("***Callback Check*** " + callbackText + " DEBUG INPUT: true/false");
+			flush();
+
+			boolean valid = false;
+			boolean response = false;
+			do {
+				try {
+					response = scanner.nextBoolean();
+					valid = true;
+				} catch (InputMismatchException e) {
+					println("Input valid boolean!");
+					flush();
+					scanner.nextLine();
+					valid = false;
+				}
+			} while (valid == false);
+
+			return response;
+		}
 	}
 }
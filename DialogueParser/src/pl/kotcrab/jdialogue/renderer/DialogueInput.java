@@ -0,0 +1,32 @@
+/*******************************************************************************
+ * Copyright 2014 Pawel Pastuszak
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+
+package pl.kotcrab.jdialogue.renderer;
+
+/**
+ * Source of player decisions for renderers that don't read input themselves
+ *
+ * @author Pawel Pastuszak
+ */
+public interface DialogueInput {
+	/**
+	 * @return index of selected choice, from 0 to choices.length - 1
+	 */
+	public int nextChoice (String[] choices);
+
+	public boolean nextCheck (String callbackText);
+}
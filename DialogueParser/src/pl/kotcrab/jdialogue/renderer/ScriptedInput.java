@@ -0,0 +1,108 @@
+/*******************************************************************************
+ * Copyright 2014 Pawel Pastuszak
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+
+package pl.kotcrab.jdialogue.renderer;
+
+import pl.kotcrab.jdialogue.parser.DialogueParserException;
+
+import java.util.Random;
+
+/**
+ * Input that reads decisions from script, like '2 1 true 3'. Numbers select choices (starting from 1, same as in console) and
+ * true/false answer callback checks. When script ends, decisions are taken from fallback input, or exception is thrown if
+ * there is no fallback.
+ *
+ * @author Pawel Pastuszak
+ */
+public class ScriptedInput implements DialogueInput {
+	private String[] tokens;
+	private int pos;
+	private DialogueInput fallback;
+
+	public ScriptedInput (String script) {
+		this(script, null);
+	}
+
+	public ScriptedInput (String script, DialogueInput fallback) {
+		String trimmed = script.trim();
+		this.tokens = trimmed.length() == 0 ? new String[0] : trimmed.split("[\\s,]+");
+		this.fallback = fallback;
+	}
+
+	/**
+	 * Creates input that makes random decisions, same seed always gives the same decisions
+	 */
+	public static DialogueInput random (long seed) {
+		final Random random = new Random(seed);
+
+		return new DialogueInput() {
+			@Override
+			public int nextChoice (String[] choices) {
+				return random.nextInt(choices.length);
+			}
+
+			@Override
+			public boolean nextCheck (String callbackText) {
+				return random.nextBoolean();
+			}
+		};
+	}
+
+	/**
+	 * Rewinds script to beginning
+	 */
+	public void reset () {
+		pos = 0;
+	}
+
+	@Override
+	public int nextChoice (String[] choices) {
+		if (pos == tokens.length) {
+			if (fallback == null) throw new DialogueParserException("Script ended, expected choice");
+			return fallback.nextChoice(choices);
+		}
+
+		String token = tokens[pos++];
+		int choice;
+
+		try {
+			choice = Integer.parseInt(token) - 1;
+		} catch (NumberFormatException e) {
+			throw new DialogueParserException("Expected choice number in script, got: " + token);
+		}
+
+		if (choice < 0 || choice >= choices.length)
+			throw new DialogueParserException("Choice out of range in script: " + token + ", choices: " + choices.length);
+
+		return choice;
+	}
+
+	@Override
+	public boolean nextCheck (String callbackText) {
+		if (pos == tokens.length) {
+			if (fallback == null) throw new DialogueParserException("Script ended, expected true/false for: " + callbackText);
+			return fallback.nextCheck(callbackText);
+		}
+
+		String token = tokens[pos++];
+
+		if (token.equals("true")) return true;
+		if (token.equals("false")) return false;
+
+		throw new DialogueParserException("Expected true/false in script, got: " + token);
+	}
+}
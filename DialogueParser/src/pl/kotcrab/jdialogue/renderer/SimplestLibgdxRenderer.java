@@ -19,17 +19,39 @@ package pl.kotcrab.jdialogue.renderer;
 import com.badlogic.gdx.Input.Keys;
 import com.badlogic.gdx.InputProcessor;
 import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.graphics.g2d.BitmapFontCache;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.utils.Array;
 import pl.kotcrab.jdialogue.parser.CallbackListener;
 import pl.kotcrab.jdialogue.parser.ComponentType;
 import pl.kotcrab.jdialogue.parser.DialogueParser;
+import pl.kotcrab.jdialogue.parser.StyledText;
 
+/**
+ * Simple libgdx renderer. Text is laid out into {@link BitmapFontCache} only when displayed component or choice selection
+ * changes, each frame just draws cached vertices.
+ * <p>
+ * Styled text is drawn from style runs prepared by parser, markup is never parsed here. Colored runs go to separate cache per
+ * color because {@link BitmapFontCache} has one color for added text, emphasis is drawn twice with 1 pixel offset. Pauses are
+ * ignored, this renderer shows whole line at once.
+ *
+ * @author Pawel Pastuszak
+ */
 public class SimplestLibgdxRenderer implements DialogueRenderer, InputProcessor {
 	private DialogueParser parser;
 	private BitmapFont font;
+	private BitmapFontCache textCache;
+	private Array<BitmapFontCache> colorCaches = new Array<>();
+	private int[] cacheColors = new int[4];
+	private int usedColorCaches;
+	private boolean cacheDirty = true;
+	private StringBuilder counterText = new StringBuilder();
 
 	private String lineTitle = "";
 	private String[] lines = {"", "", ""};
+	private StyledText titleStyle;
+	private StyledText[] lineStyles = new StyledText[3];
+	private int[] lineStyleOffsets = new int[3]; // characters of line before styled text, e.g. name of character
 
 	// abc1 }
 	// abc2 } <
@@ -51,6 +73,7 @@ public class SimplestLibgdxRenderer implements DialogueRenderer, InputProcessor
 	public SimplestLibgdxRenderer (DialogueParser parser, BitmapFont font) {
 		this.parser = parser;
 		this.font = font;
+		textCache = new BitmapFontCache(font);
 
 		parser.addCallbackListener(new CallbackListener() {
 
@@ -73,32 +96,104 @@ public class SimplestLibgdxRenderer implements DialogueRenderer, InputProcessor
 	}
 
 	public void render (SpriteBatch batch) {
+		if (cacheDirty) rebuildCache();
+
 		batch.begin();
+		textCache.draw(batch);
+
+		for (int i = 0; i < usedColorCaches; i++)
+			colorCaches.get(i).draw(batch);
+
+		batch.end();
+	}
+
+	private void rebuildCache () {
+		textCache.clear();
+
+		for (int i = 0; i < usedColorCaches; i++)
+			colorCaches.get(i).clear();
+
+		usedColorCaches = 0;
 
 		for (int i = 0; i < lines.length; i++) {
-			font.draw(batch, lines[i], 100, 160 - (i * 30));
+			addLine(lines[i], lineStyles[i], lineStyleOffsets[i], 100, 160 - (i * 30));
 		}
 
 		if (currentComponentType == ComponentType.CHOICE) {
-			font.draw(batch, selector, 80, 160 - (selectorVisiblePos * 30));
-			font.draw(batch, lineTitle, 100, 200);
-			font.draw(batch, selectorPointAt + 1 + "/" + choices.length, 100, 40);
+			counterText.setLength(0);
+			counterText.append(selectorPointAt + 1).append('/').append(choices.length);
+
+			textCache.addText(selector, 80, 160 - (selectorVisiblePos * 30));
+			addLine(lineTitle, titleStyle, 0, 100, 200);
+			textCache.addText(counterText, 100, 40);
 		}
 
-		batch.end();
+		cacheDirty = false;
+	}
+
+	private void addLine (String line, StyledText styled, int offset, float x, float y) {
+		if (styled == null) {
+			textCache.addText(line, x, y);
+			return;
+		}
+
+		if (offset > 0) x += textCache.addText(line, x, y, 0, offset).width;
+
+		int start = offset;
+		for (int i = 0; i < styled.getRunCount(); i++) {
+			int style = styled.getRunStyle(i);
+			int end = start + styled.getRunLength(i);
+			BitmapFontCache cache = getCache(style);
+
+			float width = cache.addText(line, x, y, start, end).width;
+			if (StyledText.isEmphasis(style)) cache.addText(line, x + 1, y, start, end);
+
+			x += width;
+			start = end;
+		}
+	}
+
+	private BitmapFontCache getCache (int style) {
+		if (StyledText.hasColor(style) == false) return textCache;
+
+		int color = StyledText.getColor(style);
+
+		for (int i = 0; i < usedColorCaches; i++)
+			if (cacheColors[i] == color) return colorCaches.get(i);
+
+		if (usedColorCaches == colorCaches.size) colorCaches.add(new BitmapFontCache(font));
+
+		if (usedColorCaches == cacheColors.length) {
+			int[] newColors = new int[cacheColors.length * 2];
+			System.arraycopy(cacheColors, 0, newColors, 0, cacheColors.length);
+			cacheColors = newColors;
+		}
+
+		BitmapFontCache cache = colorCaches.get(usedColorCaches);
+		cache.setColor(((color >> 16) & 0xff) / 255f, ((color >> 8) & 0xff) / 255f, (color & 0xff) / 255f, 1);
+		cacheColors[usedColorCaches++] = color;
+
+		return cache;
 	}
 
 	private void processComponent () {
 		if (currentComponentType == ComponentType.END) return;
 		currentComponentType = parser.processNextComponent();
+		cacheDirty = true;
 
 		if (currentComponentType == ComponentType.TEXT) {
 			clear();
-			lines[0] = parser.getCharacterData().getName() + ": " + parser.getMsg();
+			String name = parser.getCharacterData().getName() + ": ";
+			lines[0] = name + parser.getMsg();
+			lineStyles[0] = parser.getStyledMsg();
+			lineStyleOffsets[0] = name.length();
 
-			if (parser.isCurrentMsgFinished() == false) lines[1] = parser.getMsg();
+			for (int i = 1; i < lines.length; i++) {
+				if (parser.isCurrentMsgFinished()) break;
 
-			if (parser.isCurrentMsgFinished() == false) lines[2] = parser.getMsg();
+				lines[i] = parser.getMsg();
+				lineStyles[i] = parser.getStyledMsg();
+			}
 
 			parser.moveToNextComponent();
 		}
@@ -110,8 +205,14 @@ public class SimplestLibgdxRenderer implements DialogueRenderer, InputProcessor
 			}
 
 			lineTitle = parser.getMsg();
+			titleStyle = parser.getStyledMsg();
 			choices = parser.getChoiceData();
 
+			for (int i = 0; i < lineStyles.length; i++) {
+				lineStyles[i] = null; // choices don't use markup
+				lineStyleOffsets[i] = 0;
+			}
+
 			for (int i = 0; i < choices.length; i++) {
 				visibleHeight = i + 1;
 
@@ -126,7 +227,7 @@ public class SimplestLibgdxRenderer implements DialogueRenderer, InputProcessor
 			listMove();
 		}
 
-		if (currentComponentType == ComponentType.CALLBACK || currentComponentType == ComponentType.CBCHECK || currentComponentType == ComponentType.RANDOM || currentComponentType == ComponentType.RELAY) {
+		if (currentComponentType == ComponentType.CALLBACK || currentComponentType == ComponentType.CBCHECK || currentComponentType == ComponentType.RANDOM || currentComponentType == ComponentType.RELAY || currentComponentType == ComponentType.CONDITION) {
 			parser.moveToNextComponent();
 			processComponent();
 		}
@@ -135,10 +236,13 @@ public class SimplestLibgdxRenderer implements DialogueRenderer, InputProcessor
 	private void clear () {
 		for (int i = 0; i < lines.length; i++) {
 			lines[i] = "";
+			lineStyles[i] = null;
+			lineStyleOffsets[i] = 0;
 		}
 
 		lineTitle = "";
-
+		titleStyle = null;
+		cacheDirty = true;
 	}
 
 	private void clearChoice () {
@@ -173,6 +277,7 @@ public class SimplestLibgdxRenderer implements DialogueRenderer, InputProcessor
 
 			selectorVisiblePos--;
 			selectorPointAt--;
+			cacheDirty = true;
 
 			return true;
 		}
@@ -192,6 +297,7 @@ public class SimplestLibgdxRenderer implements DialogueRenderer, InputProcessor
 
 			selectorVisiblePos++;
 			selectorPointAt++;
+			cacheDirty = true;
 
 			return true;
 		}
@@ -201,6 +307,7 @@ public class SimplestLibgdxRenderer implements DialogueRenderer, InputProcessor
 
 	private void listMove () {
 		System.arraycopy(choices, visibleHeightPos, lines, 0, 3);
+		cacheDirty = true;
 	}
 
 	@Override
@@ -0,0 +1,617 @@
+/*******************************************************************************
+ * Copyright 2014 Pawel Pastuszak
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package pl.kotcrab.jdialogue.scheduler;
+
+import pl.kotcrab.jdialogue.loader.DialogueLoader;
+import pl.kotcrab.jdialogue.parser.CallbackListener;
+import pl.kotcrab.jdialogue.parser.ComponentType;
+import pl.kotcrab.jdialogue.parser.DialogueParser;
+import pl.kotcrab.jdialogue.parser.DialogueParserException;
+import pl.kotcrab.jdialogue.parser.PCharacter;
+import pl.kotcrab.jdialogue.parser.SequenceCache;
+import pl.kotcrab.jdialogue.parser.SessionStore;
+import pl.kotcrab.jdialogue.parser.SplitMixRandom;
+import pl.kotcrab.jdialogue.parser.VariableStore;
+import pl.kotcrab.jdialogue.parser.impl.JDOMDialogueParser;
+import pl.kotcrab.jdialogue.renderer.DialogueInput;
+
+import java.util.ArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Runs many dialogue sessions at once, meant for ambient sequences played by crowds of NPCs. Sessions are cursors in
+ * {@link SessionStore}, scheduler keeps one parser per thread and switches it between sessions. Each call to
+ * {@link #update(float)} advances session timers and then processes ready sessions until per-frame step or time budget is
+ * used up, remaining sessions are processed in next frames. Session runs until it reaches next line of text, then it waits
+ * for duration of that line in {@link TimerWheel}.
+ * <p>
+ * When worker threads are used, ready sessions are split between game thread and workers and update waits for all of them.
+ * Each session is processed by single thread, threads share {@link SessionStore} but access only records of their own
+ * sessions, name table of store is frozen during processing and sessions are created and freed only on game thread.
+ * Events are buffered by each thread and delivered to {@link SchedulerListener} on game thread after processing, events of
+ * single session are always delivered in order. By default choices and callback checks are decided by random generator of
+ * session, so results depend only on seeds and not on thread that processed session or order of processing.
+ * <p>
+ * All methods must be called from game thread.
+ *
+ * @author Pawel Pastuszak
+ */
+public class DialogueScheduler {
+	private static final byte FREE = 0;
+	private static final byte NEW = 1;
+	private static final byte READY = 2;
+	private static final byte WAITING = 3;
+
+	private static final byte EVENT_LINE = 0;
+	private static final byte EVENT_CALLBACK = 1;
+	private static final byte EVENT_FINISHED = 2;
+
+	private SessionStore store;
+	private TimerWheel wheel;
+	private IntQueue ready = new IntQueue(64);
+
+	private byte[] states = new byte[0];
+	private boolean[] queued = new boolean[0];
+
+	private Context[] contexts;
+	private ExecutorService executor;
+	private ArrayList<Future<?>> futures = new ArrayList<>();
+
+	private SchedulerListener listener;
+	private DialogueInput input; // null: decisions are made by random generator of session
+	private SplitMixRandom seeds = new SplitMixRandom();
+	private int maxChars;
+
+	private int tickMillis;
+	private double pendingMillis;
+
+	private float lineBaseSeconds = 1f;
+	private float lineCharSeconds = 0.05f;
+
+	private int stepBudget = 0;
+	private long timeBudget = 0;
+	private int maxStepsPerTurn = 64;
+
+	private int[] batch = new int[64];
+	private int lastFrameSteps;
+	private long lastFrameNanos;
+
+	/**
+	 * Creates scheduler that processes sessions only on game thread
+	 */
+	public DialogueScheduler (DialogueLoader loader, int maxChars) {
+		this(loader, maxChars, 0);
+	}
+
+	/**
+	 * @param maxChars max chars per line, lines are wrapped like in {@link DialogueParser}
+	 * @param workers number of worker threads used in addition to game thread, 0 to process sessions only on game thread
+	 */
+	public DialogueScheduler (DialogueLoader loader, int maxChars, int workers) {
+		if (workers < 0) throw new IllegalArgumentException("workers can't be negative");
+
+		this.maxChars = maxChars;
+
+		store = new SessionStore(64);
+		tickMillis = 10;
+		wheel = new TimerWheel(256, 64);
+
+		contexts = new Context[workers + 1];
+		for (int i = 0; i < contexts.length; i++)
+			contexts[i] = new Context(new JDOMDialogueParser(loader, maxChars));
+
+		if (workers > 0) {
+			executor = Executors.newFixedThreadPool(workers, new ThreadFactory() {
+				private int count;
+
+				@Override
+				public Thread newThread (Runnable r) {
+					Thread thread = new Thread(r, "DialogueScheduler-" + count++);
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+	}
+
+	/**
+	 * Starts new session of sequence with seed taken from scheduler seed stream, see {@link #setSeed(long)}. Session is
+	 * processed during next update.
+	 * @return handle of session, valid until session finishes or is stopped
+	 */
+	public int start (String sequence) {
+		return start(sequence, seeds.nextLong());
+	}
+
+	/**
+	 * Starts new session of sequence. Random components of session depend only on seed, not on thread that processes session.
+	 * @return handle of session, valid until session finishes or is stopped
+	 */
+	public int start (String sequence, long seed) {
+		int session = store.create();
+		store.setSequence(session, sequence);
+		store.setCursor(session, -1, -1, 0, seed, 0);
+
+		ensureCapacity(session + 1);
+		states[session] = NEW;
+		enqueue(session);
+
+		return session;
+	}
+
+	/**
+	 * Loads sequence in every thread, so first sessions of sequence don't cause loading spike during update
+	 */
+	public void preload (String sequence) {
+		for (Context context : contexts)
+			context.parser.startSequence(sequence);
+	}
+
+	/**
+	 * Stops session and frees its handle, listener is not notified
+	 */
+	public void stop (int session) {
+		if (session >= states.length || states[session] == FREE) return;
+
+		wheel.cancel(session);
+		states[session] = FREE;
+		store.free(session);
+	}
+
+	public boolean isActive (int session) {
+		return session < states.length && states[session] != FREE;
+	}
+
+	/**
+	 * Advances time and processes ready sessions within budget
+	 * @param delta time since last update in seconds
+	 */
+	public void update (float delta) {
+		long start = System.nanoTime();
+
+		pendingMillis += delta * 1000.0;
+		long ticks = (long) (pendingMillis / tickMillis);
+		pendingMillis -= ticks * tickMillis;
+		wheel.advance(ticks, ready);
+
+		int count = ready.size();
+		if (batch.length < count) batch = new int[Math.max(count, batch.length * 2)];
+		for (int i = 0; i < count; i++) {
+			batch[i] = ready.remove();
+			queued[batch[i]] = false;
+		}
+
+		long deadline = timeBudget > 0 ? start + timeBudget : 0;
+
+		for (Context context : contexts)
+			context.reset();
+
+		// names of all sessions were added by start, so workers only write records of their own sessions
+		store.setNamesFrozen(true);
+
+		try {
+			if (executor == null || count < contexts.length * 2)
+				contexts[0].process(0, count, stepBudget, deadline);
+			else
+				processParallel(count, stepBudget > 0 ? Math.max(1, stepBudget / contexts.length) : 0, deadline);
+		} finally {
+			store.setNamesFrozen(false);
+		}
+
+		lastFrameSteps = 0;
+
+		// sessions that weren't reached go first, they have been waiting longest
+		for (Context context : contexts) {
+			for (int i = context.processedEnd; i < context.end; i++)
+				if (states[batch[i]] != FREE) enqueue(batch[i]);
+		}
+
+		for (Context context : contexts) {
+			lastFrameSteps += context.steps;
+			deliverEvents(context);
+
+			for (int i = 0; i < context.requeued.size(); i++)
+				enqueue(context.requeued.get(i));
+			context.requeued.clear();
+		}
+
+		lastFrameNanos = System.nanoTime() - start;
+	}
+
+	private void processParallel (int count, int contextBudget, long deadline) {
+		int perContext = (count + contexts.length - 1) / contexts.length;
+
+		for (int i = 1; i < contexts.length; i++) {
+			final Context context = contexts[i];
+			final int start = Math.min(count, i * perContext);
+			final int end = Math.min(count, start + perContext);
+			final int budget = contextBudget;
+			final long time = deadline;
+
+			futures.add(executor.submit(new Runnable() {
+				@Override
+				public void run () {
+					context.process(start, end, budget, time);
+				}
+			}));
+		}
+
+		RuntimeException failure = null;
+
+		try {
+			contexts[0].process(0, Math.min(count, perContext), contextBudget, deadline);
+		} catch (RuntimeException e) {
+			failure = e;
+		}
+
+		for (Future<?> future : futures) {
+			try {
+				future.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				if (failure == null) failure = new DialogueParserException("Interrupted while waiting for dialogue workers");
+			} catch (ExecutionException e) {
+				if (failure == null) failure = e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : new RuntimeException(e.getCause());
+			}
+		}
+
+		futures.clear();
+
+		if (failure != null) throw failure;
+	}
+
+	private void deliverEvents (Context context) {
+		Events events = context.events;
+
+		for (int i = 0; i < events.size; i++) {
+			int session = events.sessions[i];
+
+			switch (events.types[i]) {
+				case EVENT_LINE:
+					if (states[session] == WAITING) wheel.schedule(session, getLineTicks(events.texts[i]));
+					if (listener != null) listener.lineShown(session, events.characters[i], events.texts[i]);
+					break;
+
+				case EVENT_CALLBACK:
+					if (listener != null) listener.callback(session, events.texts[i]);
+					break;
+
+				case EVENT_FINISHED:
+					if (listener != null) listener.sessionFinished(session);
+					stop(session);
+					break;
+			}
+		}
+
+		events.clear();
+	}
+
+	private long getLineTicks (String line) {
+		long millis = (long) ((lineBaseSeconds + lineCharSeconds * line.length()) * 1000);
+		return Math.max(1, (millis + tickMillis - 1) / tickMillis);
+	}
+
+	private void enqueue (int session) {
+		if (queued[session]) return;
+
+		queued[session] = true;
+		ready.add(session);
+	}
+
+	private void ensureCapacity (int capacity) {
+		if (capacity <= states.length) return;
+
+		int newCapacity = Math.max(capacity, states.length * 2);
+
+		byte[] newStates = new byte[newCapacity];
+		System.arraycopy(states, 0, newStates, 0, states.length);
+		states = newStates;
+
+		boolean[] newQueued = new boolean[newCapacity];
+		System.arraycopy(queued, 0, newQueued, 0, queued.length);
+		queued = newQueued;
+	}
+
+	/**
+	 * Sets seed of stream that seeds sessions started without explicit seed
+	 */
+	public void setSeed (long seed) {
+		seeds.setState(seed);
+	}
+
+	public void setListener (SchedulerListener listener) {
+		this.listener = listener;
+	}
+
+	/**
+	 * Sets source of choices and callback check results, null for random decisions made by random generator of each session
+	 * (default), so they depend only on seed of session.
+	 * <p>
+	 * Input is shared by all sessions and when scheduler has workers it is called concurrently from worker threads and game
+	 * thread, so it must be thread safe. Input that keeps state, like {@link pl.kotcrab.jdialogue.renderer.ScriptedInput},
+	 * makes decisions depend on order in which sessions are processed.
+	 */
+	public void setInput (DialogueInput input) {
+		this.input = input;
+	}
+
+	/**
+	 * Sets variables used by condition components of all threads, must be called before any session is started
+	 */
+	public void setVariableStore (VariableStore variables) {
+		for (Context context : contexts)
+			context.parser.setVariableStore(variables);
+	}
+
+	/**
+	 * Sets memory budget of sequence cache of each thread, default is {@link SequenceCache#UNLIMITED}
+	 */
+	public void setSequenceCacheBudget (long budget) {
+		for (Context context : contexts)
+			context.parser.getSequenceCache().setBudget(budget);
+	}
+
+	/**
+	 * Sets how long session waits after showing line: baseSeconds + charSeconds * line length. Default is 1 s + 0.05 s per
+	 * char.
+	 */
+	public void setLineDuration (float baseSeconds, float charSeconds) {
+		lineBaseSeconds = baseSeconds;
+		lineCharSeconds = charSeconds;
+	}
+
+	/**
+	 * @param steps max number of components processed by single update, 0 for no limit (default)
+	 */
+	public void setStepBudget (int steps) {
+		stepBudget = steps;
+	}
+
+	/**
+	 * @param nanos max time spent processing sessions by single update, 0 for no limit (default). Budget is checked before
+	 *           each session, so single update may take slightly longer.
+	 */
+	public void setTimeBudget (long nanos) {
+		timeBudget = nanos;
+	}
+
+	/**
+	 * @param steps max number of components processed for one session in one turn, session that reaches it continues in next
+	 *           update. Protects frame from sequences that loop without text. Default is 64.
+	 */
+	public void setMaxStepsPerTurn (int steps) {
+		if (steps < 1) throw new IllegalArgumentException("steps must be at least 1");
+		maxStepsPerTurn = steps;
+	}
+
+	/**
+	 * @return number of started sessions that didn't finish yet
+	 */
+	public int getActiveCount () {
+		return store.getSize();
+	}
+
+	/**
+	 * @return number of sessions waiting to be processed
+	 */
+	public int getReadyCount () {
+		return ready.size();
+	}
+
+	/**
+	 * @return number of sessions waiting for their line to end
+	 */
+	public int getWaitingCount () {
+		return wheel.size();
+	}
+
+	public int getLastFrameSteps () {
+		return lastFrameSteps;
+	}
+
+	public long getLastFrameNanos () {
+		return lastFrameNanos;
+	}
+
+	public void dispose () {
+		if (executor != null) executor.shutdown();
+	}
+
+	/** Parser and buffers of single thread */
+	private class Context implements CallbackListener {
+		JDOMDialogueParser parser;
+		Events events = new Events();
+		IntArray requeued = new IntArray();
+
+		int end;
+		int processedEnd;
+		int steps;
+
+		private int session;
+
+		public Context (JDOMDialogueParser parser) {
+			this.parser = parser;
+			parser.setSequenceCache(new SequenceCache(SequenceCache.UNLIMITED));
+			parser.addCallbackListener(this);
+		}
+
+		void reset () {
+			end = 0;
+			processedEnd = 0;
+			steps = 0;
+		}
+
+		void process (int start, int end, int stepBudget, long deadline) {
+			this.end = end;
+
+			for (int i = start; i < end; i++) {
+				if ((stepBudget > 0 && steps >= stepBudget) || (deadline != 0 && System.nanoTime() > deadline)) {
+					processedEnd = i;
+					return;
+				}
+
+				if (states[batch[i]] != FREE) turn(batch[i]);
+			}
+
+			processedEnd = end;
+		}
+
+		private void turn (int session) {
+			this.session = session;
+
+			if (states[session] == NEW)
+				parser.startSequence(store.getSequence(session), store.getRandomState(session));
+			else
+				parser.restoreSession(store, session);
+
+			if (states[session] == WAITING) {
+				if (maxChars > 0 && parser.isCurrentMsgFinished() == false) {
+					showLine();
+					return;
+				}
+
+				parser.moveToNextComponent();
+			}
+
+			for (int turnSteps = 0; turnSteps < maxStepsPerTurn; turnSteps++) {
+				ComponentType type = parser.processNextComponent();
+				steps++;
+
+				switch (type) {
+					case TEXT:
+						showLine();
+						return;
+
+					case CHOICE:
+						String[] choices = parser.getChoiceData();
+						parser.moveToNextComponent(input == null ? parser.getRandom().nextInt(choices.length) : input.nextChoice(choices));
+						break;
+
+					case END:
+						events.add(EVENT_FINISHED, session, null, null);
+						return;
+
+					default:
+						parser.moveToNextComponent();
+						break;
+				}
+			}
+
+			states[session] = READY;
+			parser.saveSession(store, session);
+			requeued.add(session);
+		}
+
+		private void showLine () {
+			String line = parser.getMsg();
+
+			states[session] = WAITING;
+			parser.saveSession(store, session);
+			events.add(EVENT_LINE, session, line, parser.getCharacterData());
+		}
+
+		@Override
+		public void handleCallback (String callbackText) {
+			events.add(EVENT_CALLBACK, session, callbackText, null);
+		}
+
+		@Override
+		public boolean handleCallbackCheck (String callbackText) {
+			if (input == null) return parser.getRandom().nextInt(2) == 1;
+			return input.nextCheck(callbackText);
+		}
+	}
+
+	/** Events buffered by single thread, kept in parallel arrays so processing doesn't allocate */
+	private static class Events {
+		byte[] types = new byte[64];
+		int[] sessions = new int[64];
+		String[] texts = new String[64];
+		PCharacter[] characters = new PCharacter[64];
+		int size;
+
+		void add (byte type, int session, String text, PCharacter character) {
+			if (size == types.length) grow();
+
+			types[size] = type;
+			sessions[size] = session;
+			texts[size] = text;
+			characters[size] = character;
+			size++;
+		}
+
+		void clear () {
+			for (int i = 0; i < size; i++) {
+				texts[i] = null;
+				characters[i] = null;
+			}
+
+			size = 0;
+		}
+
+		private void grow () {
+			int length = types.length * 2;
+
+			byte[] newTypes = new byte[length];
+			System.arraycopy(types, 0, newTypes, 0, size);
+			types = newTypes;
+
+			int[] newSessions = new int[length];
+			System.arraycopy(sessions, 0, newSessions, 0, size);
+			sessions = newSessions;
+
+			String[] newTexts = new String[length];
+			System.arraycopy(texts, 0, newTexts, 0, size);
+			texts = newTexts;
+
+			PCharacter[] newCharacters = new PCharacter[length];
+			System.arraycopy(characters, 0, newCharacters, 0, size);
+			characters = newCharacters;
+		}
+	}
+
+	private static class IntArray {
+		int[] items = new int[16];
+		int size;
+
+		void add (int value) {
+			if (size == items.length) {
+				int[] newItems = new int[size * 2];
+				System.arraycopy(items, 0, newItems, 0, size);
+				items = newItems;
+			}
+
+			items[size++] = value;
+		}
+
+		int get (int index) {
+			return items[index];
+		}
+
+		int size () {
+			return size;
+		}
+
+		void clear () {
+			size = 0;
+		}
+	}
+}
@@ -0,0 +1,70 @@
+/*******************************************************************************
+ * Copyright 2014 Pawel Pastuszak
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package pl.kotcrab.jdialogue.scheduler;
+
+/**
+ * FIFO queue of ints backed by ring buffer that grows when full
+ *
+ * @author Pawel Pastuszak
+ */
+public class IntQueue {
+	private int[] items;
+	private int head;
+	private int size;
+
+	public IntQueue (int capacity) {
+		items = new int[Math.max(capacity, 4)];
+	}
+
+	public void add (int value) {
+		if (size == items.length) grow();
+
+		items[(head + size) % items.length] = value;
+		size++;
+	}
+
+	/**
+	 * @return oldest value, queue must not be empty
+	 */
+	public int remove () {
+		if (size == 0) throw new IllegalStateException("Queue is empty");
+
+		int value = items[head];
+		head = (head + 1) % items.length;
+		size--;
+		return value;
+	}
+
+	public int size () {
+		return size;
+	}
+
+	public void clear () {
+		head = 0;
+		size = 0;
+	}
+
+	private void grow () {
+		int[] newItems = new int[items.length * 2];
+
+		for (int i = 0; i < size; i++)
+			newItems[i] = items[(head + i) % items.length];
+
+		items = newItems;
+		head = 0;
+	}
+}
@@ -0,0 +1,40 @@
+/*******************************************************************************
+ * Copyright 2014 Pawel Pastuszak
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package pl.kotcrab.jdialogue.scheduler;
+
+import pl.kotcrab.jdialogue.parser.PCharacter;
+
+/**
+ * Receives events of sessions run by {@link DialogueScheduler}. Methods are always called on thread that calls
+ * {@link DialogueScheduler#update(float)}, even when sessions are processed by worker threads. Listener may start and stop
+ * sessions.
+ *
+ * @author Pawel Pastuszak
+ */
+public interface SchedulerListener {
+	/**
+	 * Called when session reaches next line of text component, session waits for duration of line before continuing
+	 */
+	public void lineShown (int session, PCharacter character, String line);
+
+	public void callback (int session, String callbackText);
+
+	/**
+	 * Called when session reaches end component, session handle is freed after this method returns
+	 */
+	public void sessionFinished (int session);
+}
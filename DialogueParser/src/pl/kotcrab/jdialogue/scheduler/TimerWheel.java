@@ -0,0 +1,170 @@
+/*******************************************************************************
+ * Copyright 2014 Pawel Pastuszak
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package pl.kotcrab.jdialogue.scheduler;
+
+/**
+ * Hashed timer wheel for int handles. Each slot holds doubly linked list of handles kept in arrays, so scheduling, cancelling
+ * and expiring timers is O(1) and doesn't allocate. Delays longer than one revolution of wheel are counted in rounds.
+ * <p>
+ * Handle can have only one timer at once, scheduling it again replaces previous timer. Wheel is not thread safe.
+ *
+ * @author Pawel Pastuszak
+ */
+public class TimerWheel {
+	private static final int NONE = -1;
+
+	private int[] heads;
+	private int mask;
+
+	private int[] next;
+	private int[] prev;
+	private int[] slotOf;
+	private long[] rounds;
+
+	private long tick;
+	private int scheduled;
+
+	/**
+	 * @param slots number of slots, rounded up to power of two
+	 * @param capacity initial max handle + 1, grows when larger handles are scheduled
+	 */
+	public TimerWheel (int slots, int capacity) {
+		int size = 1;
+		while (size < slots)
+			size <<= 1;
+
+		heads = new int[size];
+		mask = size - 1;
+		for (int i = 0; i < size; i++)
+			heads[i] = NONE;
+
+		next = new int[0];
+		prev = new int[0];
+		slotOf = new int[0];
+		rounds = new long[0];
+		ensureCapacity(capacity);
+	}
+
+	/**
+	 * @param delay delay in ticks, at least 1
+	 */
+	public void schedule (int handle, long delay) {
+		if (delay < 1) throw new IllegalArgumentException("delay must be at least 1 tick");
+
+		ensureCapacity(handle + 1);
+		cancel(handle);
+
+		int slot = (int) ((tick + delay) & mask);
+		rounds[handle] = (delay - 1) / heads.length;
+		slotOf[handle] = slot;
+
+		prev[handle] = NONE;
+		next[handle] = heads[slot];
+		if (heads[slot] != NONE) prev[heads[slot]] = handle;
+		heads[slot] = handle;
+
+		scheduled++;
+	}
+
+	/**
+	 * @return true if timer of handle was cancelled, false if handle wasn't scheduled
+	 */
+	public boolean cancel (int handle) {
+		if (isScheduled(handle) == false) return false;
+
+		unlink(handle);
+		return true;
+	}
+
+	public boolean isScheduled (int handle) {
+		return handle < slotOf.length && slotOf[handle] != NONE;
+	}
+
+	/**
+	 * Advances wheel by given number of ticks, handles of expired timers are added to out in order of expiration
+	 */
+	public void advance (long ticks, IntQueue out) {
+		for (long i = 0; i < ticks; i++) {
+			tick++;
+			int slot = (int) (tick & mask);
+			int handle = heads[slot];
+
+			while (handle != NONE) {
+				int nextHandle = next[handle];
+
+				if (rounds[handle] == 0) {
+					unlink(handle);
+					out.add(handle);
+				} else
+					rounds[handle]--;
+
+				handle = nextHandle;
+			}
+		}
+	}
+
+	/**
+	 * @return number of ticks wheel was advanced by since it was created
+	 */
+	public long getTick () {
+		return tick;
+	}
+
+	/**
+	 * @return number of pending timers
+	 */
+	public int size () {
+		return scheduled;
+	}
+
+	private void unlink (int handle) {
+		int slot = slotOf[handle];
+
+		if (prev[handle] != NONE)
+			next[prev[handle]] = next[handle];
+		else
+			heads[slot] = next[handle];
+
+		if (next[handle] != NONE) prev[next[handle]] = prev[handle];
+
+		slotOf[handle] = NONE;
+		scheduled--;
+	}
+
+	private void ensureCapacity (int capacity) {
+		if (capacity <= slotOf.length) return;
+
+		int newCapacity = Math.max(capacity, slotOf.length * 2);
+		int oldCapacity = slotOf.length;
+
+		next = copyOf(next, newCapacity);
+		prev = copyOf(prev, newCapacity);
+		slotOf = copyOf(slotOf, newCapacity);
+		long[] newRounds = new long[newCapacity];
+		System.arraycopy(rounds, 0, newRounds, 0, oldCapacity);
+		rounds = newRounds;
+
+		for (int i = oldCapacity; i < newCapacity; i++)
+			slotOf[i] = NONE;
+	}
+
+	private static int[] copyOf (int[] array, int length) {
+		int[] newArray = new int[length];
+		System.arraycopy(array, 0, newArray, 0, array.length);
+		return newArray;
+	}
+}
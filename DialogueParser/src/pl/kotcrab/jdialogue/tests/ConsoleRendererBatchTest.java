@@ -0,0 +1,69 @@
+/*******************************************************************************
+ * Copyright 2014 Pawel Pastuszak
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+
+package pl.kotcrab.jdialogue.tests;
+
+import pl.kotcrab.jdialogue.loader.JavaLoader;
+import pl.kotcrab.jdialogue.parser.DialogueParser;
+import pl.kotcrab.jdialogue.parser.impl.JDOMDialogueParser;
+import pl.kotcrab.jdialogue.renderer.ConsoleRenderer;
+import pl.kotcrab.jdialogue.renderer.DialogueInput;
+import pl.kotcrab.jdialogue.renderer.ScriptedInput;
+
+import java.io.File;
+import java.io.OutputStreamWriter;
+
+/**
+ * Runs sequence many times without user input, for smoke tests and measuring parser throughput.
+ * <pre>
+ * ConsoleRendererBatchTest [project.xml] [sequence] [runs] [seed] [script] [quiet]
+ * ConsoleRendererBatchTest assets/testProj/project.xml test 10000 1 "" quiet
+ * </pre>
+ * Decisions are read from script first, then made randomly using seed.
+ */
+public class ConsoleRendererBatchTest {
+	public static void main (String[] args) {
+		String projectPath = args.length > 0 ? args[0] : "assets/testProj/project.xml";
+		String sequence = args.length > 1 ? args[1] : "test";
+		int runs = args.length > 2 ? Integer.parseInt(args[2]) : 1000;
+		long seed = args.length > 3 ? Long.parseLong(args[3]) : 0;
+		String script = args.length > 4 ? args[4] : "";
+		boolean quiet = args.length > 5 && args[5].equals("quiet");
+
+		DialogueInput fallback = ScriptedInput.random(seed);
+		ScriptedInput input = new ScriptedInput(script, fallback);
+
+		ConsoleRenderer renderer = new ConsoleRenderer(new JDOMDialogueParser(new JavaLoader(new File(projectPath)), DialogueParser.INFINITY), input, quiet ? null : new OutputStreamWriter(System.out));
+		renderer.setStepLimit(10000);
+
+		long totalSteps = 0;
+		long start = System.nanoTime();
+
+		for (int i = 0; i < runs; i++) {
+			input.reset();
+			renderer.startSequence(sequence);
+			renderer.render();
+			totalSteps += renderer.getSteps();
+		}
+
+		long time = System.nanoTime() - start;
+		renderer.dispose();
+
+		System.out.println("Runs: " + runs + ", components: " + totalSteps + ", time: " + time / 1000000 + " ms");
+		System.out.println("Runs/s: " + (long) (runs / (time / 1e9)) + ", components/s: " + (long) (totalSteps / (time / 1e9)));
+	}
+}
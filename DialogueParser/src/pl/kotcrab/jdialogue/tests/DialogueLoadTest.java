@@ -0,0 +1,348 @@
+/*******************************************************************************
+ * Copyright 2014 Pawel Pastuszak
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+
+package pl.kotcrab.jdialogue.tests;
+
+import pl.kotcrab.jdialogue.loader.DialogueLoader;
+import pl.kotcrab.jdialogue.loader.JavaLoader;
+import pl.kotcrab.jdialogue.parser.CallbackListener;
+import pl.kotcrab.jdialogue.parser.ComponentType;
+import pl.kotcrab.jdialogue.parser.DialogueParser;
+import pl.kotcrab.jdialogue.parser.Project;
+import pl.kotcrab.jdialogue.parser.impl.JDOMDialogueParser;
+import pl.kotcrab.jdialogue.renderer.DialogueInput;
+import pl.kotcrab.jdialogue.renderer.ScriptedInput;
+
+import java.io.File;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Random;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Simulates many players running dialogues at the same time against one loaded project, to find how many players single
+ * machine can handle. Project is loaded once and shared, every player has its own parser which loads its sequence when player
+ * starts first dialogue, so conditions are compiled for variables of that player. Player reads each line for think time plus
+ * 30 ms per character and selects random choices.
+ * <pre>
+ * DialogueLoadTest [project.xml] [sequences] [players] [seconds] [closed|open] [platform|virtual] [think ms]
+ * DialogueLoadTest assets/testProj/project.xml test 5000 30 open virtual 500
+ * </pre>
+ * Closed loop: player waits for response, then thinks, latency is service time. Open loop: player acts on fixed schedule of
+ * think time (and reading time of lines) whether or not previous action finished in time, latency is measured from scheduled
+ * start so queueing delay is included. Increase players until latency percentiles in open loop mode start to grow.
+ * <p>
+ * Reports throughput and latency percentiles of each operation, GC count and time, and bytes allocated by measured operations
+ * (HotSpot platform threads only). Virtual threads require Java 21, platform threads are used when they are not available. First fifth of run is warm up
+ * and is not measured.
+ */
+public class DialogueLoadTest {
+	private static final int START = 0;
+	private static final int TEXT = 1;
+	private static final int CHOICE = 2;
+	private static final int END = 3;
+	private static final String[] OPERATION_NAMES = {"start", "text", "choice", "end"};
+
+	private static final int CHAR_MILLIS = 30;
+
+	private static volatile boolean running = true;
+	private static volatile boolean measuring = false;
+
+	private static LatencyHistogram[] histograms = {new LatencyHistogram(), new LatencyHistogram(), new LatencyHistogram(), new LatencyHistogram()};
+	private static AtomicLong allocatedBytes = new AtomicLong();
+	private static AtomicLong failures = new AtomicLong();
+
+	public static void main (String[] args) throws Exception {
+		String projectPath = args.length > 0 ? args[0] : "assets/testProj/project.xml";
+		String[] sequenceNames = (args.length > 1 ? args[1] : "test").split(",");
+		int players = args.length > 2 ? Integer.parseInt(args[2]) : 1000;
+		int seconds = args.length > 3 ? Integer.parseInt(args[3]) : 30;
+		boolean openLoop = args.length > 4 && args[4].equals("open");
+		boolean virtual = args.length > 5 && args[5].equals("virtual");
+		int thinkMillis = args.length > 6 ? Integer.parseInt(args[6]) : 500;
+
+		DialogueLoader loader = new JavaLoader(new File(projectPath));
+		Project project = JDOMDialogueParser.loadProject(loader);
+
+		ThreadFactory factory = createThreadFactory(virtual);
+		virtual = factory != null;
+		if (factory == null) factory = new ThreadFactory() {
+			@Override
+			public Thread newThread (Runnable runnable) {
+				Thread thread = new Thread(runnable);
+				thread.setDaemon(true);
+				return thread;
+			}
+		};
+
+		System.out.println("Players: " + players + ", mode: " + (openLoop ? "open" : "closed") + " loop, threads: " + (virtual ? "virtual" : "platform") + ", think: " + thinkMillis + " ms");
+
+		Thread[] threads = new Thread[players];
+		for (int i = 0; i < players; i++) {
+			Player player = new Player(loader, project, sequenceNames[i % sequenceNames.length], i, openLoop, thinkMillis);
+			threads[i] = factory.newThread(player);
+			threads[i].start();
+		}
+
+		long warmupMillis = seconds * 1000L / 5;
+		Thread.sleep(warmupMillis);
+
+		long gcCount = getGcCount();
+		long gcTime = getGcTime();
+		long start = System.nanoTime();
+		measuring = true;
+
+		Thread.sleep(seconds * 1000L - warmupMillis);
+
+		measuring = false;
+		long time = System.nanoTime() - start;
+		gcCount = getGcCount() - gcCount;
+		gcTime = getGcTime() - gcTime;
+
+		running = false;
+		for (Thread thread : threads)
+			thread.join();
+
+		double timeSeconds = time / 1e9;
+		long operations = 0;
+
+		for (int i = 0; i < histograms.length; i++) {
+			LatencyHistogram histogram = histograms[i];
+			operations += histogram.getCount();
+
+			System.out.printf("%-7s ops: %9d, ops/s: %9.0f, latency us p50: %8.1f, p90: %8.1f, p99: %8.1f, p99.9: %8.1f, max: %8.1f%n", OPERATION_NAMES[i], histogram.getCount(), histogram.getCount() / timeSeconds,
+					histogram.getPercentile(0.5) / 1e3, histogram.getPercentile(0.9) / 1e3, histogram.getPercentile(0.99) / 1e3, histogram.getPercentile(0.999) / 1e3, histogram.getMax() / 1e3);
+		}
+
+		System.out.printf("Total ops/s: %.0f, failures: %d%n", operations / timeSeconds, failures.get());
+		System.out.printf("GC: %d collections, %d ms (%.1f%% of time)%n", gcCount, gcTime, gcTime / (time / 1e6) * 100);
+
+		if (allocatedBytes.get() > 0)
+			System.out.printf("Allocated: %d MB, %.1f MB/s, %.0f bytes/op%n", allocatedBytes.get() >> 20, allocatedBytes.get() / timeSeconds / (1 << 20), (double) allocatedBytes.get() / operations);
+		else
+			System.out.println("Allocated: not available for this JVM or thread type");
+	}
+
+	/** @return factory of virtual threads or null if they aren't supported */
+	private static ThreadFactory createThreadFactory (boolean virtual) {
+		if (virtual == false) return null;
+
+		try { // Thread.ofVirtual().factory(), by reflection so test compiles on older Java
+			Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+			return (ThreadFactory) Class.forName("java.lang.Thread$Builder").getMethod("factory").invoke(builder);
+		} catch (ReflectiveOperationException e) {
+			System.out.println("Virtual threads are not available, using platform threads");
+			return null;
+		}
+	}
+
+	private static long getGcCount () {
+		long count = 0;
+		for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans())
+			count += Math.max(bean.getCollectionCount(), 0);
+
+		return count;
+	}
+
+	private static long getGcTime () {
+		long time = 0;
+		for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans())
+			time += Math.max(bean.getCollectionTime(), 0);
+
+		return time;
+	}
+
+	/** @return bytes allocated by current thread, -1 if not supported */
+	private static long getThreadAllocatedBytes () {
+		ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if (bean instanceof com.sun.management.ThreadMXBean == false) return -1;
+
+		com.sun.management.ThreadMXBean hotspotBean = (com.sun.management.ThreadMXBean) bean;
+		if (hotspotBean.isThreadAllocatedMemorySupported() == false || hotspotBean.isThreadAllocatedMemoryEnabled() == false) return -1;
+
+		return hotspotBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+
+	private static class Player implements Runnable {
+		private JDOMDialogueParser parser;
+		private String sequence;
+		private DialogueInput input;
+		private Random random;
+
+		private boolean openLoop;
+		private long thinkNanos;
+
+		private boolean started;
+		private int lastTextLength;
+
+		public Player (DialogueLoader loader, Project project, String sequence, long seed, boolean openLoop, int thinkMillis) {
+			this.sequence = sequence;
+			this.openLoop = openLoop;
+			this.thinkNanos = thinkMillis * 1000000L;
+
+			random = new Random(seed);
+			input = ScriptedInput.random(seed);
+			parser = new JDOMDialogueParser(loader, project, DialogueParser.INFINITY);
+			parser.addCallbackListener(new CallbackListener() {
+				@Override
+				public void handleCallback (String callbackText) {
+				}
+
+				@Override
+				public boolean handleCallbackCheck (String callbackText) {
+					return input.nextCheck(callbackText);
+				}
+			});
+		}
+
+		@Override
+		public void run () {
+			// spread first actions over think time so players don't start at once
+			long next = System.nanoTime() + (long) (random.nextDouble() * thinkNanos);
+
+			while (running) {
+				long now = System.nanoTime();
+				if (next > now) sleep(next - now);
+				if (running == false) break;
+
+				boolean measured = measuring;
+				long allocated = measured ? getThreadAllocatedBytes() : -1;
+				long start = openLoop ? next : System.nanoTime();
+				int operation;
+
+				try {
+					operation = act();
+				} catch (RuntimeException e) {
+					failures.incrementAndGet();
+					started = false;
+					next = openLoop ? next + thinkNanos : System.nanoTime() + thinkNanos;
+					continue;
+				}
+
+				long end = System.nanoTime();
+
+				if (measured) {
+					histograms[operation].record(end - start);
+
+					if (allocated != -1) allocatedBytes.addAndGet(getThreadAllocatedBytes() - allocated);
+				}
+
+				long think = operation == TEXT ? thinkNanos + lastTextLength * CHAR_MILLIS * 1000000L : thinkNanos;
+				next = openLoop ? next + think : end + (long) (-Math.log(1 - random.nextDouble()) * think);
+			}
+		}
+
+		/** Advances dialogue to next text or choice, or starts it again after it ended */
+		private int act () {
+			if (started == false) {
+				parser.startSequence(sequence);
+				started = true;
+				return START;
+			}
+
+			while (true) {
+				ComponentType type = parser.processNextComponent();
+
+				switch (type) {
+					case END:
+						started = false;
+						return END;
+
+					case TEXT:
+						lastTextLength = parser.getMsg().length();
+						parser.moveToNextComponent();
+						return TEXT;
+
+					case CHOICE:
+						parser.moveToNextComponent(input.nextChoice(parser.getChoiceData()));
+						return CHOICE;
+
+					default:
+						parser.moveToNextComponent();
+						break;
+				}
+			}
+		}
+
+		private void sleep (long nanos) {
+			try {
+				Thread.sleep(nanos / 1000000, (int) (nanos % 1000000));
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	/**
+	 * Concurrent histogram with 16 buckets per power of two, values are recorded with about 6% precision
+	 */
+	private static class LatencyHistogram {
+		private static final int SUB_BUCKETS = 16;
+
+		private AtomicLongArray counts = new AtomicLongArray(64 * SUB_BUCKETS);
+		private AtomicLong count = new AtomicLong();
+		private AtomicLong max = new AtomicLong();
+
+		public void record (long value) {
+			counts.incrementAndGet(getIndex(value));
+			count.incrementAndGet();
+
+			long currentMax = max.get();
+			while (value > currentMax && max.compareAndSet(currentMax, value) == false)
+				currentMax = max.get();
+		}
+
+		public long getCount () {
+			return count.get();
+		}
+
+		public long getMax () {
+			return max.get();
+		}
+
+		/** @return lower bound of bucket containing given percentile, 0 if histogram is empty */
+		public long getPercentile (double percentile) {
+			long target = (long) Math.ceil(percentile * count.get());
+			long seen = 0;
+
+			for (int i = 0; i < counts.length(); i++) {
+				seen += counts.get(i);
+				if (seen >= target && seen > 0) return getValue(i);
+			}
+
+			return 0;
+		}
+
+		private static int getIndex (long value) {
+			if (value < SUB_BUCKETS) return (int) Math.max(value, 0);
+
+			int exponent = 63 - Long.numberOfLeadingZeros(value);
+			int sub = (int) (value >>> (exponent - 4)) & (SUB_BUCKETS - 1);
+			return (exponent - 3) * SUB_BUCKETS + sub;
+		}
+
+		private static long getValue (int index) {
+			if (index < SUB_BUCKETS) return index;
+
+			int exponent = index / SUB_BUCKETS + 3;
+			return (long) (SUB_BUCKETS + index % SUB_BUCKETS) << (exponent - 4);
+		}
+	}
+}
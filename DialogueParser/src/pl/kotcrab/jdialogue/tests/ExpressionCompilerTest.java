@@ -0,0 +1,130 @@
+/*******************************************************************************
+ * Copyright 2014 Pawel Pastuszak
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+
+package pl.kotcrab.jdialogue.tests;
+
+import pl.kotcrab.jdialogue.parser.DialogueParserException;
+import pl.kotcrab.jdialogue.parser.VariableStore;
+import pl.kotcrab.jdialogue.parser.expression.Expression;
+import pl.kotcrab.jdialogue.parser.expression.ExpressionCompiler;
+
+/**
+ * Checks condition expressions: operator precedence, variable binding and errors reported for invalid expressions. Prints
+ * every failed check and exits with status 1 if any check failed.
+ * <pre>
+ * ExpressionCompilerTest
+ * </pre>
+ */
+public class ExpressionCompilerTest {
+	private static VariableStore vars;
+	private static ExpressionCompiler compiler;
+	private static int failed;
+
+	public static void main (String[] args) {
+		vars = new VariableStore();
+		vars.defineInt("gold", 10);
+		vars.defineInt("quest.stage", 2);
+		vars.defineBoolean("met", false);
+		compiler = new ExpressionCompiler(vars);
+
+		// precedence
+		check("1 + 2 * 3", 7);
+		check("(1 + 2) * 3", 9);
+		check("10 - 4 - 3", 3);
+		check("7 / 2 * 2", 6);
+		check("7 % 4 + 1", 4);
+		check("-2 * 3 + 10", 4);
+		check("1 + 1 == 2 && 3 < 2 || true", 1);
+		check("false || true && false", 0);
+		check("!false && !(1 > 2)", 1);
+		check("2 >= 2 && 2 <= 1", 0);
+		check("1 != 2", 1);
+
+		// division by expression that evaluates to 0 returns 0
+		check("7 / (gold - 10)", 0);
+		check("7 % (2 - 2)", 0);
+
+		// variables
+		check("gold * 2", 20);
+		check("gold >= 10 && quest.stage == 2", 1);
+		check("!met", 1);
+
+		Expression expr = compiler.compileCondition("gold > 5 && met");
+		checkValue("gold > 5 && met", expr.evaluate(vars), 0);
+		vars.setBoolean("met", true);
+		checkValue("gold > 5 && met, met set", expr.evaluate(vars), 1);
+		vars.setInt("gold", 3);
+		checkValue("gold > 5 && met, gold set", expr.evaluate(vars), 0);
+
+		// expression compiled for one store can be evaluated with other store that has same variables
+		VariableStore other = new VariableStore();
+		other.defineInt("gold", 100);
+		other.defineInt("quest.stage", 0);
+		other.defineBoolean("met", true);
+		checkValue("gold > 5 && met, other store", expr.evaluate(other), 1);
+
+		// errors
+		checkError("1 +");
+		checkError("(1 + 2");
+		checkError("1 2");
+		checkError("unknown > 1");
+		checkError("met + 1");
+		checkError("gold && true");
+		checkError("99999999999");
+		checkError("gold / 0");
+		checkError("gold % (0)");
+		checkConditionError("gold + 1");
+
+		if (failed > 0) {
+			System.out.println(failed + " checks failed");
+			System.exit(1);
+		}
+
+		System.out.println("All checks passed");
+	}
+
+	private static void check (String source, int expected) {
+		checkValue(source, compiler.compile(source).evaluate(vars), expected);
+	}
+
+	private static void checkValue (String name, int value, int expected) {
+		if (value != expected) fail("'" + name + "' returned " + value + ", expected " + expected);
+	}
+
+	private static void checkError (String source) {
+		try {
+			compiler.compile(source);
+			fail("'" + source + "' compiled, expected error");
+		} catch (DialogueParserException e) {
+			System.out.println(e.getMessage());
+		}
+	}
+
+	private static void checkConditionError (String source) {
+		try {
+			compiler.compileCondition(source);
+			fail("'" + source + "' compiled as condition, expected error");
+		} catch (DialogueParserException e) {
+			System.out.println(e.getMessage());
+		}
+	}
+
+	private static void fail (String message) {
+		failed++;
+		System.out.println("FAIL: " + message);
+	}
+}
@@ -0,0 +1,91 @@
+/*******************************************************************************
+ * Copyright 2014 Pawel Pastuszak
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+
+package pl.kotcrab.jdialogue.tests;
+
+import pl.kotcrab.jdialogue.parser.StyledText;
+
+import java.util.Arrays;
+
+/**
+ * Checks parsing of text markup: colors, emphasis, pauses and invalid tags that must be left in text. Prints every failed check
+ * and exits with status 1 if any check failed.
+ * <pre>
+ * StyledTextTest
+ * </pre>
+ */
+public class StyledTextTest {
+	private static final int RED = StyledText.COLOR | 0xff0000;
+	private static final int E = StyledText.EMPHASIS;
+
+	private static int failed;
+
+	public static void main (String[] args) {
+		checkPlain("no markup");
+		check("[c=red]Hi[/c] there", "Hi there", 2, RED, 6, 0);
+		check("[c=#Ff8000]a[/c]", "a", 1, StyledText.COLOR | 0xff8000);
+		check("[c=red]a[e]b[/e][/c]c", "abc", 1, RED, 1, RED | E, 1, 0);
+		check("[c=red]a[c=blue]b[/c]c[/c]", "abc", 1, RED, 1, StyledText.COLOR | 0x0000ff, 1, RED);
+		check("[[c=red]", "[c=red]", 7, 0);
+		check("a[x]b[e]c", "a[x]bc", 5, 0, 1, E);
+		check("a[/c]b[e]c", "a[/c]bc", 6, 0, 1, E);
+
+		// invalid colors are not tags, sign must not be accepted as hex digit
+		check("[c=#-12345]a[e]b", "[c=#-12345]ab", 12, 0, 1, E);
+		check("[c=#+12345]a[e]b", "[c=#+12345]ab", 12, 0, 1, E);
+		check("[c=#12345g]a[e]b", "[c=#12345g]ab", 12, 0, 1, E);
+		check("[c=#12345]a[e]b", "[c=#12345]ab", 11, 0, 1, E);
+		checkPlain("[c=#-12345]a");
+		checkPlain("[c=purple]a");
+
+		StyledText pause = StyledText.parse("ab[p=500]c");
+		if (pause == null || pause.getText().equals("abc") == false || pause.getPauseCount() != 1 || pause.getPausePosition(0) != 2 || pause.getPauseMillis(0) != 500)
+			fail("pause in 'ab[p=500]c' was not parsed");
+		checkPlain("[p=-5]a");
+
+		if (failed > 0) {
+			System.out.println(failed + " checks failed");
+			System.exit(1);
+		}
+
+		System.out.println("All checks passed");
+	}
+
+	/** @param runs pairs of run length and style */
+	private static void check (String markup, String text, int... runs) {
+		StyledText styled = StyledText.parse(markup);
+
+		if (styled == null) {
+			fail("'" + markup + "' has no markup");
+			return;
+		}
+
+		if (styled.getText().equals(text) == false) fail("'" + markup + "' text is '" + styled.getText() + "', expected '" + text + "'");
+		if (Arrays.equals(styled.getRuns(), runs) == false)
+			fail("'" + markup + "' runs are " + Arrays.toString(styled.getRuns()) + ", expected " + Arrays.toString(runs));
+	}
+
+	private static void checkPlain (String markup) {
+		StyledText styled = StyledText.parse(markup);
+		if (styled != null) fail("'" + markup + "' was parsed as markup, runs " + Arrays.toString(styled.getRuns()));
+	}
+
+	private static void fail (String message) {
+		failed++;
+		System.out.println("FAIL: " + message);
+	}
+}